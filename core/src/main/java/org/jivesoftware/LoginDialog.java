@@ -26,6 +26,9 @@ import org.jivesoftware.resource.SparkRes;
 import org.jivesoftware.smack.*;
 import org.jivesoftware.smack.parsing.ExceptionLoggingCallback;
 import org.jivesoftware.smack.proxy.ProxyInfo;
+import org.jivesoftware.smack.roster.Roster;
+import org.jivesoftware.smack.roster.rosterstore.DirectoryRosterStore;
+import org.jivesoftware.smack.roster.rosterstore.RosterStore;
 import org.jivesoftware.smack.sasl.javax.SASLExternalMechanism;
 import org.jivesoftware.smack.sasl.javax.SASLGSSAPIMechanism;
 import org.jivesoftware.smack.tcp.XMPPTCPConnection;
@@ -33,6 +36,7 @@ import org.jivesoftware.smack.tcp.XMPPTCPConnectionConfiguration;
 import org.jivesoftware.smack.util.DNSUtil;
 import org.jivesoftware.smack.util.TLSUtils;
 import org.jivesoftware.smackx.chatstates.ChatStateManager;
+import org.jivesoftware.spark.LoginTaskManager;
 import org.jivesoftware.spark.SessionManager;
 import org.jivesoftware.spark.SparkManager;
 import org.jivesoftware.spark.Workspace;
@@ -134,6 +138,7 @@ public class LoginDialog {
 
         // Construct Dialog
     	 EventQueue.invokeLater( () -> {
+            final StartupProfiler.Span span = StartupProfiler.begin("Show login dialog");
             loginDialog = new JFrame(Default.getString(Default.APPLICATION_NAME));
             loginDialog.setIconImage(SparkManager.getApplicationImage().getImage());
             LoginPanel loginPanel = new LoginPanel();
@@ -188,6 +193,12 @@ public class LoginDialog {
                 // Make dialog top most.
                 loginDialog.setVisible(true);
             }
+            span.end();
+
+            // Unless the user is logged in automatically, the time until the user logs in is not part of the startup.
+            if (!loginPanel.isLoggingIn()) {
+                StartupProfiler.beginUserWait();
+            }
          } );
 
 
@@ -397,6 +408,7 @@ public class LoginDialog {
         final JPanel buttonPanel = new JPanel(new GridBagLayout());
         private final GridBagLayout GRIDBAGLAYOUT = new GridBagLayout();
         private AbstractXMPPConnection connection = null;
+        private boolean loggingIn;
 
         private JLabel headerLabel = new JLabel();
         private JLabel accountLabel = new JLabel();
@@ -711,6 +723,32 @@ public class LoginDialog {
             return usernameField.getText()+"@"+serverField.getText();
         }
 
+        /**
+         * Sets a persistent roster store on the roster of the connection, which enables roster versioning (XEP-0237)
+         * if the server supports it.
+         *
+         * @param connection the connection that is about to log in.
+         */
+        private void useRosterStore( AbstractXMPPConnection connection )
+        {
+            final File rosterDirectory = new File( Spark.getSparkUserHome(), "/user/" + getBareJid() + "/roster" );
+            RosterStore rosterStore = DirectoryRosterStore.open( rosterDirectory );
+            if ( rosterStore == null )
+            {
+                rosterDirectory.mkdirs();
+                rosterStore = DirectoryRosterStore.init( rosterDirectory );
+            }
+
+            if ( rosterStore != null )
+            {
+                Roster.getInstanceFor( connection ).setRosterStore( rosterStore );
+            }
+            else
+            {
+                Log.warning( "Unable to use roster store in " + rosterDirectory );
+            }
+        }
+
         /**
          * Returns the password specified by the user.
          *
@@ -920,6 +958,9 @@ public class LoginDialog {
          * Validates the users login information.
          */
         private void validateLogin() {
+            StartupProfiler.endUserWait();
+            loggingIn = true;
+
             final SwingWorker loginValidationThread = new SwingWorker() {
                 public Object construct() {
                     setLoginUsername(getUsername());
@@ -941,6 +982,8 @@ public class LoginDialog {
                     }
                     else {
                         EventQueue.invokeLater( () -> {
+                            loggingIn = false;
+                            StartupProfiler.beginUserWait();
                             savePasswordBox.setEnabled(true);
                             autoLoginBox.setEnabled(true);
                             loginAsInvisibleBox.setVisible(true);
@@ -963,6 +1006,15 @@ public class LoginDialog {
             loginValidationThread.start();
         }
 
+        /**
+         * Returns whether the user is being logged in, after the login button was clicked or automatically.
+         *
+         * @return true if the user is being logged in.
+         */
+        private boolean isLoggingIn() {
+            return loggingIn;
+        }
+
         public JPasswordField getPasswordField() {
             return passwordField;
         }
@@ -1108,6 +1160,7 @@ public class LoginDialog {
 
             SmackConfiguration.setDefaultPacketReplyTimeout( localPref.getTimeOut() * 1000 );
 
+            final StartupProfiler.Span span = StartupProfiler.begin( "Connect and log in" );
             try
             {
                 connection = new XMPPTCPConnection( retrieveConnectionConfiguration() );
@@ -1161,6 +1214,9 @@ public class LoginDialog {
                         resource = JiveInfo.getName() + " " + JiveInfo.getVersion();
                     }
 
+                    // Cache the roster locally, so that the server only needs to send what changed since the last session.
+                    useRosterStore( connection );
+
                     connection.login( getLoginUsername(), getLoginPassword(), modifyWildcards( resource ).trim() );
                 }
 
@@ -1169,6 +1225,11 @@ public class LoginDialog {
                 sessionManager.initializeSession( connection, getLoginUsername(), getLoginPassword() );
                 sessionManager.setJID( connection.getUser() );
 
+                span.end();
+
+                // Start the work that only needs the connection, while the workspace is being built.
+                LoginTaskManager.getInstance().start();
+
                 final ReconnectionManager reconnectionManager = ReconnectionManager.getInstanceFor( connection );
                 reconnectionManager.setFixedDelay( localPref.getReconnectDelay() );
                 reconnectionManager.setReconnectionPolicy( ReconnectionManager.ReconnectionPolicy.FIXED_DELAY );
@@ -1176,6 +1237,7 @@ public class LoginDialog {
             }
             catch ( Exception xee )
             {
+                span.end();
                 Log.error( "Exception in Login:", xee );
 
                 final String errorMessage;
@@ -1315,7 +1377,9 @@ public class LoginDialog {
              }
              */
              // Creates the Spark  Workspace and add to MainWindow
+             final StartupProfiler.Span creation = StartupProfiler.begin("Create workspace");
              Workspace workspace = Workspace.getInstance();
+             creation.end();
 
              LayoutSettings settings = LayoutSettingsManager.getLayoutSettings();
 
@@ -1361,7 +1425,9 @@ public class LoginDialog {
              loginDialog.setVisible(false);
 
              // Build the layout in the workspace
+             final StartupProfiler.Span layout = StartupProfiler.begin("Build workspace layout");
              workspace.buildLayout();
+             layout.end();
             } );
 		}
 		catch (Exception e)
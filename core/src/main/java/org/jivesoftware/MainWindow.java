@@ -272,6 +272,7 @@ public final class MainWindow extends ChatFrame implements ActionListener {
         catch (Exception ex) {
             Log.error(ex);
         }
+        Log.debug("Task engine statistics:\n" + TaskEngine.getInstance().getStatistics());
         // Close application.
         System.exit(1);
 
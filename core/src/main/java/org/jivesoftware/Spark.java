@@ -20,10 +20,13 @@ package org.jivesoftware;
 import org.jivesoftware.resource.Default;
 import org.jivesoftware.resource.Res;
 import org.jivesoftware.spark.PluginManager;
+import org.jivesoftware.spark.StartupWarmUp;
 import org.jivesoftware.spark.ui.themes.ColorSettingManager;
 import org.jivesoftware.spark.ui.themes.ColorSettings;
 import org.jivesoftware.spark.ui.themes.LookAndFeelManager;
+import org.jivesoftware.spark.util.EdtWatchdog;
 import org.jivesoftware.spark.util.ModelUtil;
+import org.jivesoftware.spark.util.StartupProfiler;
 import org.jivesoftware.spark.util.UIComponentRegistry;
 import org.jivesoftware.sparkimpl.settings.local.LocalPreferences;
 import org.jivesoftware.sparkimpl.settings.local.SettingsManager;
@@ -83,6 +86,7 @@ public final class Spark {
     }
     
     public void startup() {
+        final StartupProfiler.Span configuration = StartupProfiler.begin("Directories and configuration");
 	if (System.getenv("APPDATA") != null && !System.getenv("APPDATA").equals("")) {
 	    USER_SPARK_HOME = System.getenv("APPDATA") + "/" + getUserConf();
 	} else {
@@ -154,13 +158,25 @@ public final class Spark {
             }
         }
 
+        configuration.end();
+
         // Set default language set by the user.
+        final StartupProfiler.Span language = StartupProfiler.begin("Language");
         loadLanguage();
+        language.end();
 
         /**
          * Loads the LookandFeel
          */
+        final StartupProfiler.Span lookAndFeel = StartupProfiler.begin("Look and feel");
         LookAndFeelManager.loadPreferredLookAndFeel();
+        lookAndFeel.end();
+
+        // Prepare what is needed after logging in, while the user logs in.
+        StartupWarmUp.start();
+
+        // Report it when the user interface stops responding.
+        EdtWatchdog.start(SettingsManager.getLocalPreferences().getEdtStallThreshold());
 
 
         buf.append(classPath);
@@ -180,8 +196,10 @@ public final class Spark {
 
         //load plugins before Workspace initialization to avoid any UI delays
         //during plugin rendering
+        final StartupProfiler.Span plugins = StartupProfiler.begin("Load plugins");
         final PluginManager pluginManager = PluginManager.getInstance();
         pluginManager.loadPlugins();
+        plugins.end();
 
         installBaseUIProperties();
 
@@ -191,8 +209,10 @@ public final class Spark {
 
         try {
 	        EventQueue.invokeAndWait( () -> {
+            final StartupProfiler.Span loginDialog = StartupProfiler.begin("Create login dialog");
             final LoginDialog dialog = UIComponentRegistry.createLoginDialog();
                 dialog.invoke(new JFrame());
+            loginDialog.end();
             } );
         }
         catch(Exception ex) {
@@ -182,7 +182,7 @@ public class ChatManager implements ChatManagerListener {
      * @throws ChatNotFoundException thrown if no ChatRoom is found.
      */
     public GroupChatRoom getGroupChat(String roomName) throws ChatNotFoundException {
-        for (ChatRoom chatRoom : getChatContainer().getChatRooms()) {
+        for (ChatRoom chatRoom : getChatContainer().getChatRooms(roomName)) {
             if (chatRoom instanceof GroupChatRoom) {
                 GroupChatRoom groupChat = (GroupChatRoom)chatRoom;
                 if (groupChat.getRoomname().equals(roomName)) {
@@ -504,8 +504,7 @@ public class ChatManager implements ChatManagerListener {
     public String getDefaultConferenceService() {
         if (conferenceService == null) {
             try {
-                final MultiUserChatManager multiUserChatManager = MultiUserChatManager.getInstanceFor( SparkManager.getConnection() );
-                Collection<String> col = multiUserChatManager.getServiceNames();
+                Collection<String> col = ServiceDiscoveryCache.getInstance().findServices( SparkManager.getConnection().getServiceName(), "http://jabber.org/protocol/muc" );
                 if (col.size() > 0) {
                     conferenceService = col.iterator().next();
                 }
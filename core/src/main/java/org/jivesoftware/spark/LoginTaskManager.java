@@ -0,0 +1,238 @@
+/**
+ * Copyright (C) 2004-2011 Jive Software. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.spark;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimerTask;
+
+import org.jivesoftware.spark.util.TaskEngine;
+import org.jivesoftware.spark.util.log.Log;
+
+/**
+ * Runs the work that needs to be done after logging in, such as loading
+ * bookmarks, privacy lists and gateways, as a set of named tasks.
+ * <p>
+ * Each task declares the tasks it depends on. Once the login tasks are
+ * started, every task whose dependencies have completed runs on the
+ * {@link TaskEngine}, so that independent requests to the server are sent
+ * concurrently instead of one after another. A task that does not complete
+ * within its timeout is reported, and the tasks depending on it are started
+ * regardless. Tasks can be added after the login tasks have been started, for
+ * instance by plugins; they run as soon as their dependencies allow.
+ * <p>
+ * The duration of every task is recorded, see {@link #getDurations()}.
+ * This class is thread-safe.
+ */
+public class LoginTaskManager {
+
+    /**
+     * The default number of milliseconds a task may take before the tasks depending on it are started anyway.
+     */
+    public static final long DEFAULT_TIMEOUT = 30 * 1000;
+
+    private static final LoginTaskManager instance = new LoginTaskManager();
+
+    private final Map<String, Task> tasks = new LinkedHashMap<>();
+    private boolean started;
+    private long startTime;
+
+    /**
+     * Returns the login task manager (singleton).
+     *
+     * @return the login task manager.
+     */
+    public static LoginTaskManager getInstance() {
+        return instance;
+    }
+
+    private LoginTaskManager() {
+    }
+
+    /**
+     * Adds a task with the default timeout.
+     *
+     * @param name         the name of the task.
+     * @param runnable     the work to do. It is invoked on a background thread.
+     * @param dependencies the names of the tasks that must complete before this task starts.
+     */
+    public void addTask(String name, Runnable runnable, String... dependencies) {
+        addTask(name, DEFAULT_TIMEOUT, runnable, dependencies);
+    }
+
+    /**
+     * Adds a task. A dependency that was not added (yet) is waited for until
+     * it is added and has completed.
+     * <p>
+     * Adding a task with the name of a task that was added before replaces it if
+     * it did not start yet, for instance when logging in is retried, and is
+     * ignored otherwise.
+     *
+     * @param name         the name of the task.
+     * @param timeout      the number of milliseconds after which the tasks depending on this task are started anyway.
+     * @param runnable     the work to do. It is invoked on a background thread.
+     * @param dependencies the names of the tasks that must complete before this task starts.
+     */
+    public synchronized void addTask(String name, long timeout, Runnable runnable, String... dependencies) {
+        final Task existing = tasks.get(name);
+        if (existing != null && existing.state != State.WAITING) {
+            Log.debug("Ignoring login task '" + name + "', as a task with that name was started already.");
+            return;
+        }
+        tasks.put(name, new Task(name, timeout, runnable, Arrays.asList(dependencies)));
+        if (started) {
+            runReadyTasks();
+        }
+    }
+
+    /**
+     * Starts running the tasks. This is invoked right after the session has been
+     * initialized when logging in, before the workspace is built; most tasks
+     * are added while the workspace loads its plugins, and run as they are added.
+     */
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        startTime = System.currentTimeMillis();
+        runReadyTasks();
+    }
+
+    /**
+     * Returns true if a task has completed (or timed out).
+     *
+     * @param name the name of the task.
+     * @return true if the task completed.
+     */
+    public synchronized boolean isCompleted(String name) {
+        final Task task = tasks.get(name);
+        return task != null && task.state == State.COMPLETED;
+    }
+
+    /**
+     * Returns the number of milliseconds every completed task took, in the
+     * order in which the tasks were added. Tasks that timed out are included
+     * with their timeout.
+     *
+     * @return the durations of the completed tasks, by name.
+     */
+    public synchronized Map<String, Long> getDurations() {
+        final Map<String, Long> durations = new LinkedHashMap<>();
+        for (Task task : tasks.values()) {
+            if (task.state == State.COMPLETED) {
+                durations.put(task.name, task.duration);
+            }
+        }
+        return Collections.unmodifiableMap(durations);
+    }
+
+    private void runReadyTasks() {
+        for (Task task : tasks.values()) {
+            if (task.state == State.WAITING && isReady(task)) {
+                run(task);
+            }
+        }
+    }
+
+    private boolean isReady(Task task) {
+        for (String dependency : task.dependencies) {
+            final Task other = tasks.get(dependency);
+            if (other == null || other.state != State.COMPLETED) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void run(final Task task) {
+        task.state = State.RUNNING;
+        task.started = System.currentTimeMillis();
+
+        task.watchdog = new TimerTask() {
+            @Override
+            public void run() {
+                complete(task, true);
+            }
+        };
+        TaskEngine.getInstance().schedule(task.watchdog, task.timeout);
+
+        TaskEngine.getInstance().submit(() -> {
+            try {
+                task.runnable.run();
+            }
+            catch (RuntimeException e) {
+                Log.error("Login task '" + task.name + "' failed.", e);
+            }
+            finally {
+                complete(task, false);
+            }
+        });
+    }
+
+    private synchronized void complete(Task task, boolean timedOut) {
+        if (task.state != State.RUNNING) {
+            if (!timedOut) {
+                Log.debug("Login task '" + task.name + "' completed after " + (System.currentTimeMillis() - task.started) + " ms, after its timeout.");
+            }
+            return;
+        }
+        task.state = State.COMPLETED;
+        task.duration = System.currentTimeMillis() - task.started;
+
+        if (timedOut) {
+            Log.warning("Login task '" + task.name + "' did not complete within " + task.timeout + " ms. Starting the tasks depending on it anyway.");
+        }
+        else {
+            TaskEngine.getInstance().cancelScheduledTask(task.watchdog);
+            Log.debug("Login task '" + task.name + "' completed in " + task.duration + " ms.");
+        }
+
+        runReadyTasks();
+
+        for (Task other : tasks.values()) {
+            if (other.state != State.COMPLETED) {
+                return;
+            }
+        }
+        Log.debug("All login tasks completed " + (System.currentTimeMillis() - startTime) + " ms after they were started: " + getDurations());
+    }
+
+    private enum State {
+        WAITING, RUNNING, COMPLETED
+    }
+
+    private static class Task {
+        private final String name;
+        private final long timeout;
+        private final Runnable runnable;
+        private final List<String> dependencies;
+        private State state = State.WAITING;
+        private long started;
+        private long duration;
+        private TimerTask watchdog;
+
+        private Task(String name, long timeout, Runnable runnable, List<String> dependencies) {
+            this.name = name;
+            this.timeout = timeout;
+            this.runnable = runnable;
+            this.dependencies = dependencies;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) 2004-2011 Jive Software. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.spark;
+
+import org.jivesoftware.spark.plugin.Plugin;
+import org.jivesoftware.spark.util.StartupProfiler;
+import org.jivesoftware.spark.util.TaskEngine;
+import org.jivesoftware.spark.util.log.Log;
+
+import java.awt.*;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Initializes plugins in the order of their dependencies.
+ *
+ * A plugin is initialized as soon as all plugins it depends on have been initialized. Plugins that can be initialized
+ * in the background (see {@link Plugin#canInitializeInBackground()}) are initialized on a small pool of threads, the
+ * other plugins are initialized on the event dispatch thread, one event per plugin, so that the user interface stays
+ * responsive in between.
+ *
+ * The time each plugin takes to initialize is logged and recorded by the {@link StartupProfiler}, of which the recording
+ * ends once all plugins have been initialized. A plugin that does not finish its initialization in time is considered
+ * to have failed: the plugins that depend on it are not initialized. Only for plugins that are initialized in the
+ * background does this isolate the other plugins from it, as they are initialized on other threads. A plugin that
+ * hangs on the event dispatch thread blocks that thread, and with it the initialization of all plugins that are still
+ * to be initialized on it, as well as the user interface.
+ */
+class PluginInitializer
+{
+    /**
+     * The number of plugins that are initialized on background threads at the same time.
+     */
+    private static final int BACKGROUND_THREADS = 4;
+
+    /**
+     * The number of milliseconds a plugin may take to initialize, counted from the moment its initialization starts,
+     * before it is considered to hang. This cannot interrupt the plugin, nor free the event dispatch thread if the
+     * plugin is initialized on it.
+     */
+    private static final long TIMEOUT = 30 * 1000;
+
+    private final List<Plugin> plugins;
+    private final Map<Plugin, ? extends Collection<Plugin>> dependencies;
+
+    private final Set<Plugin> started = new HashSet<>();
+    private final Set<Plugin> completed = new HashSet<>();
+    private final Set<Plugin> failed = new HashSet<>();
+    private final Map<Plugin, TimerTask> watchdogs = new HashMap<>();
+
+    private ExecutorService executor;
+    private long startTime;
+    private long startNanos;
+
+    /**
+     * @param plugins      the plugins to initialize, in the order in which they were registered.
+     * @param dependencies for each plugin that has dependencies, the plugins it depends on.
+     */
+    PluginInitializer( List<Plugin> plugins, Map<Plugin, ? extends Collection<Plugin>> dependencies )
+    {
+        this.plugins = new ArrayList<>( plugins );
+        this.dependencies = dependencies;
+    }
+
+    /**
+     * Starts initializing the plugins. This method returns immediately.
+     */
+    synchronized void start()
+    {
+        startTime = System.currentTimeMillis();
+        startNanos = System.nanoTime();
+        final AtomicInteger threadNumber = new AtomicInteger( 1 );
+        executor = Executors.newFixedThreadPool( BACKGROUND_THREADS, runnable -> {
+            final Thread thread = new Thread( runnable, "plugin-init-" + threadNumber.getAndIncrement() );
+            thread.setDaemon( true );
+            return thread;
+        } );
+        startReadyPlugins();
+    }
+
+    private void startReadyPlugins()
+    {
+        for ( Plugin plugin : plugins )
+        {
+            if ( !started.contains( plugin ) && isReady( plugin ) )
+            {
+                start( plugin );
+            }
+        }
+
+        if ( started.size() == completed.size() + failed.size() && started.size() < plugins.size() )
+        {
+            // Nothing is running, yet some plugins were never started: their dependencies are circular.
+            for ( Plugin plugin : plugins )
+            {
+                if ( started.add( plugin ) )
+                {
+                    Log.error( "Unable to initialize plugin " + plugin + ", as its dependencies are circular." );
+                    failed.add( plugin );
+                }
+            }
+        }
+
+        if ( completed.size() + failed.size() == plugins.size() )
+        {
+            executor.shutdown();
+            StartupProfiler.record( "Initialize plugins", startNanos, System.nanoTime() );
+            StartupProfiler.finish();
+            Log.debug( "Initialized " + completed.size() + " of " + plugins.size() + " plugins in " + ( System.currentTimeMillis() - startTime ) + " ms." );
+        }
+    }
+
+    private boolean isReady( Plugin plugin )
+    {
+        final Collection<Plugin> required = dependencies.get( plugin );
+        return required == null || completed.containsAll( required );
+    }
+
+    private void start( final Plugin plugin )
+    {
+        started.add( plugin );
+
+        final Runnable initialization = () -> {
+            // The plugin may have waited for a while in the queue; only the time it takes itself counts.
+            startWatchdog( plugin );
+            final long start = System.currentTimeMillis();
+            Log.debug( "Trying to initialize " + plugin );
+            final StartupProfiler.Span span = StartupProfiler.begin( "Initialize " + plugin.getClass().getSimpleName() );
+            try
+            {
+                plugin.initialize();
+            }
+            catch ( Throwable e )
+            {
+                Log.error( "An exception occurred while initializing plugin " + plugin, e );
+            }
+            span.end();
+            completed( plugin, System.currentTimeMillis() - start );
+        };
+
+        if ( plugin.canInitializeInBackground() )
+        {
+            executor.submit( initialization );
+        }
+        else
+        {
+            EventQueue.invokeLater( initialization );
+        }
+    }
+
+    private synchronized void startWatchdog( final Plugin plugin )
+    {
+        final TimerTask watchdog = new TimerTask()
+        {
+            @Override
+            public void run()
+            {
+                timedOut( plugin );
+            }
+        };
+        watchdogs.put( plugin, watchdog );
+        TaskEngine.getInstance().schedule( watchdog, TIMEOUT );
+    }
+
+    private synchronized void completed( Plugin plugin, long duration )
+    {
+        if ( failed.contains( plugin ) )
+        {
+            Log.warning( "Plugin " + plugin + " finished its initialization after " + duration + " ms., after it timed out." );
+            return;
+        }
+
+        TaskEngine.getInstance().cancelScheduledTask( watchdogs.remove( plugin ) );
+        completed.add( plugin );
+        Log.debug( "Took " + duration + " ms. to load " + plugin );
+
+        startReadyPlugins();
+    }
+
+    private synchronized void timedOut( Plugin plugin )
+    {
+        if ( completed.contains( plugin ) )
+        {
+            return;
+        }
+
+        watchdogs.remove( plugin );
+        failed.add( plugin );
+        Log.error( "Plugin " + plugin + " did not finish its initialization within " + TIMEOUT + " ms. The plugins that depend on it will not be initialized." );
+        isolateDependents( plugin );
+
+        startReadyPlugins();
+    }
+
+    /**
+     * Marks all plugins that directly or indirectly depend on a failed plugin as failed.
+     */
+    private void isolateDependents( Plugin failedPlugin )
+    {
+        for ( Plugin plugin : plugins )
+        {
+            final Collection<Plugin> required = dependencies.get( plugin );
+            if ( required != null && required.contains( failedPlugin ) && started.add( plugin ) )
+            {
+                Log.error( "Not initializing plugin " + plugin + ", as plugin " + failedPlugin + " that it depends on failed to initialize." );
+                failed.add( plugin );
+                isolateDependents( plugin );
+            }
+        }
+    }
+}
@@ -28,7 +28,7 @@ import org.jivesoftware.spark.plugin.Plugin;
 import org.jivesoftware.spark.plugin.PluginClassLoader;
 import org.jivesoftware.spark.plugin.PluginDependency;
 import org.jivesoftware.spark.plugin.PublicPlugin;
-import org.jivesoftware.spark.util.StringUtils;
+import org.jivesoftware.spark.util.StartupProfiler;
 import org.jivesoftware.spark.util.URLFileSystem;
 import org.jivesoftware.spark.util.log.Log;
 import org.jivesoftware.sparkimpl.settings.JiveInfo;
@@ -36,6 +36,7 @@ import org.jivesoftware.sparkimpl.settings.local.SettingsManager;
 
 import java.awt.*;
 import java.io.*;
+import java.lang.reflect.InvocationTargetException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.file.FileVisitResult;
@@ -46,6 +47,10 @@ import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.zip.ZipEntry;
@@ -58,7 +63,7 @@ import java.util.zip.ZipFile;
  */
 public class PluginManager implements MainWindowListener
 {
-    private final List<Plugin> plugins = new ArrayList<>();
+    private final List<Plugin> plugins = new CopyOnWriteArrayList<>();
 
     private final List<PublicPlugin> publicPlugins = new CopyOnWriteArrayList<>();
     private static PluginManager singleton;
@@ -73,6 +78,8 @@ public class PluginManager implements MainWindowListener
 
     private Collection<String> _blacklistPlugins;
 
+    private PluginManifest manifest;
+
     /**
      * Returns the singleton instance of PluginManager, creating it if necessary.
      *
@@ -101,7 +108,9 @@ public class PluginManager implements MainWindowListener
         // Do not use deployable plugins if not installed.
         if ( System.getProperty( "plugin" ) == null )
         {
+            final StartupProfiler.Span span = StartupProfiler.begin( "Update installed plugins" );
             movePlugins();
+            span.end();
         }
 
         // Create the extension directory if one does not exist.
@@ -176,6 +185,7 @@ public class PluginManager implements MainWindowListener
             return;
         }
 
+        final PluginManifest manifest = getManifest( pathToSearch );
         for ( final File file : installedPlugins )
         {
             final File jarFile = new File( pathToSearch, file.getName() + ".jar" );
@@ -190,8 +200,8 @@ public class PluginManager implements MainWindowListener
                     final File f = new File( installPath + jarFile.getName() );
                     if ( installerFiles.contains( f ) )
                     {
-                        final String oldfile = StringUtils.getMD5Checksum( jarFile.getAbsolutePath() );
-                        final String newfile = StringUtils.getMD5Checksum( f.getAbsolutePath() );
+                        final String oldfile = manifest.getDigest( jarFile );
+                        final String newfile = manifest.getDigest( f );
 
                         Log.debug( f.getAbsolutePath() + "   " + jarFile.getAbsolutePath() );
                         Log.debug( newfile + " " + oldfile + " equal:" + oldfile.equals( newfile ) );
@@ -201,6 +211,7 @@ public class PluginManager implements MainWindowListener
                             Log.debug( "deleting: " + file.getAbsolutePath() + "," + jarFile.getAbsolutePath() );
                             uninstall( file );
                             jarFile.delete();
+                            manifest.remove( jarFile );
                         }
                     }
                 }
@@ -210,6 +221,22 @@ public class PluginManager implements MainWindowListener
                 }
             }
         }
+        manifest.save();
+    }
+
+    /**
+     * Returns the manifest of a plugins directory.
+     *
+     * @param directory the plugins directory.
+     * @return the manifest of the directory.
+     */
+    private synchronized PluginManifest getManifest( File directory )
+    {
+        if ( manifest == null || !manifest.getDirectory().equals( directory ) )
+        {
+            manifest = new PluginManifest( directory );
+        }
+        return manifest;
     }
 
     /**
@@ -239,6 +266,7 @@ public class PluginManager implements MainWindowListener
 
         // At the moment, the plug list is hardcode internally until I begin using external property files. All depends on deployment.
         final URL url = getClass().getClassLoader().getResource( "META-INF/plugins.xml" );
+        final StartupProfiler.Span internal = StartupProfiler.begin( "Internal plugins" );
         try ( final InputStreamReader reader = new InputStreamReader( url.openStream() ) )
         {
             loadInternalPlugins( reader );
@@ -247,9 +275,12 @@ public class PluginManager implements MainWindowListener
         {
             Log.error( "Could not load plugins.xml file." );
         }
+        internal.end();
 
         // Load extension plugins
+        final StartupProfiler.Span external = StartupProfiler.begin( "Public plugins" );
         loadPublicPlugins();
+        external.end();
 
         // For development purposes, load the plugin specified by -Dplugin=...
         String plugin = System.getProperty( "plugin" );
@@ -479,10 +510,12 @@ public class PluginManager implements MainWindowListener
         {
             Log.error( e );
         }
-        List<Element> plugins = pluginXML.selectNodes( "/plugins/plugin" );
-        for ( final Element plugin : plugins )
-        {
-            EventQueue.invokeLater( () -> {
+        final List<Element> plugins = pluginXML.selectNodes( "/plugins/plugin" );
+
+        // Some plugins create Swing components when instantiated, so create all of them in a single event.
+        final Runnable loader = () -> {
+            for ( final Element plugin : plugins )
+            {
                 String clazz = null;
                 String name;
                 try
@@ -498,7 +531,26 @@ public class PluginManager implements MainWindowListener
                 {
                     Log.error( "Unable to load plugin " + clazz + ".", ex );
                 }
-            } );
+            }
+        };
+
+        if ( EventQueue.isDispatchThread() )
+        {
+            loader.run();
+            return;
+        }
+
+        try
+        {
+            EventQueue.invokeAndWait( loader );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch ( InvocationTargetException e )
+        {
+            Log.error( "Unable to load the internal plugins.", e.getCause() );
         }
     }
 
@@ -605,130 +657,114 @@ public class PluginManager implements MainWindowListener
     }
 
     /**
-     * Loads and initalizes all Plugins.
+     * Initializes all Plugins, in the order of their dependencies. Plugins of which a dependency is missing, or has an
+     * incompatible version, are removed. This method returns before the plugins have been initialized.
      *
      * @see Plugin
+     * @see PluginInitializer
      */
     public void initializePlugins()
     {
         try
         {
-            int j;
-            boolean dependencyFound;
+            new PluginInitializer( plugins, resolveDependencies() ).start();
+        }
+        catch ( Exception e )
+        {
+            Log.error( "An exception occurred while initializing plugins.", e );
+        }
+    }
+
+    /**
+     * Determines the plugins that each public plugin depends on, removing the plugins of which the dependencies
+     * cannot be satisfied (also when that is because a plugin they depend on was removed).
+     *
+     * @return for each plugin that has dependencies, the plugins it depends on.
+     */
+    private Map<Plugin, List<Plugin>> resolveDependencies()
+    {
+        final Map<Plugin, List<Plugin>> dependencies = new HashMap<>();
+        boolean removed;
+        do
+        {
+            removed = false;
+            dependencies.clear();
 
-            // Dependency check
-            for ( int i = 0; i < publicPlugins.size(); i++ )
+            final Map<String, PublicPlugin> byName = new HashMap<>();
+            for ( PublicPlugin publicPlugin : publicPlugins )
             {
-                // if dependencies are available, check these
-                if ( ( publicPlugins.get( i ) ).getDependency().size() > 0 )
+                if ( publicPlugin.getName() != null )
                 {
-                    List<PluginDependency> dependencies = ( publicPlugins.get( i ) ).getDependency();
+                    byName.put( publicPlugin.getName(), publicPlugin );
+                }
+            }
 
-                    // go trough all dependencies
-                    for ( PluginDependency dependency : dependencies )
-                    {
-                        j = 0;
-                        dependencyFound = false;
+            for ( PublicPlugin publicPlugin : publicPlugins )
+            {
+                final Plugin plugin = getPlugin( publicPlugin );
+                final List<Plugin> required = new ArrayList<>();
+                boolean satisfied = true;
 
-                        // look for the specific plugin
-                        for ( PublicPlugin plugin : publicPlugins )
-                        {
-                            if ( plugin.getName() != null && plugin.getName().equals( dependency.getName() ) )
-                            {
-                                // if the version is compatible then reorder
-                                if ( dependency.compareVersion( plugin.getVersion() ) )
-                                {
-                                    dependencyFound = true;
-
-                                    // when depended Plugin hadn't been installed yet
-                                    if ( j > i )
-                                    {
-                                        // find the position of plugins-List because it has more entries
-                                        int counter = 0, x = 0, z = 0;
-                                        for ( Plugin plug : plugins )
-                                        {
-                                            // find the position of the aim-object
-                                            if ( plug.getClass().toString().substring( 6 ).equals( publicPlugins.get( j ).getPluginClass() ) )
-                                            {
-                                                x = counter;
-                                            }
-                                            // find the change-position
-                                            else if ( plug.getClass().toString().substring( 6 ).equals( publicPlugins.get( i ).getPluginClass() ) )
-                                            {
-                                                z = counter;
-                                            }
-                                            counter++;
-                                        }
-
-                                        // change the order
-                                        publicPlugins.add( i, publicPlugins.get( j ) );
-                                        publicPlugins.remove( j + 1 );
-
-                                        plugins.add( z, plugins.get( x ) );
-                                        plugins.remove( x + 1 );
-
-                                        // start again, to check the other dependencies
-                                        i--;
-                                    }
-                                }
-                                // else don't load the plugin and show an error
-                                else
-                                {
-                                    Log.error( "Depended Plugin " + dependency.getName() + " hasn't the right version (" + dependency.getVersion() + "<>" + plugin.getVersion() );
-                                }
-                                break;
-                            }
-                            j++;
-                        }
+                for ( PluginDependency dependency : publicPlugin.getDependency() )
+                {
+                    final PublicPlugin depended = byName.get( dependency.getName() );
+                    if ( depended == null )
+                    {
+                        Log.error( "Depended Plugin " + dependency.getName() + " is missing for the Plugin " + publicPlugin.getName() );
+                        satisfied = false;
+                        break;
+                    }
+                    if ( !dependency.compareVersion( depended.getVersion() ) )
+                    {
+                        Log.error( "Depended Plugin " + dependency.getName() + " hasn't the right version (" + dependency.getVersion() + "<>" + depended.getVersion() );
+                        satisfied = false;
+                        break;
+                    }
 
-                        // If the depended Plugin wasn't found, then show error.
-                        if ( !dependencyFound )
-                        {
-                            Log.error( "Depended Plugin " + dependency.getName() + " is missing for the Plugin " + ( publicPlugins.get( i ) ).getName() );
-
-                            // find the posiion of plugins-List because it has more entries
-                            int counter = 0;
-                            for ( Plugin plug : plugins )
-                            {
-                                // find the delete-position
-                                if ( plug.getClass().toString().substring( 6 ).equals( publicPlugins.get( i ).getPluginClass() ) )
-                                {
-                                    break;
-                                }
-                                counter++;
-                            }
-                            // delete the Plugin, because the depended Plugin is missing
-                            publicPlugins.remove( i );
-                            plugins.remove( counter );
-                            i--;
-                            break;
-                        }
+                    final Plugin dependedPlugin = getPlugin( depended );
+                    if ( dependedPlugin != null )
+                    {
+                        required.add( dependedPlugin );
                     }
                 }
-            }
 
-            EventQueue.invokeLater( () -> {
-                for ( Plugin plugin : plugins )
+                if ( !satisfied )
                 {
-                    long start = System.currentTimeMillis();
-                    Log.debug( "Trying to initialize " + plugin );
-                    try
+                    // Don't load the plugin, because the depended Plugin is missing.
+                    publicPlugins.remove( publicPlugin );
+                    if ( plugin != null )
                     {
-                        plugin.initialize();
-                        long end = System.currentTimeMillis();
-                        Log.debug( "Took " + ( end - start ) + " ms. to load " + plugin );
-                    }
-                    catch ( Throwable e )
-                    {
-                        Log.error( "An exception occurred while initializing plugin " + plugin, e );
+                        plugins.remove( plugin );
                     }
+                    removed = true;
                 }
-            } );
+                else if ( plugin != null && !required.isEmpty() )
+                {
+                    dependencies.put( plugin, required );
+                }
+            }
         }
-        catch ( Exception e )
+        while ( removed );
+
+        return dependencies;
+    }
+
+    /**
+     * Returns the instance of the class of a public plugin.
+     *
+     * @param publicPlugin the public plugin.
+     * @return the registered plugin instance, or null if it is not registered.
+     */
+    private Plugin getPlugin( PublicPlugin publicPlugin )
+    {
+        for ( Plugin plugin : plugins )
         {
-            Log.error( "An exception occurred while initializing plugins.", e );
+            if ( plugin.getClass().getName().equals( publicPlugin.getPluginClass() ) )
+            {
+                return plugin;
+            }
         }
+        return null;
     }
 
     public void shutdown()
@@ -778,7 +814,9 @@ public class PluginManager implements MainWindowListener
     }
 
     /**
-     * Expands all plugin packs (.jar files located in the plugin dir with plugin.xml).
+     * Expands all plugin packs (.jar files located in the plugin dir with plugin.xml) that were not expanded yet, or
+     * changed since they were expanded. Plugin packs that are up to date according to the {@link PluginManifest} are
+     * not read at all. The plugin packs that need to be expanded are expanded in parallel.
      */
     private void expandNewPlugins()
     {
@@ -798,52 +836,89 @@ public class PluginManager implements MainWindowListener
             return;
         }
 
+        final PluginManifest manifest = getManifest( PLUGINS_DIRECTORY );
+        final List<File> expandable = new ArrayList<>();
         for ( File jar : jars )
         {
             if ( jar.isFile() )
             {
-
-                URL url = null;
-                try
+                File directory = new File( PLUGINS_DIRECTORY, getPluginDirectoryName( jar ) );
+                if ( manifest.isExpanded( jar, directory ) )
                 {
-                    url = jar.toURI().toURL();
+                    continue;
                 }
-                catch ( MalformedURLException e )
+                if ( directory.exists() )
                 {
-                    Log.error( e );
+                    uninstall( directory );
                 }
-                String name = URLFileSystem.getName( url );
-                File directory = new File( PLUGINS_DIRECTORY, name );
-                if ( directory.exists() && directory.isDirectory() )
-                {
-                    // Check to see if directory contains the plugin.xml file.
-                    // If not, delete directory.
-                    File pluginXML = new File( directory, "plugin.xml" );
-                    if ( pluginXML.exists() )
+                expandable.add( jar );
+            }
+        }
+
+        if ( !expandable.isEmpty() )
+        {
+            final long start = System.currentTimeMillis();
+            final ExecutorService executor = Executors.newFixedThreadPool( Math.min( expandable.size(), Runtime.getRuntime().availableProcessors() ) );
+            final List<Future<?>> expansions = new ArrayList<>();
+            for ( final File jar : expandable )
+            {
+                expansions.add( executor.submit( () -> {
+                    if ( unzipPlugin( jar, new File( PLUGINS_DIRECTORY, getPluginDirectoryName( jar ) ) ) )
                     {
-                        if ( pluginXML.lastModified() < jar.lastModified() )
-                        {
-                            uninstall( directory );
-                            unzipPlugin( jar, directory );
-                        }
-                        continue;
+                        manifest.setExpanded( jar );
                     }
+                } ) );
+            }
+            executor.shutdown();
 
-                    uninstall( directory );
+            for ( Future<?> expansion : expansions )
+            {
+                try
+                {
+                    expansion.get();
                 }
-                else
+                catch ( InterruptedException e )
+                {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+                catch ( ExecutionException e )
                 {
-                    // Unzip contents into directory
-                    unzipPlugin( jar, directory );
+                    Log.error( "Error unzipping plugin", e.getCause() );
                 }
             }
+            Log.debug( "Expanded " + expandable.size() + " plugin(s) in " + ( System.currentTimeMillis() - start ) + " ms." );
+        }
+
+        manifest.save();
+    }
+
+    /**
+     * Returns the name of the directory a plugin pack is expanded into.
+     *
+     * @param jar the plugin pack.
+     * @return the name of the jar, without its extension.
+     */
+    private static String getPluginDirectoryName( File jar )
+    {
+        URL url = null;
+        try
+        {
+            url = jar.toURI().toURL();
+        }
+        catch ( MalformedURLException e )
+        {
+            Log.error( e );
         }
+        return URLFileSystem.getName( url );
     }
 
     private void loadPublicPlugins()
     {
         // First, expand all plugins that have yet to be expanded.
+        final StartupProfiler.Span expansion = StartupProfiler.begin( "Expand plugins" );
         expandNewPlugins();
+        expansion.end();
 
         File[] files = PLUGINS_DIRECTORY.listFiles( ( dir, name ) -> dir.isDirectory() );
 
@@ -929,23 +1004,23 @@ public class PluginManager implements MainWindowListener
     }
 
     /**
-     * Unzips a plugin from a JAR file into a directory. If the JAR file
-     * isn't a plugin, this method will do nothing.
+     * Expands a plugin pack into a directory.
      *
-     * @param file the JAR file
-     * @param dir  the directory to extract the plugin to.
+     * @param file the plugin pack.
+     * @param dir  the directory to expand the plugin pack into.
+     * @return true if the plugin pack was expanded, false if it is not a plugin or could not be read.
      */
-    private void unzipPlugin( File file, File dir )
+    private boolean unzipPlugin( File file, File dir )
     {
-        try
+        try ( ZipFile zipFile = new JarFile( file ) )
         {
-            ZipFile zipFile = new JarFile( file );
             // Ensure that this JAR is a plugin.
             if ( zipFile.getEntry( "plugin.xml" ) == null )
             {
-                return;
+                return false;
             }
             dir.mkdir();
+            final byte[] b = new byte[ 8192 ];
             for ( Enumeration<? extends ZipEntry> e = zipFile.entries(); e.hasMoreElements(); )
             {
                 JarEntry entry = (JarEntry) e.nextElement();
@@ -958,24 +1033,23 @@ public class PluginManager implements MainWindowListener
                 if ( !entry.isDirectory() )
                 {
                     entryFile.getParentFile().mkdirs();
-                    FileOutputStream out = new FileOutputStream( entryFile );
-                    InputStream zin = zipFile.getInputStream( entry );
-                    byte[] b = new byte[ 512 ];
-                    int len;
-                    while ( ( len = zin.read( b ) ) != -1 )
+                    try ( OutputStream out = new FileOutputStream( entryFile );
+                          InputStream zin = zipFile.getInputStream( entry ) )
                     {
-                        out.write( b, 0, len );
+                        int len;
+                        while ( ( len = zin.read( b ) ) != -1 )
+                        {
+                            out.write( b, 0, len );
+                        }
                     }
-                    out.flush();
-                    out.close();
-                    zin.close();
                 }
             }
-            zipFile.close();
+            return true;
         }
         catch ( Throwable e )
         {
             Log.error( "Error unzipping plugin", e );
+            return false;
         }
     }
 
@@ -0,0 +1,286 @@
+/*
+ * Copyright (C) 2004-2011 Jive Software. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.spark;
+
+import org.jivesoftware.spark.util.StringUtils;
+import org.jivesoftware.spark.util.log.Log;
+
+import java.io.*;
+import java.security.NoSuchAlgorithmException;
+import java.util.Properties;
+
+/**
+ * Remembers the size, modification time and MD5 digest of plugin jars, and which jars have been expanded into the
+ * plugins directory.
+ *
+ * The digest of a jar is only computed again when its size or modification time changed, so that on a normal startup
+ * checking whether the plugins are up to date takes no more than a look at the attributes of every jar. The manifest is
+ * stored in the plugins directory.
+ */
+class PluginManifest
+{
+    private static final String FILE_NAME = "plugins.manifest";
+
+    private static final String DIGEST_PREFIX = "digest.";
+    private static final String EXPANDED_PREFIX = "expanded.";
+
+    private final File directory;
+    private final Properties properties = new Properties();
+    private boolean changed;
+
+    /**
+     * Reads the manifest of a plugins directory, if it exists.
+     *
+     * @param directory the plugins directory.
+     */
+    PluginManifest( File directory )
+    {
+        this.directory = directory;
+
+        final File file = new File( directory, FILE_NAME );
+        if ( file.exists() )
+        {
+            try ( InputStream in = new FileInputStream( file ) )
+            {
+                properties.load( in );
+            }
+            catch ( IOException e )
+            {
+                Log.error( "Unable to read the plugin manifest " + file, e );
+            }
+        }
+    }
+
+    /**
+     * Returns the plugins directory of this manifest.
+     *
+     * @return the plugins directory.
+     */
+    File getDirectory()
+    {
+        return directory;
+    }
+
+    /**
+     * Returns the MD5 digest of a jar, only reading the jar when it changed since its digest was last computed.
+     *
+     * @param jar the jar file (which can be outside of the plugins directory).
+     * @return the hex encoded MD5 digest of the jar.
+     */
+    synchronized String getDigest( File jar ) throws IOException, NoSuchAlgorithmException
+    {
+        final String key = DIGEST_PREFIX + jar.getAbsolutePath();
+        final Entry entry = Entry.parse( properties.getProperty( key ) );
+        if ( entry != null && entry.matches( jar ) )
+        {
+            return entry.digest;
+        }
+
+        final String digest = StringUtils.getMD5Checksum( jar.getAbsolutePath() );
+        put( key, new Entry( jar, digest ) );
+        return digest;
+    }
+
+    /**
+     * Returns true if the expanded directory of a plugin jar in the plugins directory is up to date.
+     *
+     * @param jar the plugin jar.
+     * @param dir the directory the jar is expanded into.
+     * @return true if the jar does not need to be expanded.
+     */
+    synchronized boolean isExpanded( File jar, File dir )
+    {
+        final File pluginXML = new File( dir, "plugin.xml" );
+        if ( !pluginXML.exists() )
+        {
+            return false;
+        }
+
+        final String key = EXPANDED_PREFIX + jar.getName();
+        final Entry entry = Entry.parse( properties.getProperty( key ) );
+        try
+        {
+            if ( entry == null )
+            {
+                // Expanded before this manifest existed; trust it when it is newer than the jar, as was done before.
+                if ( pluginXML.lastModified() < jar.lastModified() )
+                {
+                    return false;
+                }
+                put( key, new Entry( jar, getDigest( jar ) ) );
+                return true;
+            }
+
+            if ( entry.matches( jar ) )
+            {
+                return true;
+            }
+
+            // The jar was touched (for instance when it was copied from the installation), but may not have changed.
+            final String digest = getDigest( jar );
+            if ( digest.equals( entry.digest ) )
+            {
+                put( key, new Entry( jar, digest ) );
+                return true;
+            }
+        }
+        catch ( IOException | NoSuchAlgorithmException e )
+        {
+            Log.warning( "Unable to compute the digest of plugin " + jar, e );
+        }
+        return false;
+    }
+
+    /**
+     * Records that a plugin jar was expanded.
+     *
+     * @param jar the plugin jar.
+     */
+    synchronized void setExpanded( File jar )
+    {
+        try
+        {
+            put( EXPANDED_PREFIX + jar.getName(), new Entry( jar, getDigest( jar ) ) );
+        }
+        catch ( IOException | NoSuchAlgorithmException e )
+        {
+            Log.warning( "Unable to compute the digest of plugin " + jar, e );
+        }
+    }
+
+    /**
+     * Forgets everything about a jar, for instance because it was deleted.
+     *
+     * @param jar the plugin jar.
+     */
+    synchronized void remove( File jar )
+    {
+        changed |= properties.remove( DIGEST_PREFIX + jar.getAbsolutePath() ) != null;
+        changed |= properties.remove( EXPANDED_PREFIX + jar.getName() ) != null;
+    }
+
+    /**
+     * Writes the manifest to the plugins directory, if it changed. Jars that no longer exist are forgotten first.
+     */
+    synchronized void save()
+    {
+        prune();
+        if ( !changed )
+        {
+            return;
+        }
+
+        final File file = new File( directory, FILE_NAME );
+        try ( OutputStream out = new FileOutputStream( file ) )
+        {
+            properties.store( out, "Size, modification time and MD5 digest of plugin jars" );
+            changed = false;
+        }
+        catch ( IOException e )
+        {
+            Log.error( "Unable to save the plugin manifest " + file, e );
+        }
+    }
+
+    /**
+     * Removes the entries of jars that no longer exist, such as copies in an installation that was replaced.
+     */
+    private void prune()
+    {
+        for ( String key : properties.stringPropertyNames() )
+        {
+            final File jar;
+            if ( key.startsWith( DIGEST_PREFIX ) )
+            {
+                jar = new File( key.substring( DIGEST_PREFIX.length() ) );
+            }
+            else if ( key.startsWith( EXPANDED_PREFIX ) )
+            {
+                jar = new File( directory, key.substring( EXPANDED_PREFIX.length() ) );
+            }
+            else
+            {
+                continue;
+            }
+
+            if ( !jar.exists() )
+            {
+                properties.remove( key );
+                changed = true;
+            }
+        }
+    }
+
+    private void put( String key, Entry entry )
+    {
+        final String value = entry.toString();
+        if ( !value.equals( properties.setProperty( key, value ) ) )
+        {
+            changed = true;
+        }
+    }
+
+    private static class Entry
+    {
+        private final long size;
+        private final long lastModified;
+        private final String digest;
+
+        private Entry( long size, long lastModified, String digest )
+        {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.digest = digest;
+        }
+
+        private Entry( File jar, String digest )
+        {
+            this( jar.length(), jar.lastModified(), digest );
+        }
+
+        private static Entry parse( String value )
+        {
+            if ( value == null )
+            {
+                return null;
+            }
+            final String[] parts = value.split( "\\|" );
+            if ( parts.length != 3 )
+            {
+                return null;
+            }
+            try
+            {
+                return new Entry( Long.parseLong( parts[ 0 ] ), Long.parseLong( parts[ 1 ] ), parts[ 2 ] );
+            }
+            catch ( NumberFormatException e )
+            {
+                return null;
+            }
+        }
+
+        private boolean matches( File jar )
+        {
+            return jar.length() == size && jar.lastModified() == lastModified;
+        }
+
+        @Override
+        public String toString()
+        {
+            return size + "|" + lastModified + "|" + digest;
+        }
+    }
+}
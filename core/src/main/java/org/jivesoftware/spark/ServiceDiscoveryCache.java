@@ -0,0 +1,336 @@
+/**
+ * Copyright (C) 2004-2011 Jive Software. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.spark;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.jivesoftware.smack.SmackException;
+import org.jivesoftware.smack.StanzaListener;
+import org.jivesoftware.smack.XMPPConnection;
+import org.jivesoftware.smack.XMPPException;
+import org.jivesoftware.smack.filter.StanzaExtensionFilter;
+import org.jivesoftware.smack.packet.Presence;
+import org.jivesoftware.smackx.caps.packet.CapsExtension;
+import org.jivesoftware.smackx.disco.ServiceDiscoveryManager;
+import org.jivesoftware.smackx.disco.packet.DiscoverInfo;
+import org.jivesoftware.smackx.disco.packet.DiscoverItems;
+import org.jivesoftware.spark.util.TaskEngine;
+import org.jivesoftware.spark.util.log.Log;
+
+/**
+ * Caches the results of service discovery (XEP-0030) requests, so that the
+ * features and items of the server and its components are requested only once,
+ * no matter how many parts of Spark need them.
+ * <p>
+ * Results expire after a while. Concurrent requests for the same entity share a
+ * single round trip, and the information of an entity is discarded as soon as
+ * it announces different entity capabilities (XEP-0115) or goes offline. When
+ * the connection changes, the whole cache is cleared.
+ * <p>
+ * The methods of this class block while waiting for the server, so they should
+ * not be invoked on the event dispatch thread. This class is thread-safe.
+ */
+public class ServiceDiscoveryCache {
+
+    /**
+     * The number of milliseconds for which discovered information is considered up to date.
+     */
+    private static final long TIME_TO_LIVE = 10 * 60 * 1000;
+
+    private static final ServiceDiscoveryCache instance = new ServiceDiscoveryCache();
+
+    private final Map<String, Entry<DiscoverInfo>> infos = new ConcurrentHashMap<>();
+    private final Map<String, Entry<DiscoverItems>> items = new ConcurrentHashMap<>();
+    private final Map<String, String> capsVersions = new ConcurrentHashMap<>();
+
+    private final StanzaListener capsListener = stanza -> handlePresence((Presence) stanza);
+
+    private XMPPConnection connection;
+
+    /**
+     * Returns the service discovery cache (singleton).
+     *
+     * @return the service discovery cache.
+     */
+    public static ServiceDiscoveryCache getInstance() {
+        return instance;
+    }
+
+    private ServiceDiscoveryCache() {
+    }
+
+    /**
+     * Returns the identities and features of an entity.
+     *
+     * @param jid the JID of the entity.
+     * @return the discovered information.
+     * @throws XMPPException  if the entity returned an error.
+     * @throws SmackException if the entity did not respond or the connection was lost.
+     */
+    public DiscoverInfo discoverInfo(String jid) throws XMPPException, SmackException {
+        final XMPPConnection con = checkConnection();
+        return lookup(infos, jid, () -> ServiceDiscoveryManager.getInstanceFor(con).discoverInfo(jid));
+    }
+
+    /**
+     * Returns the items of an entity, such as the components of a server.
+     *
+     * @param jid the JID of the entity.
+     * @return the discovered items.
+     * @throws XMPPException  if the entity returned an error.
+     * @throws SmackException if the entity did not respond or the connection was lost.
+     */
+    public DiscoverItems discoverItems(String jid) throws XMPPException, SmackException {
+        final XMPPConnection con = checkConnection();
+        return lookup(items, jid, () -> ServiceDiscoveryManager.getInstanceFor(con).discoverItems(jid));
+    }
+
+    /**
+     * Returns the identities and features of several entities, requesting them
+     * in parallel. Entities that could not be queried are left out.
+     *
+     * @param jids the JIDs of the entities.
+     * @return the discovered information, by JID, in the order of the given JIDs.
+     */
+    public Map<String, DiscoverInfo> discoverInfo(Collection<String> jids) {
+        final Map<String, Future<?>> requests = new LinkedHashMap<>();
+        final Map<String, DiscoverInfo> results = new ConcurrentHashMap<>();
+
+        // On a network thread, the requests could be queued behind the thread that waits for them.
+        final boolean inline = TaskEngine.getInstance().isCategoryThread(TaskEngine.Category.NETWORK);
+        for (String jid : jids) {
+            final Runnable request = () -> {
+                try {
+                    results.put(jid, discoverInfo(jid));
+                }
+                catch (XMPPException | SmackException e) {
+                    Log.debug("Unable to discover the information of " + jid + ": " + e.getMessage());
+                }
+            };
+            if (inline) {
+                request.run();
+            }
+            else {
+                requests.put(jid, TaskEngine.getInstance().submit(TaskEngine.Category.NETWORK, request));
+            }
+        }
+
+        for (Map.Entry<String, Future<?>> request : requests.entrySet()) {
+            try {
+                request.getValue().get();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            catch (ExecutionException e) {
+                Log.error("Unable to discover the information of " + request.getKey(), e.getCause());
+            }
+        }
+
+        final Map<String, DiscoverInfo> answer = new LinkedHashMap<>();
+        for (String jid : jids) {
+            final DiscoverInfo info = results.get(jid);
+            if (info != null) {
+                answer.put(jid, info);
+            }
+        }
+        return answer;
+    }
+
+    /**
+     * Returns the items of an entity of which the information contains a
+     * feature, such as the conference services of a server. The information of
+     * the items is requested in parallel.
+     *
+     * @param jid     the JID of the entity, usually a server.
+     * @param feature the feature to look for.
+     * @return the JIDs of the items that support the feature.
+     * @throws XMPPException  if the entity returned an error.
+     * @throws SmackException if the entity did not respond or the connection was lost.
+     */
+    public List<String> findServices(String jid, String feature) throws XMPPException, SmackException {
+        final List<String> itemJIDs = new ArrayList<>();
+        for (DiscoverItems.Item item : discoverItems(jid).getItems()) {
+            if (item.getEntityID() != null) {
+                itemJIDs.add(item.getEntityID());
+            }
+        }
+
+        final List<String> services = new ArrayList<>();
+        for (Map.Entry<String, DiscoverInfo> info : discoverInfo(itemJIDs).entrySet()) {
+            if (info.getValue().containsFeature(feature)) {
+                services.add(info.getKey());
+            }
+        }
+        return services;
+    }
+
+    /**
+     * Returns true if the server of the current connection supports a feature.
+     *
+     * @param feature the feature.
+     * @return true if the feature is supported, false if it is not or the server could not be queried.
+     */
+    public boolean serverSupportsFeature(String feature) {
+        try {
+            return discoverInfo(checkConnection().getServiceName()).containsFeature(feature);
+        }
+        catch (XMPPException | SmackException e) {
+            Log.warning("Unable to discover the features of the server.", e);
+            return false;
+        }
+    }
+
+    /**
+     * Discards the information and items of an entity.
+     *
+     * @param jid the JID of the entity.
+     */
+    public void invalidate(String jid) {
+        infos.remove(jid);
+        items.remove(jid);
+    }
+
+    /**
+     * Discards all discovered information.
+     */
+    public void clear() {
+        infos.clear();
+        items.clear();
+        capsVersions.clear();
+    }
+
+    /**
+     * Returns the current connection, clearing the cache if it is not the
+     * connection of which the results are cached.
+     */
+    private synchronized XMPPConnection checkConnection() throws SmackException.NotConnectedException {
+        final XMPPConnection current = SparkManager.getConnection();
+        if (current == null) {
+            throw new SmackException.NotConnectedException();
+        }
+        if (current != connection) {
+            if (connection != null) {
+                connection.removeAsyncStanzaListener(capsListener);
+            }
+            clear();
+            connection = current;
+            connection.addAsyncStanzaListener(capsListener, new StanzaExtensionFilter(CapsExtension.ELEMENT, CapsExtension.NAMESPACE));
+        }
+        return current;
+    }
+
+    private void handlePresence(Presence presence) {
+        final String from = presence.getFrom();
+        if (from == null) {
+            return;
+        }
+
+        if (presence.getType() == Presence.Type.unavailable) {
+            capsVersions.remove(from);
+            invalidate(from);
+            return;
+        }
+
+        final CapsExtension caps = presence.getExtension(CapsExtension.ELEMENT, CapsExtension.NAMESPACE);
+        if (caps == null) {
+            return;
+        }
+
+        final String version = caps.getNode() + '#' + caps.getVer();
+        final String previous = capsVersions.put(from, version);
+        if (previous != null && !previous.equals(version)) {
+            // The entity announced different capabilities.
+            invalidate(from);
+        }
+    }
+
+    private static <T> T lookup(Map<String, Entry<T>> cache, String jid, Request<T> request) throws XMPPException, SmackException {
+        Entry<T> entry = cache.get(jid);
+        if (entry != null && entry.isExpired()) {
+            cache.remove(jid, entry);
+            entry = null;
+        }
+
+        if (entry == null) {
+            final Entry<T> created = new Entry<>();
+            entry = cache.putIfAbsent(jid, created);
+            if (entry == null) {
+                // This thread performs the request; others asking meanwhile wait for its result.
+                try {
+                    created.complete(request.execute());
+                }
+                catch (XMPPException | SmackException | RuntimeException | Error e) {
+                    // Do not cache failures, so that the next lookup tries again.
+                    cache.remove(jid, created);
+                    created.result.completeExceptionally(e);
+                }
+                entry = created;
+            }
+        }
+        return entry.get();
+    }
+
+    private interface Request<T> {
+        T execute() throws XMPPException, SmackException;
+    }
+
+    private static class Entry<T> {
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private volatile long completed;
+
+        private void complete(T value) {
+            completed = System.currentTimeMillis();
+            result.complete(value);
+        }
+
+        private boolean isExpired() {
+            return result.isDone() && System.currentTimeMillis() - completed > TIME_TO_LIVE;
+        }
+
+        private T get() throws XMPPException, SmackException {
+            try {
+                return result.get();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SmackException("Interrupted while waiting for a service discovery response.", e);
+            }
+            catch (ExecutionException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof XMPPException) {
+                    throw (XMPPException) cause;
+                }
+                if (cause instanceof SmackException) {
+                    throw (SmackException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw (RuntimeException) cause;
+            }
+        }
+    }
+}
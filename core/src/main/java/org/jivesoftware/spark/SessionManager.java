@@ -19,7 +19,6 @@ import org.jivesoftware.smack.*;
 import org.jivesoftware.smack.packet.Presence;
 import org.jivesoftware.smack.provider.ProviderManager;
 import org.jivesoftware.smackx.iqprivate.PrivateDataManager;
-import org.jivesoftware.smackx.disco.ServiceDiscoveryManager;
 import org.jivesoftware.smackx.disco.packet.DiscoverItems;
 import org.jivesoftware.spark.ui.PresenceListener;
 import org.jivesoftware.spark.util.log.Log;
@@ -86,14 +85,25 @@ public final class SessionManager implements ConnectionListener {
      * Does the initial service discovery.
      */
     private void discoverItems() {
-        ServiceDiscoveryManager disco = ServiceDiscoveryManager.getInstanceFor(SparkManager.getConnection());
+        final String serviceName = SparkManager.getConnection().getServiceName();
         try {
-            discoverItems = disco.discoverItems(SparkManager.getConnection().getServiceName());
+            discoverItems = ServiceDiscoveryCache.getInstance().discoverItems(serviceName);
         }
         catch (XMPPException | SmackException e) {
             Log.error(e);
             discoverItems = new DiscoverItems();
         }
+
+        // Request the features of the server and its components in parallel, so that they
+        // are known (or on their way) by the time the plugins ask for them.
+        final List<String> entities = new ArrayList<>();
+        entities.add(serviceName);
+        for (DiscoverItems.Item item : discoverItems.getItems()) {
+            if (item.getEntityID() != null) {
+                entities.add(item.getEntityID());
+            }
+        }
+        LoginTaskManager.getInstance().addTask("discovery", () -> ServiceDiscoveryCache.getInstance().discoverInfo(entities));
     }
 
     /**
@@ -24,8 +24,8 @@ import java.applet.AudioClip;
 import java.io.File;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This manager is responsible for the playing, stopping and caching of sounds within Spark.  You would
@@ -33,8 +33,8 @@ import java.util.Map;
  */
 public class SoundManager {
 
-    private final Map<String,AudioClip> clipMap = new HashMap<>();
-    private final Map<URL,AudioClip> fileMap = new HashMap<>();
+    private final Map<String,AudioClip> clipMap = new ConcurrentHashMap<>();
+    private final Map<URL,AudioClip> fileMap = new ConcurrentHashMap<>();
 
     /**
      * Default constructor
@@ -76,7 +76,7 @@ public class SoundManager {
             }
         };
 
-        TaskEngine.getInstance().submit(playThread);
+        TaskEngine.getInstance().submit(TaskEngine.Category.IO, playThread);
     }
 
     /**
@@ -102,20 +102,32 @@ public class SoundManager {
     public void playClip(final File soundFile) {
         final Runnable playThread = () -> {
             try {
-                final URL url = soundFile.toURI().toURL();
-                AudioClip ac = fileMap.get(url);
-                if (ac == null) {
-                    ac = Applet.newAudioClip(url);
-                    fileMap.put(url, ac);
-                }
-                ac.play();
+                getClip(soundFile.toURI().toURL()).play();
             }
             catch (MalformedURLException e) {
                 Log.error(e);
             }
         };
 
-        TaskEngine.getInstance().submit(playThread);
+        TaskEngine.getInstance().submit(TaskEngine.Category.IO, playThread);
+    }
+
+    /**
+     * Loads a sound file, so that it does not need to be read when it is played.
+     *
+     * @param soundFile the File object representing the wav file.
+     */
+    public void preloadClip(File soundFile) {
+        try {
+            getClip(soundFile.toURI().toURL());
+        }
+        catch (MalformedURLException e) {
+            Log.error(e);
+        }
+    }
+
+    private AudioClip getClip(URL url) {
+        return fileMap.computeIfAbsent(url, Applet::newAudioClip);
     }
 
     /**
@@ -145,7 +145,7 @@ public final class SparkManager {
      *
      * @return the SoundManager instance
      */
-    public static SoundManager getSoundManager() {
+    public static synchronized SoundManager getSoundManager() {
         if (soundManager == null) {
             soundManager = new SoundManager();
         }
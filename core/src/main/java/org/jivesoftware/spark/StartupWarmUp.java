@@ -0,0 +1,176 @@
+/**
+ * Copyright (C) 2004-2011 Jive Software. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.spark;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.UIManager;
+
+import org.dom4j.DocumentException;
+import org.dom4j.DocumentHelper;
+import org.jivesoftware.Spark;
+import org.jivesoftware.smack.SmackConfiguration;
+import org.jivesoftware.spark.util.StartupProfiler;
+import org.jivesoftware.spark.util.log.Log;
+import org.jivesoftware.sparkimpl.plugin.emoticons.EmoticonManager;
+
+/**
+ * Prepares the parts of Spark that are needed right after logging in while the
+ * user is still looking at the login dialog, so that they are ready by the time
+ * the workspace is built.
+ * <p>
+ * Smack (with its providers), the XML parser, the emoticon pack and the default
+ * sounds are initialized, and the classes of the workspace and of the user
+ * interface delegates of the look and feel are loaded. The classes are only
+ * loaded, not initialized, and no Swing components are created, so nothing
+ * here has to run on the event dispatch thread. The work is done on two
+ * low-priority daemon threads, to leave the processor to the login dialog.
+ */
+public final class StartupWarmUp {
+
+    private static final int THREADS = 2;
+
+    /**
+     * Classes that are used when the workspace is built, in the order in which they are needed.
+     */
+    private static final String[] WORKSPACE_CLASSES = {
+        "org.jivesoftware.smack.tcp.XMPPTCPConnection",
+        "org.jivesoftware.smack.roster.Roster",
+        "org.jivesoftware.spark.SessionManager",
+        "org.jivesoftware.MainWindow",
+        "org.jivesoftware.spark.Workspace",
+        "org.jivesoftware.spark.ui.status.StatusBar",
+        "org.jivesoftware.spark.ui.ContactList",
+        "org.jivesoftware.spark.ui.ContactGroup",
+        "org.jivesoftware.spark.ui.ContactItem",
+        "org.jivesoftware.spark.ui.conferences.ConferenceServices",
+        "org.jivesoftware.spark.ui.conferences.BookmarksUI",
+        "org.jivesoftware.spark.ChatManager",
+        "org.jivesoftware.spark.ui.ChatContainer",
+        "org.jivesoftware.spark.ui.ChatRoom",
+        "org.jivesoftware.spark.ui.rooms.ChatRoomImpl",
+        "org.jivesoftware.spark.ui.rooms.GroupChatRoom",
+        "org.jivesoftware.spark.ui.TranscriptWindow",
+        "org.jivesoftware.spark.filetransfer.SparkTransferManager",
+        "javax.swing.JTree",
+        "javax.swing.JSplitPane",
+        "javax.swing.JTabbedPane",
+        "javax.swing.JTextPane",
+    };
+
+    private static boolean started;
+
+    private StartupWarmUp() {
+    }
+
+    /**
+     * Starts warming up in the background. Only the first invocation has any effect.
+     */
+    public static synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+
+        final AtomicInteger threadNumber = new AtomicInteger(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS, runnable -> {
+            final Thread thread = new Thread(runnable, "warm-up-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+
+        executor.submit(() -> run("Warm up Smack", StartupWarmUp::warmUpSmack));
+        executor.submit(() -> run("Warm up workspace classes", StartupWarmUp::loadWorkspaceClasses));
+        executor.submit(() -> run("Warm up XML parser", StartupWarmUp::warmUpXmlParser));
+        executor.submit(() -> run("Warm up look and feel", StartupWarmUp::loadLookAndFeelClasses));
+        executor.submit(() -> run("Warm up emoticons", EmoticonManager::getInstance));
+        executor.submit(() -> run("Warm up sounds", StartupWarmUp::loadSounds));
+        executor.shutdown();
+    }
+
+    private static void run(String name, Runnable step) {
+        final StartupProfiler.Span span = StartupProfiler.begin(name);
+        try {
+            step.run();
+        }
+        catch (Throwable e) {
+            // Whatever failed here will be done, and reported, again when it is needed.
+            Log.debug(name + " failed: " + e);
+        }
+        finally {
+            span.end();
+        }
+    }
+
+    private static void warmUpSmack() {
+        // Reading the version initializes Smack, which loads its providers and extensions.
+        SmackConfiguration.getVersion();
+    }
+
+    private static void loadWorkspaceClasses() {
+        loadClasses(WORKSPACE_CLASSES, StartupWarmUp.class.getClassLoader());
+    }
+
+    private static void warmUpXmlParser() {
+        try {
+            DocumentHelper.parseText("<warm-up/>");
+        }
+        catch (DocumentException e) {
+            Log.debug("Unable to warm up the XML parser: " + e.getMessage());
+        }
+    }
+
+    private static void loadLookAndFeelClasses() {
+        // Every UI delegate of the look and feel is listed under a key ending in 'UI'.
+        final List<String> delegates = new ArrayList<>();
+        for (Object key : UIManager.getDefaults().keySet().toArray()) {
+            if (key instanceof String && ((String) key).endsWith("UI")) {
+                final Object value = UIManager.getDefaults().get(key);
+                if (value instanceof String) {
+                    delegates.add((String) value);
+                }
+            }
+        }
+        loadClasses(delegates.toArray(new String[0]), UIManager.getLookAndFeel().getClass().getClassLoader());
+    }
+
+    private static void loadSounds() {
+        final File[] sounds = new File(Spark.getResourceDirectory(), "sounds").listFiles((dir, name) -> name.toLowerCase().endsWith(".wav"));
+        if (sounds != null) {
+            for (File sound : sounds) {
+                SparkManager.getSoundManager().preloadClip(sound);
+            }
+        }
+    }
+
+    private static void loadClasses(String[] classNames, ClassLoader loader) {
+        for (String className : classNames) {
+            try {
+                // Load without initializing, so that no static state is set up on this thread.
+                Class.forName(className, false, loader);
+            }
+            catch (ClassNotFoundException | LinkageError e) {
+                Log.debug("Unable to preload " + className + ": " + e);
+            }
+        }
+    }
+}
@@ -17,6 +17,8 @@ package org.jivesoftware.spark;
 
 import org.jivesoftware.resource.Res;
 import org.jivesoftware.smack.packet.Presence;
+import org.jivesoftware.smack.roster.Roster;
+import org.jivesoftware.smack.roster.RosterEntry;
 import org.jivesoftware.smackx.muc.MUCAffiliation;
 import org.jivesoftware.smackx.muc.MUCRole;
 import org.jivesoftware.smackx.muc.Occupant;
@@ -28,6 +30,7 @@ import org.jivesoftware.spark.ui.ContactItem;
 import org.jivesoftware.spark.ui.ContactList;
 import org.jivesoftware.spark.ui.rooms.GroupChatRoom;
 import org.jivesoftware.spark.util.ModelUtil;
+import org.jivesoftware.spark.util.SearchIndex;
 import org.jivesoftware.spark.util.SwingTimerTask;
 import org.jivesoftware.spark.util.TaskEngine;
 import org.jivesoftware.spark.util.log.Log;
@@ -54,7 +57,6 @@ import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
@@ -69,9 +71,81 @@ public class UserManager {
 
     private Map<JFrame,Component> parents = new HashMap<>();
 
+    private final SearchIndex<String> contactSearchIndex = new SearchIndex<>();
+
     public UserManager() {
     }
 
+    /**
+     * Returns the search index over all contacts in the roster, keyed by bare JID. The index covers the
+     * roster name, the JID and the vCard names of each contact.
+     *
+     * @return the contact search index.
+     */
+    public SearchIndex<String> getContactSearchIndex() {
+        return contactSearchIndex;
+    }
+
+    /**
+     * Updates the search index entry of a contact, using its roster entry and cached vCard.
+     *
+     * @param jid the jid of the contact.
+     */
+    public void indexContact(String jid) {
+        final String bareJID = XmppStringUtils.parseBareJid(jid);
+        indexContact(bareJID, SparkManager.getVCardManager().getCachedVCard(bareJID));
+    }
+
+    /**
+     * Updates the search index entry of a contact, using its roster entry and the given vCard. Users that are
+     * not in the roster are not indexed.
+     *
+     * @param jid   the jid of the contact.
+     * @param vcard the vCard of the contact, may be null.
+     */
+    public void indexContact(String jid, VCard vcard) {
+        if (SparkManager.getConnection() == null) {
+            return;
+        }
+
+        final String bareJID = XmppStringUtils.parseBareJid(jid);
+        final RosterEntry entry = Roster.getInstanceFor( SparkManager.getConnection() ).getEntry(bareJID);
+        if (entry == null) {
+            contactSearchIndex.remove(bareJID);
+            return;
+        }
+
+        // Use the name if available, otherwise the localpart of the JID.
+        final String displayName;
+        if (ModelUtil.hasLength(entry.getName())) {
+            displayName = entry.getName();
+        }
+        else {
+            displayName = XmppStringUtils.unescapeLocalpart(XmppStringUtils.parseLocalpart(bareJID));
+        }
+
+        final List<String> terms = new ArrayList<>();
+        terms.add(bareJID);
+        if (vcard != null && vcard.getError() == null) {
+            terms.add(vcard.getNickName());
+            terms.add(vcard.getFirstName());
+            terms.add(vcard.getLastName());
+            if (ModelUtil.hasLength(vcard.getFirstName()) && ModelUtil.hasLength(vcard.getLastName())) {
+                terms.add(vcard.getFirstName() + " " + vcard.getLastName());
+            }
+        }
+        contactSearchIndex.put(bareJID, displayName, terms);
+    }
+
+    /**
+     * Removes a contact from the search index.
+     *
+     * @param jid the jid of the contact.
+     */
+    public void removeIndexedContact(String jid) {
+        contactSearchIndex.remove(XmppStringUtils.parseBareJid(jid));
+    }
+
     public String getNickname() {
         final VCardManager vCardManager = SparkManager.getVCardManager();
         VCard vcard = vCardManager.getVCard();
@@ -378,10 +452,8 @@ public class UserManager {
             }
         }
 
-        // Sort
-        Collections.sort(contacts, itemComparator);
-
-        final JContactItemField contactField = new JContactItemField( new ArrayList<>( contacts ));
+        // Matches are ranked by the search index, so there is no need to sort the contacts first.
+        final JContactItemField contactField = new JContactItemField( new ArrayList<>( contacts ), contactSearchIndex );
 
 
         JPanel layoutPanel = new JPanel();
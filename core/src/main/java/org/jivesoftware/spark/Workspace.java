@@ -59,6 +59,7 @@ import org.jivesoftware.spark.ui.ContactList;
 import org.jivesoftware.spark.ui.conferences.ConferenceServices;
 import org.jivesoftware.spark.ui.status.StatusBar;
 import org.jivesoftware.spark.util.ModelUtil;
+import org.jivesoftware.spark.util.StartupProfiler;
 import org.jivesoftware.spark.util.TaskEngine;
 import org.jivesoftware.spark.util.UIComponentRegistry;
 import org.jivesoftware.spark.util.log.Log;
@@ -82,6 +83,10 @@ import org.jxmpp.util.XmppStringUtils;
  * workspace.getWorkspacePane().addTab("MyPlugin", button);
  * </p>
  * <p/>
+ * A tab of which the component is expensive to build can be added with
+ * addLazyTab( name, icon, factory, prefetch ), which builds the component
+ * when the tab is first selected.
+ * <p/>
  * <li>Retrieve the ContactList.
  */
 public class Workspace extends JPanel implements StanzaListener {
@@ -216,6 +221,7 @@ public class Workspace extends JPanel implements StanzaListener {
      * Starts the Loading of all Spark Plugins.
      */
     public void loadPlugins() {
+        final StartupProfiler.Span span = StartupProfiler.begin("Workspace plugins");
     
         // Send Available status
         SparkManager.getSessionManager().changePresence(statusBox.getPresence());
@@ -285,6 +291,7 @@ public class Workspace extends JPanel implements StanzaListener {
 
         // Check URI Mappings
         SparkManager.getChatManager().handleURIMapping(Spark.ARGUMENTS);
+        span.end();
     }
 
 
@@ -461,7 +468,8 @@ public class Workspace extends JPanel implements StanzaListener {
 
     /**
      * Returns the Workspace TabbedPane. If you wish to add your
-     * component, simply use addTab( name, icon, component ) call.
+     * component, simply use addTab( name, icon, component ) call, or
+     * addLazyTab( name, icon, factory, prefetch ) to build it on first use.
      *
      * @return the workspace JideTabbedPane
      */
@@ -19,6 +19,8 @@ import org.jivesoftware.resource.SparkRes;
 import org.jivesoftware.spark.SparkManager;
 import org.jivesoftware.spark.ui.ContactItem;
 import org.jivesoftware.spark.util.ModelUtil;
+import org.jivesoftware.spark.util.SearchIndex;
+import org.jxmpp.util.XmppStringUtils;
 
 import javax.swing.DefaultListModel;
 import javax.swing.JLabel;
@@ -39,7 +41,9 @@ import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Implementation of a popup field from a TextField.
@@ -55,7 +59,26 @@ public class JContactItemField extends JPanel {
     private JWindow popup;
     private List<ContactItem> items;
 
+    /**
+     * The maximum number of matches shown when a search index is used.
+     */
+    private static final int MAXIMUM_RESULTS = 200;
+    private final SearchIndex<String> searchIndex;
+    private final Map<String, ContactItem> itemsByJID = new HashMap<>();
+
     public JContactItemField(List<ContactItem> items) {
+        this(items, null);
+    }
+
+    /**
+     * Creates a field that looks up the contacts matching the typed text in a search index, rather than
+     * filtering all contacts on every keystroke.
+     *
+     * @param items       the contacts that can be selected.
+     * @param searchIndex the index over the bare JIDs of the contacts, may be null.
+     */
+    public JContactItemField(List<ContactItem> items, SearchIndex<String> searchIndex) {
+        this.searchIndex = searchIndex;
         setLayout(new BorderLayout());
         list = new JList(model) {
 	    private static final long serialVersionUID = -9031169221430835595L;
@@ -73,7 +96,7 @@ public class JContactItemField extends JPanel {
             }
         };
 
-        this.items = items;
+        setItems(items);
 
         add(textField, BorderLayout.CENTER);
 
@@ -147,6 +170,11 @@ public class JContactItemField extends JPanel {
 
     public void setItems(List<ContactItem> list) {
         this.items = list;
+
+        itemsByJID.clear();
+        for (ContactItem item : list) {
+            itemsByJID.putIfAbsent(XmppStringUtils.parseBareJid(item.getJID()), item);
+        }
     }
 
     public JList getList() {
@@ -159,7 +187,28 @@ public class JContactItemField extends JPanel {
         String typedItem = textField.getText();
 
 	final List<ContactItem> validItems = new ArrayList<>();
+	final boolean indexed = searchIndex != null && searchIndex.size() > 0;
+	if (indexed) {
+	    // The index may hold contacts that are not items of this field, so the limit applies to the items found.
+	    for (String jid : searchIndex.search(typedItem, 0)) {
+		final ContactItem contactItem = itemsByJID.get(jid);
+		if (contactItem != null) {
+		    validItems.add(contactItem);
+		    if (validItems.size() == MAXIMUM_RESULTS) {
+			break;
+		    }
+		}
+	    }
+	}
+
+	// Items that the index does not contain are matched by their display name.
 	for (ContactItem contactItem : items) {
+	    if (indexed && validItems.size() == MAXIMUM_RESULTS) {
+		break;
+	    }
+	    if (indexed && searchIndex.contains(XmppStringUtils.parseBareJid(contactItem.getJID()))) {
+		continue;
+	    }
 	    String nickname = contactItem.getDisplayName().toLowerCase();
 	    if (nickname.startsWith(typedItem.toLowerCase())) {
 		validItems.add(contactItem);
@@ -20,14 +20,19 @@ import java.awt.Color;
 import java.awt.Component;
 import java.awt.Font;
 
+import java.util.function.Supplier;
+
 import javax.swing.Icon;
 import javax.swing.JPanel;
 
+import org.jivesoftware.spark.util.log.Log;
+
 public class SparkTab extends JPanel 
 {
 	private static final long serialVersionUID = 2027267184472260195L;
 	private SparkTabbedPane pane = null;
 	private Component component = null;
+	private Supplier<? extends Component> factory = null;
 	
 	public SparkTab(SparkTabbedPane pane, Component comp)
 	{
@@ -36,6 +41,20 @@ public class SparkTab extends JPanel
 		this.setLayout(new BorderLayout());
 		add(comp);
 	}
+
+	/**
+	 * Creates a tab of which the component is only created when it is needed,
+	 * which is when the tab is selected or its component is asked for.
+	 *
+	 * @param pane the tabbed pane the tab is added to.
+	 * @param factory creates the component of the tab.
+	 */
+	SparkTab(SparkTabbedPane pane, Supplier<? extends Component> factory)
+	{
+		this.pane = pane;
+		this.factory = factory;
+		this.setLayout(new BorderLayout());
+	}
 	
 	public void setTabTitle(String title)
 	{
@@ -49,9 +68,42 @@ public class SparkTab extends JPanel
 	
 	public Component getComponent()
 	{
+		if (component == null)
+		{
+			createComponent();
+		}
 		return component;
 	}
 
+	/**
+	 * Returns true if the component of this tab exists, false if it still has to be created.
+	 */
+	boolean isComponentCreated()
+	{
+		return component != null;
+	}
+
+	private void createComponent()
+	{
+		try
+		{
+			component = factory.get();
+		}
+		catch (Exception e)
+		{
+			Log.error("Unable to create the component of tab " + factory, e);
+		}
+		if (component == null)
+		{
+			component = new JPanel();
+		}
+		factory = null;
+
+		add(component);
+		validateTab();
+		pane.fireTabAdded(this, component, pane.getTabPosition(this));
+	}
+
 	public String getTitleLabel()
 	{
 		return pane.getTitleAt(pane.getTabPosition(this));
@@ -36,6 +36,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.function.Supplier;
 
 public class SparkTabbedPane extends JPanel {
 	private static final long serialVersionUID = -9007068462231539973L;
@@ -47,6 +48,12 @@ public class SparkTabbedPane extends JPanel {
 	private boolean closeEnabled = false;
 	private int dragTabIndex = -1;
 
+	/**
+	 * The number of milliseconds after which the component of a lazy tab is
+	 * created when the user interface is idle, if it is to be prefetched.
+	 */
+	private static final int PREFETCH_DELAY = 5000;
+
 	/**
 	 * The default Hand cursor.
 	 */
@@ -90,7 +97,7 @@ public class SparkTabbedPane extends JPanel {
 		for (Component comp : pane.getComponents()) {
 			if (comp instanceof SparkTab) {
 				SparkTab tab = (SparkTab) comp;
-				if (tab.getComponent() == component)
+				if (tab.isComponentCreated() && tab.getComponent() == component)
 					return tab;
 			}
 		}
@@ -114,6 +121,46 @@ public class SparkTabbedPane extends JPanel {
 		return sparktab;
 	}
 
+	/**
+	 * Adds a tab of which the component is created when the tab is selected for
+	 * the first time, so that tabs the user does not look at cost neither time
+	 * nor memory. Listeners are notified of the addition of the tab once its
+	 * component has been created.
+	 *
+	 * @param title the title of the tab.
+	 * @param icon the icon of the tab.
+	 * @param factory creates the component of the tab, on the event dispatch thread.
+	 * @param prefetch true to create the component anyway, once the user
+	 *            interface is idle, so that it is ready when the tab is selected.
+	 * @return the tab. Until its component is created, {@link #getComponentAt(int)}
+	 *         and {@link #getComponentInTab(SparkTab)} return null for it.
+	 */
+	public SparkTab addLazyTab(String title, Icon icon, Supplier<? extends Component> factory, boolean prefetch) {
+		final SparkTab sparktab = new SparkTab(this, factory);
+
+		TabPanel tabpanel = new TabPanel(sparktab, title, icon);
+		pane.addTab(null, null, sparktab, null);
+
+		pane.setTabComponentAt(pane.getTabCount() - 1, tabpanel);
+
+		if (prefetch && !sparktab.isComponentCreated()) {
+			final Timer timer = new Timer(PREFETCH_DELAY, null);
+			timer.addActionListener(actionEvent -> {
+				if (Toolkit.getDefaultToolkit().getSystemEventQueue().peekEvent() != null) {
+					// Not idle; try again later.
+					timer.restart();
+				}
+				else if (getTabPosition(sparktab) != -1) {
+					sparktab.getComponent();
+				}
+			});
+			timer.setRepeats(false);
+			timer.start();
+		}
+
+		return sparktab;
+	}
+
 	public SparkTab getTabAt(int index) {
 		return ((SparkTab) pane.getComponentAt(index));
 	}
@@ -122,8 +169,12 @@ public class SparkTabbedPane extends JPanel {
 		return pane.indexOfComponent(tab);
 	}
 
+	/**
+	 * Returns the component of a tab, or null if it is a lazy tab of which the
+	 * component was not created yet.
+	 */
 	public Component getComponentInTab(SparkTab tab) {
-		return tab.getComponent();
+		return tab.isComponentCreated() ? tab.getComponent() : null;
 	}
 
 	public void setIconAt(int index, Icon icon) {
@@ -228,15 +279,19 @@ public class SparkTabbedPane extends JPanel {
 		for (Component comp : pane.getComponents()) {
 			if (comp instanceof SparkTab) {
 				SparkTab tab = (SparkTab) comp;
-				if (tab.getComponent() == component)
+				if (tab.isComponentCreated() && tab.getComponent() == component)
 					return pane.indexOfComponent(tab);
 			}
 		}
 		return -1;
 	}
 
+	/**
+	 * Returns the component of the tab at an index, or null if it is a lazy tab
+	 * of which the component was not created yet.
+	 */
 	public Component getComponentAt(int index) {
-		return ((SparkTab) pane.getComponentAt(index)).getComponent();
+		return getComponentInTab((SparkTab) pane.getComponentAt(index));
 	}
 
 	public Component getTabComponentAt(int index) {
@@ -348,7 +403,10 @@ public class SparkTabbedPane extends JPanel {
 	public void close(SparkTab sparktab) {
 		int closeTabNumber = pane.indexOfComponent(sparktab);
 		pane.removeTabAt(closeTabNumber);
-		fireTabRemoved(sparktab, sparktab.getComponent(), closeTabNumber);
+		// Listeners only learned of a lazy tab once its component was created.
+		if (sparktab.isComponentCreated()) {
+			fireTabRemoved(sparktab, sparktab.getComponent(), closeTabNumber);
+		}
 
 		if (pane.getTabCount() == 0) {
 			allTabsClosed();
@@ -39,8 +39,6 @@ public class FileTransferPreference implements Preference {
         timeout = timeout * 60 * 1000;
 
         OutgoingFileTransfer.setResponseTimeout(timeout);
-
-        ui = new FileTransferPreferencePanel();
     }
 
     public String getTitle() {
@@ -64,10 +62,21 @@ public class FileTransferPreference implements Preference {
     }
 
     public JComponent getGUI() {
+        return getPanel();
+    }
+
+    /**
+     * The panel is only created once the preference is shown.
+     */
+    private FileTransferPreferencePanel getPanel() {
+        if (ui == null) {
+            ui = new FileTransferPreferencePanel();
+        }
         return ui;
     }
 
     public void load() {
+        final FileTransferPreferencePanel ui = getPanel();
         boolean ibb = localPreferences.isFileTransferIbbOnly();
         int timeout = localPreferences.getFileTransferTimeout();
         ui.setDownloadDirectory(localPreferences.getDownloadDir());
@@ -76,6 +85,11 @@ public class FileTransferPreference implements Preference {
     }
 
     public void commit() {
+        if (ui == null) {
+            // Never shown, so nothing was changed.
+            return;
+        }
+
         LocalPreferences pref = SettingsManager.getLocalPreferences();
         pref.setFileTransferIbbOnly(ui.getIbbOnly());
 
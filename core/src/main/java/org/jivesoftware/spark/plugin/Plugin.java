@@ -31,14 +31,35 @@ public interface Plugin {
      * for use during this classes lifecycle. <code>Plugin</code> authors should take
      * care to ensure that any extraneous initialization is not preformed on this method, and
      * any startup code that can be delayed until a later time is delayed, as
-     * the <code>Plugin</code>'s are synchronously initialized during the
-     * startup of Spark, and each <code>Plugin</code> has the potential to
-     * negatively impact the startup time of the product.
+     * each <code>Plugin</code> has the potential to negatively impact the
+     * startup time of the product.
+     * <p/>
+     * Unless {@link #canInitializeInBackground()} returns true, this method is
+     * invoked on the event dispatch thread, after the plugins this plugin
+     * depends on have been initialized.
      *
      * @see org.jivesoftware.spark.PluginManager
      */
     public void initialize();
 
+    /**
+     * Returns true if {@link #initialize()} may be invoked on a background
+     * thread, at the same time as the initialization of other plugins.
+     * <code>Plugin</code>'s returning true must take care to perform any
+     * changes to the user interface on the event dispatch thread themselves.
+     * <p/>
+     * A plugin that does not finish its initialization within 30 seconds is
+     * considered to have failed, and the plugins that depend on it are not
+     * initialized. Only if it is initialized in the background does this keep
+     * it from holding up the other plugins: a plugin that hangs on the event
+     * dispatch thread blocks that thread, and with it the user interface.
+     *
+     * @return true if the plugin can be initialized on a background thread.
+     */
+    default boolean canInitializeInBackground() {
+        return false;
+    }
+
     /**
      * This method is invoked by the <code>PluginManager</code> when Spark
      * wishes you to remove any temporary resources (in memory) such as installed
@@ -64,6 +64,8 @@ public interface Preference {
 
     /**
      * Return the UI to display whenever this preference is selected in the preference dialog.
+     * As many preferences are never looked at, the UI is best created here, when it is first
+     * needed, rather than when the preference is created.
      *
      * @return the UI to display when this preference is selected.
      */
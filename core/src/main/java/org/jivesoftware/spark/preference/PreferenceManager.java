@@ -39,14 +39,12 @@ public class PreferenceManager {
     private PreferenceDialog preferenceDialog;
 
     public PreferenceManager() {
-        // Initialize base preferences
+        // Initialize base preferences. Their panels are built and loaded when they are shown.
         ChatPreference chatPreferences = new ChatPreference();
         addPreference(chatPreferences);
-        chatPreferences.load();
         
         GroupChatPreference groupChatPreferences = new GroupChatPreference();
         addPreference(groupChatPreferences);
-        groupChatPreferences.load();
         
 //        MediaPreference preferenes = new MediaPreference();
 //        addPreference(preferenes);
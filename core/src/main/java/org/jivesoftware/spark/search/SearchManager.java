@@ -15,9 +15,11 @@
  */ 
 package org.jivesoftware.spark.search;
 
-import org.jivesoftware.spark.util.SwingWorker;
+import org.jivesoftware.spark.LoginTaskManager;
 import org.jivesoftware.sparkimpl.search.users.UserSearchService;
 
+import javax.swing.SwingUtilities;
+
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -59,23 +61,16 @@ public class SearchManager {
         ui = new SearchService();
 
         // By default, the user search is first.
-        SwingWorker worker = new SwingWorker() {
-            UserSearchService searchWizard;
-            public Object construct() {
-                searchWizard = new UserSearchService();
-                return searchWizard;
-            }
-
-            public void finished() {
+        LoginTaskManager.getInstance().addTask("user-search", () -> {
+            final UserSearchService searchWizard = new UserSearchService();
+            SwingUtilities.invokeLater( () -> {
                 if (searchWizard.getSearchServices() != null) {
                     ui.setActiveSearchService(searchWizard);
                     addSearchService(searchWizard);
                    _searchservicesHosts =  searchWizard.getSearchServices();
                 }
-            }
-        };
-
-        worker.start();
+            } );
+        }, "discovery");
 
 
     }
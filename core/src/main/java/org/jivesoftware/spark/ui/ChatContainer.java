@@ -64,7 +64,8 @@ public class ChatContainer extends SparkTabbedPane implements MessageListener, C
      */
     private final List<ChatRoomListener> chatRoomListeners = new ArrayList<>();
     private final List<ChatRoom> chatRoomList = new ArrayList<>();
-    private final Map<String, StanzaListener> presenceMap = new HashMap<>();
+    private final ChatRoomRegistry chatRoomRegistry = new ChatRoomRegistry();
+    private final Map<ChatRoom, StanzaListener> presenceMap = new HashMap<>();
     private static final String WELCOME_TITLE = SparkRes.getString(SparkRes.WELCOME);
     private ChatFrame chatFrame;
     private final TimerTask focusTask;
@@ -260,7 +261,7 @@ public class ChatContainer extends SparkTabbedPane implements MessageListener, C
         SparkManager.getConnection().addAsyncStanzaListener(myListener, presenceFilter);
 
         // Add to PresenceMap
-        presenceMap.put(room.getRoomname(), myListener);
+        presenceMap.put(room, myListener);
 
         String tooltip;
         if (room instanceof ChatRoomImpl) {
@@ -275,6 +276,7 @@ public class ChatContainer extends SparkTabbedPane implements MessageListener, C
 
         // Create ChatRoom UI and dock
         SparkTab tab = addTab(room.getTabTitle(), room.getTabIcon(), room, tooltip);
+        chatRoomRegistry.add(room);
         tab.addMouseListener(new MouseAdapter() {
             public void mouseReleased(MouseEvent e) {
                 checkTabPopup(e);
@@ -506,7 +508,7 @@ public class ChatContainer extends SparkTabbedPane implements MessageListener, C
             room.closeChatRoom();
         }
 
-        final StanzaListener listener = presenceMap.get(room.getRoomname());
+        final StanzaListener listener = presenceMap.get(room);
         if (listener != null) {
             SparkManager.getConnection().removeAsyncStanzaListener(listener);
         }
@@ -515,9 +517,10 @@ public class ChatContainer extends SparkTabbedPane implements MessageListener, C
         room.removeMessageListener(this);
 
         // Remove mappings
-        presenceMap.remove(room.getRoomname());
+        presenceMap.remove(room);
 
         chatRoomList.remove(room);
+        chatRoomRegistry.remove(room);
 
         room.getChatInputEditor().removeKeyListener(this);
 
@@ -560,7 +563,7 @@ public class ChatContainer extends SparkTabbedPane implements MessageListener, C
         fireChatRoomLeft(room);
         room.leaveChatRoom();
 
-        final StanzaListener listener = presenceMap.get(room.getRoomname());
+        final StanzaListener listener = presenceMap.get(room);
         if (listener != null && SparkManager.getConnection().isConnected()) {
             SparkManager.getConnection().removeAsyncStanzaListener(listener);
         }
@@ -574,20 +577,11 @@ public class ChatContainer extends SparkTabbedPane implements MessageListener, C
      * @throws ChatRoomNotFoundException if the room was not found.
      */
     public ChatRoom getChatRoom(String roomName) throws ChatRoomNotFoundException {
-        for (int i = 0; i < getTabCount(); i++) {
-            ChatRoom room = null;
-            try {
-                room = getChatRoom(i);
-            }
-            catch (ChatRoomNotFoundException e1) {
-                // Ignore
-            }
-
-            if (room != null && room.getRoomname().equalsIgnoreCase(roomName) && room.isActive()) {
-                return room;
-            }
+        final ChatRoom room = chatRoomRegistry.getActiveChatRoom(roomName);
+        if (room == null) {
+            throw new ChatRoomNotFoundException(roomName + " not found.");
         }
-        throw new ChatRoomNotFoundException(roomName + " not found.");
+        return room;
     }
 
     /**
@@ -1266,6 +1260,17 @@ public class ChatContainer extends SparkTabbedPane implements MessageListener, C
         return new ArrayList<>( chatRoomList );
     }
 
+    /**
+     * Returns the chat rooms with a room name, whether they are active or not. Room names are
+     * compared ignoring case.
+     *
+     * @param roomName the room name.
+     * @return the chat rooms with that name.
+     */
+    public Collection<ChatRoom> getChatRooms(String roomName) {
+        return chatRoomRegistry.getChatRooms(roomName);
+    }
+
     public ChatFrame getChatFrame() {
         return chatFrame;
     }
@@ -22,8 +22,6 @@ import org.jivesoftware.smack.SmackException;
 import org.jivesoftware.smack.StanzaListener;
 import org.jivesoftware.smack.packet.Message;
 import org.jivesoftware.smack.packet.Stanza;
-import org.jivesoftware.smack.roster.Roster;
-import org.jivesoftware.smack.roster.RosterEntry;
 import org.jivesoftware.smackx.chatstates.ChatState;
 import org.jivesoftware.smackx.jiveproperties.packet.JivePropertiesExtension;
 import org.jivesoftware.spark.ChatAreaSendField;
@@ -34,7 +32,6 @@ import org.jivesoftware.spark.plugin.ContextMenuListener;
 import org.jivesoftware.spark.ui.rooms.GroupChatRoom;
 import org.jivesoftware.spark.util.GraphicUtils;
 import org.jivesoftware.spark.util.SwingWorker;
-import org.jivesoftware.spark.util.TaskEngine;
 import org.jivesoftware.spark.util.UIComponentRegistry;
 import org.jivesoftware.spark.util.log.Log;
 import org.jivesoftware.sparkimpl.settings.local.LocalPreferences;
@@ -93,7 +90,6 @@ public abstract class ChatRoom extends BackgroundPanel implements ActionListener
     private boolean _isAlwaysOnTopActive;
 
     // Chat state
-    private TimerTask typingTimerTask;
     private long lastNotificationSentTime;
     private ChatState lastNotificationSent;
     private long pauseTimePeriod = 2000;
@@ -333,34 +329,10 @@ public abstract class ChatRoom extends BackgroundPanel implements ActionListener
         addFocusListener(this);
 
         setChatState( ChatState.active );
-        createChatStateTimerTask();
 
         scrollToBottom();
     }
 
-    protected void createChatStateTimerTask() {
-        typingTimerTask = new TimerTask() {
-            public void run() {
-                final long lastUpdate = System.currentTimeMillis() - lastNotificationSentTime;
-                switch ( lastNotificationSent ) {
-                    case paused:
-                    case active:
-                        if ( lastUpdate > inactiveTimePeriod ) {
-                            setChatState( ChatState.inactive );
-                        }
-                        break;
-
-                    case composing:
-                        if ( lastUpdate > pauseTimePeriod ) {
-                            setChatState( ChatState.paused );
-                        }
-                        break;
-                }
-            }
-        };
-        TaskEngine.getInstance().scheduleAtFixedRate(typingTimerTask, pauseTimePeriod /2, pauseTimePeriod / 2);
-    }
-
     /**
      * Sends a chat state to all peers.
      *
@@ -370,6 +342,9 @@ public abstract class ChatRoom extends BackgroundPanel implements ActionListener
 
     /**
      * Sets the chat state, causing an update to be sent to all peers if the new state warrants an update.
+     * <p>
+     * The state changes by itself from composing to paused when the user stops typing, and from active or
+     * paused to inactive when the user stays away long enough.
      *
      * @param state the chat state (never null).
      */
@@ -397,6 +372,24 @@ public abstract class ChatRoom extends BackgroundPanel implements ActionListener
             lastNotificationSent = state;
             lastNotificationSentTime = now;
         }
+
+        switch ( state ) {
+            case composing:
+                // Every keystroke moves the pause further away.
+                ChatStateScheduler.getInstance().schedule( this, ChatState.paused, now + pauseTimePeriod );
+                break;
+
+            case active:
+            case paused:
+                if ( isDifferentState ) {
+                    ChatStateScheduler.getInstance().schedule( this, ChatState.inactive, now + inactiveTimePeriod );
+                }
+                break;
+
+            default:
+                ChatStateScheduler.getInstance().cancel( this );
+                break;
+        }
     }
 
     /**
@@ -421,40 +414,15 @@ public abstract class ChatRoom extends BackgroundPanel implements ActionListener
         final int lastSpaceCharacterIndex = text.lastIndexOf( ' ' ); // -1 when space does not occur.
         final String needle = text.substring( lastSpaceCharacterIndex + 1 );
 
-        final Set<String> matches = new TreeSet<>( String::compareToIgnoreCase );
-
+        final List<String> matches;
         if ( SparkManager.getChatManager().getChatContainer().getActiveChatRoom() instanceof GroupChatRoom )
         {
             final GroupChatRoom activeChatRoom = (GroupChatRoom) SparkManager.getChatManager().getChatContainer().getActiveChatRoom();
-            for ( String participant : activeChatRoom.getParticipants() )
-            {
-                final String nickname = participant.substring( participant.lastIndexOf( "/" ) + 1 );
-                if ( nickname.toLowerCase().startsWith( needle.toLowerCase() ) )
-                {
-                    matches.add( nickname );
-                }
-            }
+            matches = activeChatRoom.getParticipantSearchIndex().complete( needle, 0 );
         }
         else
         {
-            for ( RosterEntry re : Roster.getInstanceFor( SparkManager.getConnection() ).getEntries() )
-            {
-                // Use the name if available, otherwise the localpart of the JID.
-                final String username;
-                if ( re.getName() != null )
-                {
-                    username = re.getName();
-                }
-                else
-                {
-                    username = re.getUser().substring( 0, re.getUser().indexOf( '@' ) );
-                }
-
-                if ( username.toLowerCase().startsWith( needle.toLowerCase() ) )
-                {
-                    matches.add( username );
-                }
-            }
+            matches = SparkManager.getUserManager().getContactSearchIndex().complete( needle, 0 );
         }
 
         if ( matches.size() == 1 )
@@ -855,11 +823,6 @@ public abstract class ChatRoom extends BackgroundPanel implements ActionListener
 
         setChatState(ChatState.gone);
 
-        if (typingTimerTask != null) {
-            TaskEngine.getInstance().cancelScheduledTask(typingTimerTask);
-            typingTimerTask = null;
-        }
-
         getTranscriptWindow().removeContextMenuListener(this);
         getTranscriptWindow().removeMouseListener(transcriptWindowMouseListener);
         getChatInputEditor().removeKeyListener(chatEditorKeyListener);
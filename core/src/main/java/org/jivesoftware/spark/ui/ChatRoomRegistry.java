@@ -0,0 +1,106 @@
+/**
+ * Copyright (C) 2004-2011 Jive Software. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.spark.ui;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The chat rooms of a {@link ChatContainer}, indexed by their room name (the
+ * JID of the contact or of the conference room), so that the room a stanza
+ * belongs to is found without looking at every tab.
+ * <p>
+ * Room names are compared ignoring case. Normally there is one room per name,
+ * but a room that was left may still be open next to a new one with the same
+ * name. Lookups can be done from any thread.
+ */
+final class ChatRoomRegistry {
+
+    private final Map<String, List<ChatRoom>> roomsByName = new ConcurrentHashMap<>();
+
+    /**
+     * Adds a chat room.
+     *
+     * @param room the chat room.
+     */
+    void add(ChatRoom room) {
+        roomsByName.compute(getKey(room.getRoomname()), (key, rooms) -> {
+            if (rooms == null) {
+                rooms = new CopyOnWriteArrayList<>();
+            }
+            rooms.add(room);
+            return rooms;
+        });
+    }
+
+    /**
+     * Removes a chat room.
+     *
+     * @param room the chat room.
+     */
+    void remove(ChatRoom room) {
+        roomsByName.computeIfPresent(getKey(room.getRoomname()), (key, rooms) -> {
+            rooms.remove(room);
+            return rooms.isEmpty() ? null : rooms;
+        });
+    }
+
+    /**
+     * Returns the active chat room with a room name.
+     *
+     * @param roomName the room name.
+     * @return the chat room, or null if there is no active chat room with that name.
+     */
+    ChatRoom getActiveChatRoom(String roomName) {
+        if (roomName == null) {
+            return null;
+        }
+
+        final List<ChatRoom> rooms = roomsByName.get(getKey(roomName));
+        if (rooms != null) {
+            for (ChatRoom room : rooms) {
+                if (room.isActive()) {
+                    return room;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns all chat rooms with a room name, whether they are active or not.
+     *
+     * @param roomName the room name.
+     * @return the chat rooms, in the order in which they were added.
+     */
+    List<ChatRoom> getChatRooms(String roomName) {
+        if (roomName == null) {
+            return Collections.emptyList();
+        }
+
+        final List<ChatRoom> rooms = roomsByName.get(getKey(roomName));
+        return rooms == null ? Collections.emptyList() : new ArrayList<>(rooms);
+    }
+
+    private static String getKey(String roomName) {
+        return roomName.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,151 @@
+/**
+ * Copyright (C) 2004-2011 Jive Software. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.spark.ui;
+
+import java.util.Map;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+import org.jivesoftware.smackx.chatstates.ChatState;
+import org.jivesoftware.spark.util.TaskEngine;
+import org.jivesoftware.spark.util.log.Log;
+
+/**
+ * Changes the chat state of chat rooms when the user stops typing or stops
+ * paying attention, for all chat rooms together.
+ * <p>
+ * Every chat room has at most one pending change, to be made at a given time;
+ * scheduling a new change replaces it. A single task is scheduled, for the
+ * earliest of these times. Typing in a chat room moves the time of its change,
+ * which does not require the task to be scheduled again, so that keystrokes cost
+ * next to nothing. Chat rooms that have no pending change, because they are
+ * inactive or gone, cost nothing at all.
+ *
+ * @param <R> the type of the chat rooms.
+ */
+final class ChatStateScheduler<R> {
+
+    /**
+     * Changes due within this many milliseconds of each other are made together.
+     */
+    private static final long SLACK = 100;
+
+    private static final ChatStateScheduler<ChatRoom> instance = new ChatStateScheduler<>(ChatRoom::setChatState);
+
+    private final Map<R, Change> changes = new ConcurrentHashMap<>();
+    private final BiConsumer<R, ChatState> setChatState;
+
+    private TimerTask wakeUp;
+    private long wakeUpTime = Long.MAX_VALUE;
+
+    static ChatStateScheduler<ChatRoom> getInstance() {
+        return instance;
+    }
+
+    /**
+     * Creates a scheduler.
+     *
+     * @param setChatState changes the chat state of a chat room when it is due.
+     */
+    ChatStateScheduler(BiConsumer<R, ChatState> setChatState) {
+        this.setChatState = setChatState;
+    }
+
+    /**
+     * Schedules the chat state of a chat room to be changed, replacing the change
+     * that was scheduled for it before.
+     *
+     * @param room  the chat room.
+     * @param state the new chat state.
+     * @param time  the time at which to change the state, in milliseconds since the epoch.
+     */
+    void schedule(R room, ChatState state, long time) {
+        changes.put(room, new Change(state, time));
+        scheduleWakeUp(time);
+    }
+
+    /**
+     * Cancels the change that was scheduled for a chat room, if any.
+     *
+     * @param room the chat room.
+     */
+    void cancel(R room) {
+        changes.remove(room);
+    }
+
+    private synchronized void scheduleWakeUp(long time) {
+        if (wakeUp != null) {
+            if (wakeUpTime <= time) {
+                // The room will be looked at when the task runs.
+                return;
+            }
+            TaskEngine.getInstance().cancelScheduledTask(wakeUp);
+        }
+
+        final TimerTask task = new TimerTask() {
+            @Override
+            public void run() {
+                wakeUp(this);
+            }
+        };
+        wakeUp = task;
+        wakeUpTime = time;
+        TaskEngine.getInstance().schedule(task, Math.max(0, time - System.currentTimeMillis()));
+    }
+
+    private void wakeUp(TimerTask task) {
+        synchronized (this) {
+            if (wakeUp != task) {
+                return;
+            }
+            wakeUp = null;
+            wakeUpTime = Long.MAX_VALUE;
+        }
+
+        final long now = System.currentTimeMillis();
+        long next = Long.MAX_VALUE;
+        for (Map.Entry<R, Change> entry : changes.entrySet()) {
+            final Change change = entry.getValue();
+            if (change.time > now + SLACK) {
+                next = Math.min(next, change.time);
+            }
+            else if (changes.remove(entry.getKey(), change)) {
+                try {
+                    // This may schedule the next change of the room.
+                    setChatState.accept(entry.getKey(), change.state);
+                }
+                catch (Exception e) {
+                    Log.error("Unable to change the chat state of " + entry.getKey() + " to " + change.state, e);
+                }
+            }
+        }
+
+        if (next != Long.MAX_VALUE) {
+            scheduleWakeUp(next);
+        }
+    }
+
+    private static final class Change {
+        private final ChatState state;
+        private final long time;
+
+        private Change(ChatState state, long time) {
+            this.state = state;
+            this.time = time;
+        }
+    }
+}
@@ -363,6 +363,27 @@ public class ContactItem extends JPanel {
         updatePresenceIcon(presence);
     }
 
+    /**
+     * Returns the hash of the last avatar announced by this contact.
+     *
+     * @return the avatar hash, or an empty string if unknown.
+     */
+    String getAvatarHash() {
+        return hash;
+    }
+
+    /**
+     * Sets the hash of the avatar to show for this contact, if that avatar is
+     * available locally.
+     *
+     * @param hash the avatar hash.
+     */
+    void setAvatarHash(String hash) {
+        if (hash != null && hashExists(hash)) {
+            this.hash = hash;
+        }
+    }
+
     /**
      * Checks to see if the hash already exists.
      *
@@ -36,6 +36,7 @@ import org.jivesoftware.smackx.sharedgroups.SharedGroupManager;
 import org.jivesoftware.spark.ChatManager;
 import org.jivesoftware.spark.PresenceManager;
 import org.jivesoftware.spark.SparkManager;
+import org.jivesoftware.spark.UserManager;
 import org.jivesoftware.spark.Workspace;
 import org.jivesoftware.spark.component.InputDialog;
 import org.jivesoftware.spark.component.RolloverButton;
@@ -88,12 +89,39 @@ public class ContactList extends JPanel implements ActionListener,
     private JMenuItem renameMenu;
 
     private ContactGroup offlineGroup;
+
+    /**
+     * The delay in milliseconds before a contact that went unavailable is moved to the offline group.
+     */
+    private static final long OFFLINE_TRANSITION_DELAY = 3000;
+    private final TimerWheel<String> offlineTransitions = new TimerWheel<>("offline-transitions", 250, 64, true, () -> offlineGroup.fireContactGroupUpdated());
+
+    /**
+     * The delay in milliseconds before a contact that came online is shown with its regular presence icon.
+     */
+    private static final long ONLINE_TRANSITION_DELAY = 5000;
+    private final Set<ContactGroup> onlineTransitionGroups = new HashSet<>();
+    private final TimerWheel<ContactItem> onlineTransitions = new TimerWheel<>("online-transitions", 250, 64, true, () -> {
+        for (ContactGroup group : onlineTransitionGroups) {
+            group.fireContactGroupUpdated();
+        }
+        onlineTransitionGroups.clear();
+    });
     private final JCheckBoxMenuItem showHideMenu = new JCheckBoxMenuItem();
     private final JCheckBoxMenuItem showOfflineGroupMenu = new JCheckBoxMenuItem();
     private final JCheckBoxMenuItem showOfflineUsersMenu = new JCheckBoxMenuItem();
     
     private List<String> sharedGroups = new ArrayList<>();
 
+    /**
+     * The number of contacts added to the user interface per event dispatch thread cycle while building the list.
+     */
+    private static final int PUBLISH_CHUNK_SIZE = 100;
+    private final JProgressBar buildProgressBar = new JProgressBar();
+
+    private final List<ContactItem> snapshotItems = new ArrayList<>();
+    private final Set<ContactGroup> snapshotGroups = new HashSet<>();
+
     private final List<ContextMenuListener> contextListeners = new ArrayList<>();
 
     private final List<FileDropListener> dndListeners = new ArrayList<>();
@@ -104,8 +132,6 @@ public class ContactList extends JPanel implements ActionListener,
     private LocalPreferences localPreferences;
     
     private ContactItem contactItem;
-    
-    private String name, user;
 
 
     public static final String RETRY_PANEL = "RETRY_PANEL";
@@ -174,6 +200,10 @@ public class ContactList extends JPanel implements ActionListener,
 
 
         add(contactListScrollPane, BorderLayout.CENTER);
+
+        // Shows the progress of building large contact lists.
+        buildProgressBar.setVisible(false);
+        add(buildProgressBar, BorderLayout.NORTH);
               
 
         // Load Properties file
@@ -312,6 +342,11 @@ public class ContactList extends JPanel implements ActionListener,
 
         final String bareJID = XmppStringUtils.parseBareJid(presence.getFrom());
 
+        if (presence.getType() == Presence.Type.available) {
+            // The contact reappeared before being moved to the offline group.
+            offlineTransitions.cancel(bareJID);
+        }
+
         RosterEntry entry = roster.getEntry(bareJID);
         boolean isPending = entry != null && (entry.getType() == RosterPacket.ItemType.none || entry.getType() == RosterPacket.ItemType.from)
             && RosterPacket.ItemStatus.SUBSCRIPTION_PENDING == entry.getStatus();
@@ -367,40 +402,17 @@ public class ContactList extends JPanel implements ActionListener,
      * @param bareJID  the bareJID of the user.
      */
     private void moveToOfflineGroup(final Presence presence, final String bareJID) {
+        final Map<ContactGroup, ContactItem> goingOffline = new HashMap<>();
         for (ContactGroup grpItem : new ArrayList<>( groupList )) {
             final ContactGroup group = grpItem;
             final ContactItem item = group.getContactItemByJID(bareJID);
             if (item != null) {
-                int numberOfMillisecondsInTheFuture = 3000;
-                Date timeToRun = new Date(System.currentTimeMillis() + numberOfMillisecondsInTheFuture);
-
                 // Only run through if the users presence was online before.
                 if (item.getPresence().isAvailable()) {
                     item.showUserGoingOfflineOnline();
                     item.setIcon(SparkRes.getImageIcon(SparkRes.CLEAR_BALL_ICON));
                     group.fireContactGroupUpdated();
-
-                    TaskEngine.getInstance().schedule(new SwingTimerTask() {
-                    	@Override
-                        public void doRun() {
-                            // Check to see if the user is offline, if so, move them to the offline group.
-                            Presence userPresence = PresenceManager.getPresence(bareJID);
-                            if (userPresence.isAvailable()) {
-                                return;
-                            }
-
-                            item.setPresence(presence);
-
-                            // Check for ContactItemHandler.
-                            group.removeContactItem(item);
-                            checkGroup(group);
-
-                            if (offlineGroup.getContactItemByJID(item.getJID()) == null) {
-                                moveToOffline(item);
-                                offlineGroup.fireContactGroupUpdated();
-                            }
-                        }
-                    }, timeToRun);
+                    goingOffline.put(group, item);
                 }
             } else {
                 final ContactItem offlineItem = offlineGroup.getContactItemByJID(bareJID);
@@ -409,6 +421,33 @@ public class ContactList extends JPanel implements ActionListener,
                 }
             }
         }
+
+        if (goingOffline.isEmpty()) {
+            return;
+        }
+
+        // The offline group is updated once for all users moved within the same tick.
+        offlineTransitions.schedule(bareJID, OFFLINE_TRANSITION_DELAY, () -> {
+            // Check to see if the user is offline, if so, move them to the offline group.
+            Presence userPresence = PresenceManager.getPresence(bareJID);
+            if (userPresence.isAvailable()) {
+                return;
+            }
+
+            for (Map.Entry<ContactGroup, ContactItem> entry : goingOffline.entrySet()) {
+                final ContactGroup group = entry.getKey();
+                final ContactItem item = entry.getValue();
+                item.setPresence(presence);
+
+                // Check for ContactItemHandler.
+                group.removeContactItem(item);
+                checkGroup(group);
+
+                if (offlineGroup.getContactItemByJID(item.getJID()) == null) {
+                    moveToOffline(item);
+                }
+            }
+        });
     }
 
     /**
@@ -460,19 +499,12 @@ public class ContactList extends JPanel implements ActionListener,
                         toggleGroupVisibility(contactGroup.getGroupName(), true);
                         //contactGroup.fireContactGroupUpdated();
                         
-                        int numberOfMillisecondsInTheFuture = 5000;
-                        Date timeToRun = new Date(System.currentTimeMillis()
-                                + numberOfMillisecondsInTheFuture);
-
                         final ContactItem staticItem = changeContactItem;
                         final ContactGroup staticGroup = contactGroup;
-                        TaskEngine.getInstance().schedule(new SwingTimerTask() {
-                            @Override
-                        	public void doRun() {
-                                staticItem.updatePresenceIcon(staticItem.getPresence());
-                                staticGroup.fireContactGroupUpdated();
-                            }
-                        }, timeToRun);
+                        onlineTransitions.schedule(staticItem, ONLINE_TRANSITION_DELAY, () -> {
+                            staticItem.updatePresenceIcon(staticItem.getPresence());
+                            onlineTransitionGroups.add(staticGroup);
+                        });
 
                     } else {
 
@@ -541,90 +573,137 @@ public class ContactList extends JPanel implements ActionListener,
     }
 
     /**
-     * Called to build the initial ContactList.
+     * Called to build the initial ContactList. The roster is traversed on the calling thread, after which the
+     * contacts are added to the user interface in small chunks on the event dispatch thread, so that the user
+     * interface remains responsive while large rosters are loaded.
+     *
+     * @param whenPublished executed on the event dispatch thread once all contacts have been added, may be null.
+     */
+    private void buildContactList(final Runnable whenPublished) {
+        final List<RosterItem> model = buildContactListModel();
+        EventQueue.invokeLater( () -> publishContactList(model, whenPublished) );
+    }
+
+    /**
+     * Traverses the roster and determines where each contact should be placed. Does not touch the user interface,
+     * and therefore can be called from any thread.
+     *
+     * @return the placement of all contacts, in the order in which they should be added.
      */
-    private void buildContactList() {
+    private List<RosterItem> buildContactListModel() {
         final Roster roster = Roster.getInstanceFor( SparkManager.getConnection() );
 
         roster.addRosterListener(this);
 
-        // Add All Groups to List
-        for (RosterGroup group : roster.getGroups()) {
-            addContactGroup(group.getName());
+        // Make all contacts searchable.
+        final UserManager userManager = SparkManager.getUserManager();
+        for (RosterEntry entry : roster.getEntries()) {
+            userManager.indexContact(entry.getUser());
         }
 
+        final List<RosterItem> model = new ArrayList<>();
         for (RosterGroup group : roster.getGroups()) {
-        	
-        	if(group.getName() == null || Objects.equals( group.getName(), "" ) ){
-        		for(RosterEntry entry : group.getEntries()){
-        			
-				ContactItem buildContactItem = UIComponentRegistry.createContactItem(entry.getName(), null, entry.getUser());
-                    moveToOffline(buildContactItem);
-        		}
-        	}else{
-        		
-	            ContactGroup contactGroup = getContactGroup(group.getName());
-	            if (contactGroup == null) {
-	                contactGroup = getUnfiledGroup();
-	            }
+            final boolean hasName = group.getName() != null && !Objects.equals( group.getName(), "" );
+            for (RosterEntry entry : group.getEntries()) {
+                final boolean isPending = (entry.getType() == RosterPacket.ItemType.none || entry.getType() == RosterPacket.ItemType.from)
+                    && RosterPacket.ItemStatus.SUBSCRIPTION_PENDING == entry.getStatus();
+                model.add(new RosterItem(hasName ? group.getName() : null, entry.getName(), entry.getUser(), hasName && isPending));
+            }
+        }
 
-	            for (RosterEntry entry : group.getEntries()) {
-	            	contactItem = null;
-	            	name = entry.getName();
-	            	user = entry.getUser();
-	            	// in case of connection lost, the creation must be done in eventqueue
-	            	if(EventQueue.isDispatchThread()) {
-				contactItem = UIComponentRegistry.createContactItem(entry.getName(), null, entry.getUser());
-	            	}
-	            	else {
-	            		try {
-	            			EventQueue.invokeAndWait( () -> contactItem = UIComponentRegistry.createContactItem(name, null, user) );
-	            		} catch(Exception ex) {
-	            			ex.printStackTrace();
-	            		}
-	            	}
-	            		
-	            	// if there was something wrong, try an other
-	            	if(contactItem == null)
-	            		continue;
-	            	
-	                contactItem.setPresence(new Presence(Presence.Type.unavailable));
-	                if ((entry.getType() == RosterPacket.ItemType.none || entry.getType() == RosterPacket.ItemType.from)
-	                    && RosterPacket.ItemStatus.SUBSCRIPTION_PENDING == entry.getStatus()) {
-	                    // Add to contact group.
-	                    contactGroup.addContactItem(contactItem);
-	                    contactGroup.setVisible(true);
-	                }
-	                else {
-	                    if (offlineGroup.getContactItemByJID(entry.getUser()) == null) {
-	                        moveToOffline(contactItem);
-	                    }
-	                }
-            	}
-            }
-        }
-
-        if (EventQueue.isDispatchThread()) {
-            // Add Unfiled Group
-            for (RosterEntry entry : roster.getUnfiledEntries()) {
-                ContactItem moveToOfflineContactItem = UIComponentRegistry.createContactItem(entry.getName(), null, entry.getUser());
-                moveToOffline(moveToOfflineContactItem);
+        for (RosterEntry entry : roster.getUnfiledEntries()) {
+            model.add(new RosterItem(null, entry.getName(), entry.getUser(), false));
+        }
+        return model;
+    }
+
+    /**
+     * Adds the contacts determined by {@link #buildContactListModel()} to the user interface, a chunk at a time.
+     * Must be called on the event dispatch thread.
+     *
+     * @param model         the placement of all contacts.
+     * @param whenPublished executed once all contacts have been added, may be null.
+     */
+    private void publishContactList(final List<RosterItem> model, final Runnable whenPublished) {
+        // Add All Groups to List
+        for (RosterItem rosterItem : model) {
+            if (rosterItem.groupName != null && getContactGroup(rosterItem.groupName) == null) {
+                addContactGroup(rosterItem.groupName);
             }
         }
-        else
-        {
-        	try {
-        	EventQueue.invokeAndWait( () -> {
-for (RosterEntry entry : roster.getUnfiledEntries()) {
-ContactItem moveToOfflineContactItem = UIComponentRegistry.createContactItem(entry.getName(), null, entry.getUser());
-moveToOffline(moveToOfflineContactItem);
-}
-            } );
-        	} catch (Exception e) {
-        		Log.error("moveToOffilne",e);
-        	}
+
+        if (model.size() > PUBLISH_CHUNK_SIZE) {
+            buildProgressBar.setMaximum(model.size());
+            buildProgressBar.setValue(0);
+            buildProgressBar.setVisible(true);
+        }
+
+        publishContactListChunk(model, 0, whenPublished);
+    }
+
+    private void publishContactListChunk(final List<RosterItem> model, final int start, final Runnable whenPublished) {
+        final int end = Math.min(start + PUBLISH_CHUNK_SIZE, model.size());
+        final List<RosterItem> chunk = model.subList(start, end);
+        final List<String> names = new ArrayList<>(chunk.size());
+        final List<String> jids = new ArrayList<>(chunk.size());
+        for (RosterItem rosterItem : chunk) {
+            names.add(rosterItem.name);
+            jids.add(rosterItem.jid);
+        }
+        final List<ContactItem> items = UIComponentRegistry.createContactItems(names, jids);
+
+        for (int i = 0; i < chunk.size(); i++) {
+            final RosterItem rosterItem = chunk.get(i);
+            final ContactItem item = items.get(i);
+            if (item == null) {
+                continue;
+            }
+
+            if (rosterItem.isPending) {
+                ContactGroup contactGroup = getContactGroup(rosterItem.groupName);
+                if (contactGroup == null) {
+                    contactGroup = getUnfiledGroup();
+                }
+
+                // Add to contact group.
+                item.setPresence(new Presence(Presence.Type.unavailable));
+                contactGroup.addContactItem(item);
+                contactGroup.setVisible(true);
+            }
+            else if (offlineGroup.getContactItemByJID(rosterItem.jid) == null) {
+                item.setPresence(new Presence(Presence.Type.unavailable));
+                moveToOffline(item);
+            }
+        }
+
+        if (end < model.size()) {
+            // Let the event dispatch thread handle other events before continuing.
+            buildProgressBar.setValue(end);
+            EventQueue.invokeLater( () -> publishContactListChunk(model, end, whenPublished) );
+            return;
         }
 
+        buildProgressBar.setVisible(false);
+        if (whenPublished != null) {
+            whenPublished.run();
+        }
+    }
+
+    /**
+     * The placement of a single roster entry in the contact list.
+     */
+    private static class RosterItem {
+        private final String groupName;
+        private final String name;
+        private final String jid;
+        private final boolean isPending;
+
+        private RosterItem(String groupName, String name, String jid, boolean isPending) {
+            this.groupName = groupName;
+            this.name = name;
+            this.jid = jid;
+            this.isPending = isPending;
+        }
     }
 
     /**
@@ -639,6 +718,7 @@ moveToOffline(moveToOfflineContactItem);
             for (String jid : addresses) {
                 RosterEntry entry = roster.getEntry(jid);
                 addUser(entry);
+                SparkManager.getUserManager().indexContact(jid);
             }
         } );
     }
@@ -689,6 +769,9 @@ moveToOffline(moveToOfflineContactItem);
      * @param addresses List of entries that were updated.
      */
     public void entriesUpdated(final Collection<String> addresses) {
+        for (String jid : addresses) {
+            SparkManager.getUserManager().indexContact(jid);
+        }
         handleEntriesUpdated(addresses);
     }
 
@@ -701,6 +784,7 @@ moveToOffline(moveToOfflineContactItem);
         SwingUtilities.invokeLater( () -> {
             for (String jid : addresses) {
                 removeContactItem(jid);
+                SparkManager.getUserManager().removeIndexedContact(jid);
             }
         } );
 
@@ -1746,6 +1830,9 @@ moveToOffline(moveToOfflineContactItem);
         // Hide top toolbar
         SparkManager.getMainWindow().getTopToolBar().setVisible(false);
 
+        // Show the contacts of the previous session until the roster has been retrieved.
+        showRosterSnapshot();
+
         final Runnable sharedGroupLoader = () -> {
 // Retrieve shared group list.
 try {
@@ -1755,32 +1842,157 @@ catch (XMPPException | SmackException e) {
 Log.error("Unable to contact shared group info.", e);
 }
 
-SwingUtilities.invokeLater( () -> loadContactList() );
+// Traverse the roster on this thread, only the user interface is updated on the event dispatch thread.
+final List<RosterItem> model = buildContactListModel();
+SwingUtilities.invokeLater( () -> loadContactList(model) );
 
 };
 
         TaskEngine.getInstance().submit(sharedGroupLoader);
     }
 
-    private void loadContactList() {
+    private void loadContactList(List<RosterItem> model) {
+
+	// Replace the contacts of the previous session by the actual roster.
+	clearRosterSnapshot();
 
 	// Build the initial contact list.
-	buildContactList();
+	publishContactList(model, () -> {
+	    boolean show = localPreferences.isEmptyGroupsShown();
 
-	boolean show = localPreferences.isEmptyGroupsShown();
+	    // Hide all groups initially
+	    showEmptyGroups(show);
 
-	// Hide all groups initially
-	showEmptyGroups(show);
+	    // Hide all Offline Users
+	    showOfflineUsers(localPreferences.isOfflineUsersShown());
 
-	// Hide all Offline Users
-	showOfflineUsers(localPreferences.isOfflineUsersShown());
+	    // Add a subscription listener.
+	    addSubscriptionListener();
 
-	// Add a subscription listener.
-	addSubscriptionListener();
+	    // Load all plugins
+	    SparkManager.getWorkspace().loadPlugins();
+	});
 
-	// Load all plugins
-	SparkManager.getWorkspace().loadPlugins();
+    }
 
+    /**
+     * Returns the file in which the contacts of the previous session are kept.
+     *
+     * @return the roster snapshot file.
+     */
+    private File getRosterSnapshotFile() {
+        return new File(SparkManager.getUserDirectory(), "roster.snapshot");
+    }
+
+    /**
+     * Shows all contacts of the previous session as offline, including their last known status and avatar.
+     */
+    private void showRosterSnapshot() {
+        final RosterSnapshot snapshot = RosterSnapshot.load(getRosterSnapshotFile());
+        if (snapshot == null) {
+            return;
+        }
+
+        for (RosterSnapshot.Item snapshotItem : snapshot.getItems()) {
+            final ContactItem item = UIComponentRegistry.createContactItem(snapshotItem.getName(), snapshotItem.getNickname(), snapshotItem.getJID());
+            item.setAvatarHash(snapshotItem.getAvatarHash());
+            item.updateAvatarInSideIcon();
+            offlineGroup.addContactItem(item);
+            if (ModelUtil.hasLength(snapshotItem.getStatus())) {
+                item.setStatusText(snapshotItem.getStatus());
+            }
+            snapshotItems.add(item);
+
+            boolean isFiled = false;
+            for (String groupName : snapshotItem.getGroups()) {
+                if (!ModelUtil.hasLength(groupName)) {
+                    continue;
+                }
+                ContactGroup contactGroup = getContactGroup(groupName);
+                if (contactGroup == null) {
+                    contactGroup = addContactGroup(groupName);
+                    snapshotGroups.add(contactGroup);
+                }
+                if (contactGroup != null) {
+                    isFiled = true;
+                    contactGroup.addOfflineContactItem(snapshotItem.getName(), snapshotItem.getNickname(), snapshotItem.getJID(), snapshotItem.getStatus());
+                }
+            }
+            if (!isFiled) {
+                getUnfiledGroup().addOfflineContactItem(snapshotItem.getName(), snapshotItem.getNickname(), snapshotItem.getJID(), snapshotItem.getStatus());
+            }
+        }
+
+        showEmptyGroups(localPreferences.isEmptyGroupsShown());
+        showOfflineUsers(localPreferences.isOfflineUsersShown());
+        offlineGroup.fireContactGroupUpdated();
+    }
+
+    /**
+     * Removes all contacts that were added by {@link #showRosterSnapshot()}, as well as the groups that were only
+     * created for them.
+     */
+    private void clearRosterSnapshot() {
+        for (ContactItem item : snapshotItems) {
+            offlineGroup.removeContactItem(item);
+            for (ContactGroup group : getContactGroups()) {
+                final ContactItem offlineItem = group.getOfflineContactItemByJID(item.getJID());
+                if (offlineItem != null) {
+                    group.removeOfflineContactItem(offlineItem);
+                    group.removeContactItem(offlineItem);
+                }
+            }
+        }
+        snapshotItems.clear();
+
+        for (ContactGroup group : snapshotGroups) {
+            if (group.getContactItems().isEmpty() && group.getOfflineContacts().isEmpty()) {
+                removeContactGroup(group);
+            }
+        }
+        snapshotGroups.clear();
+    }
+
+    /**
+     * Persists the current roster, including the last known nickname, avatar and status of each contact, so that it
+     * can be shown immediately at the next login.
+     */
+    private void saveRosterSnapshot() {
+        if (SparkManager.getConnection() == null) {
+            return;
+        }
+
+        final Roster roster = Roster.getInstanceFor( SparkManager.getConnection() );
+        if (!roster.isLoaded()) {
+            // Do not overwrite the previous snapshot with an incomplete one.
+            return;
+        }
+
+        final RosterSnapshot snapshot = new RosterSnapshot();
+        for (RosterEntry entry : roster.getEntries()) {
+            final List<String> groups = new ArrayList<>();
+            for (RosterGroup group : entry.getGroups()) {
+                groups.add(group.getName());
+            }
+
+            String nickname = null;
+            String avatarHash = null;
+            String status = null;
+            final ContactItem item = getContactItemByJID(entry.getUser());
+            if (item != null) {
+                nickname = item.getNickname();
+                avatarHash = item.getAvatarHash();
+                status = item.getStatus();
+            }
+
+            final Presence presence = PresenceManager.getPresence(entry.getUser());
+            if (presence.isAvailable() && ModelUtil.hasLength(presence.getStatus())) {
+                status = presence.getStatus();
+            }
+
+            snapshot.addItem(new RosterSnapshot.Item(entry.getUser(), entry.getName(), nickname, avatarHash, status, groups));
+        }
+        snapshot.save(getRosterSnapshotFile());
     }
 
     public void addSubscriptionListener()
@@ -2290,6 +2502,8 @@ SwingUtilities.invokeLater( () -> loadContactList() );
     }
 
     public void saveState() {
+        saveRosterSnapshot();
+
         if (props == null) {
             return;
         }
@@ -2407,11 +2621,11 @@ SwingUtilities.invokeLater( () -> loadContactList() );
 	}
 
 	offlineGroup.fireContactGroupUpdated();
-	buildContactList();
-
-	final Presence myPresence = SparkManager.getWorkspace().getStatusBar()
-		.getPresence();
-	SparkManager.getSessionManager().changePresence(myPresence);
+	TaskEngine.getInstance().submit( () -> buildContactList( () -> {
+	    final Presence myPresence = SparkManager.getWorkspace().getStatusBar()
+		    .getPresence();
+	    SparkManager.getSessionManager().changePresence(myPresence);
+	} ) );
 
     }
 
@@ -0,0 +1,204 @@
+/**
+ * Copyright (C) 2004-2011 Jive Software. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.spark.ui;
+
+import org.jivesoftware.spark.util.log.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A compact, persisted copy of the contact list as it was at the end of the
+ * previous session. The <code>ContactList</code> renders it immediately after
+ * login, so that contacts are visible while the roster and the presences of
+ * all contacts are still being retrieved from the server.
+ * <p>
+ * The roster itself is cached separately by Smack's roster store, which allows
+ * the server to send only the changes since the last session (XEP-0237).
+ */
+public class RosterSnapshot {
+
+    private static final int FORMAT_VERSION = 1;
+
+    private final List<Item> items = new ArrayList<>();
+
+    /**
+     * Adds a contact to the snapshot.
+     *
+     * @param item the contact.
+     */
+    public void addItem(Item item) {
+        items.add(item);
+    }
+
+    /**
+     * Returns all contacts in the snapshot.
+     *
+     * @return an unmodifiable list of contacts.
+     */
+    public List<Item> getItems() {
+        return Collections.unmodifiableList(items);
+    }
+
+    /**
+     * Writes the snapshot to a file, replacing any previous snapshot.
+     *
+     * @param file the file to write to.
+     */
+    public void save(File file) {
+        final File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(items.size());
+            for (Item item : items) {
+                out.writeUTF(item.jid);
+                writeNullable(out, item.name);
+                writeNullable(out, item.nickname);
+                writeNullable(out, item.avatarHash);
+                writeNullable(out, item.status);
+                out.writeInt(item.groups.size());
+                for (String group : item.groups) {
+                    out.writeUTF(group);
+                }
+            }
+        }
+        catch (IOException e) {
+            Log.error("Unable to save roster snapshot.", e);
+            tempFile.delete();
+            return;
+        }
+
+        if (file.exists() && !file.delete() || !tempFile.renameTo(file)) {
+            Log.warning("Unable to replace roster snapshot " + file);
+            tempFile.delete();
+        }
+    }
+
+    /**
+     * Reads a snapshot from a file.
+     *
+     * @param file the file to read from.
+     * @return the snapshot, or null if there is no (usable) snapshot.
+     */
+    public static RosterSnapshot load(File file) {
+        if (!file.exists()) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+
+            final RosterSnapshot snapshot = new RosterSnapshot();
+            final int size = in.readInt();
+            for (int i = 0; i < size; i++) {
+                final String jid = in.readUTF();
+                final String name = readNullable(in);
+                final String nickname = readNullable(in);
+                final String avatarHash = readNullable(in);
+                final String status = readNullable(in);
+                final int groupCount = in.readInt();
+                final List<String> groups = new ArrayList<>(groupCount);
+                for (int j = 0; j < groupCount; j++) {
+                    groups.add(in.readUTF());
+                }
+                snapshot.addItem(new Item(jid, name, nickname, avatarHash, status, groups));
+            }
+            return snapshot;
+        }
+        catch (IOException e) {
+            Log.warning("Unable to load roster snapshot " + file, e);
+            file.delete();
+            return null;
+        }
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * A single contact in the snapshot.
+     */
+    public static class Item {
+        private final String jid;
+        private final String name;
+        private final String nickname;
+        private final String avatarHash;
+        private final String status;
+        private final List<String> groups;
+
+        /**
+         * Creates a new snapshot item.
+         *
+         * @param jid        the bare JID of the contact.
+         * @param name       the name of the roster entry, may be null.
+         * @param nickname   the nickname of the contact, may be null.
+         * @param avatarHash the hash of the last known avatar, may be null.
+         * @param status     the last known status text, may be null.
+         * @param groups     the names of the roster groups of the contact.
+         */
+        public Item(String jid, String name, String nickname, String avatarHash, String status, List<String> groups) {
+            this.jid = jid;
+            this.name = name;
+            this.nickname = nickname;
+            this.avatarHash = avatarHash;
+            this.status = status;
+            this.groups = groups;
+        }
+
+        public String getJID() {
+            return jid;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getNickname() {
+            return nickname;
+        }
+
+        public String getAvatarHash() {
+            return avatarHash;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public List<String> getGroups() {
+            return groups;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/**
+ * Copyright (C) 2004-2011 Jive Software. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.spark.ui.conferences;
+
+import java.awt.EventQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jivesoftware.smack.SmackException;
+import org.jivesoftware.smack.XMPPException;
+import org.jivesoftware.smack.packet.XMPPError;
+import org.jivesoftware.smackx.bookmarks.BookmarkedConference;
+import org.jivesoftware.smackx.muc.MultiUserChat;
+import org.jivesoftware.smackx.muc.MultiUserChatManager;
+import org.jivesoftware.spark.SparkManager;
+import org.jivesoftware.spark.ui.ChatContainer;
+import org.jivesoftware.spark.ui.rooms.GroupChatRoom;
+import org.jivesoftware.spark.util.ModelUtil;
+import org.jivesoftware.spark.util.TaskEngine;
+import org.jivesoftware.spark.util.UIComponentRegistry;
+import org.jivesoftware.spark.util.log.Log;
+import org.jivesoftware.sparkimpl.settings.local.SettingsManager;
+import org.jxmpp.util.XmppStringUtils;
+
+/**
+ * Joins the bookmarked rooms that are marked to be joined on startup.
+ * <p>
+ * A few rooms are joined at the same time, instead of waiting for the
+ * occupants and history of each room before joining the next. Every join has
+ * its own timeout, and the history that is replayed is limited. A room is added
+ * to the chat container as soon as it has been joined, without taking the focus
+ * away from the room the user is in.
+ * <p>
+ * Rooms that need the user's attention, because a password must be entered or
+ * the nickname is in use, are joined interactively once the other rooms have
+ * been joined.
+ */
+public class AutoJoinScheduler {
+
+    /**
+     * The number of rooms that are joined at the same time.
+     */
+    private static final int MAX_CONCURRENT_JOINS = 4;
+
+    /**
+     * The number of milliseconds to wait for the server to confirm the join of a room.
+     */
+    private static final long JOIN_TIMEOUT = 20 * 1000;
+
+    /**
+     * The maximum number of messages replayed from the history of a room.
+     */
+    private static final int MAX_HISTORY_STANZAS = 25;
+
+    private final List<BookmarkedConference> bookmarks;
+    private final Map<BookmarkedConference, GroupChatRoom> interactiveJoins = new LinkedHashMap<>();
+    private final AtomicInteger joined = new AtomicInteger();
+
+    /**
+     * Joins rooms in the background.
+     *
+     * @param bookmarks the bookmarks of the rooms to join.
+     */
+    public static void joinRooms(Collection<BookmarkedConference> bookmarks) {
+        if (bookmarks.isEmpty()) {
+            return;
+        }
+        final AutoJoinScheduler scheduler = new AutoJoinScheduler(bookmarks);
+        TaskEngine.getInstance().submit(TaskEngine.Category.NETWORK, scheduler::run);
+    }
+
+    private AutoJoinScheduler(Collection<BookmarkedConference> bookmarks) {
+        this.bookmarks = new ArrayList<>(bookmarks);
+    }
+
+    private void run() {
+        if (!ConferenceUtils.confirmToRevealVisibility()) {
+            return;
+        }
+
+        final long start = System.currentTimeMillis();
+        final AtomicInteger threadNumber = new AtomicInteger(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(MAX_CONCURRENT_JOINS, bookmarks.size()), runnable -> {
+            final Thread thread = new Thread(runnable, "autojoin-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        final List<Future<?>> joins = new ArrayList<>();
+        for (BookmarkedConference bookmark : bookmarks) {
+            joins.add(executor.submit(() -> join(bookmark)));
+        }
+        executor.shutdown();
+
+        for (Future<?> join : joins) {
+            try {
+                join.get();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                executor.shutdownNow();
+                return;
+            }
+            catch (Exception e) {
+                Log.error("Unable to auto-join a room.", e);
+            }
+        }
+
+        Log.debug("Auto-joined " + joined.get() + " of " + bookmarks.size() + " rooms in " + (System.currentTimeMillis() - start) + " ms.");
+
+        if (joined.get() > 0) {
+            EventQueue.invokeLater(ConferenceUtils::changePresenceToAvailableIfInvisible);
+        }
+
+        // Prompt for passwords and nicknames one room at a time.
+        for (Map.Entry<BookmarkedConference, GroupChatRoom> entry : getInteractiveJoins().entrySet()) {
+            final BookmarkedConference bookmark = entry.getKey();
+            final JoinRoomSwingWorker worker = new JoinRoomSwingWorker(bookmark.getJid(), bookmark.getPassword(), XmppStringUtils.parseLocalpart(bookmark.getJid()));
+            worker.setChatRoom(entry.getValue());
+            worker.start();
+            worker.get();
+        }
+    }
+
+    private void join(BookmarkedConference bookmark) {
+        final String roomJID = bookmark.getJid();
+        final String password = bookmark.getPassword();
+        final MultiUserChat groupChat = MultiUserChatManager.getInstanceFor(SparkManager.getConnection()).getMultiUserChat(roomJID);
+        if (groupChat.isJoined()) {
+            return;
+        }
+
+        if (!ModelUtil.hasLength(password) && ConferenceUtils.isPasswordRequired(roomJID)) {
+            deferToUser(bookmark, null);
+            return;
+        }
+
+        // As when joining a room interactively, the UI component must exist before the room is joined, to be able to
+        // display what the server sends upon joining. It is only added to the chat container once the join succeeded.
+        final GroupChatRoom room = UIComponentRegistry.createGroupChatRoom(groupChat);
+        room.setPassword(password);
+        room.setTabTitle(XmppStringUtils.parseLocalpart(roomJID));
+
+        final String nickname = SettingsManager.getRelodLocalPreferences().getNickname().trim();
+        try {
+            ConferenceUtils.join(groupChat, room.getHistoryWatermark(), nickname, password, MAX_HISTORY_STANZAS, JOIN_TIMEOUT);
+        }
+        catch (XMPPException.XMPPErrorException e) {
+            final XMPPError.Condition condition = e.getXMPPError().getCondition();
+            if (XMPPError.Condition.conflict.equals(condition) || XMPPError.Condition.not_authorized.equals(condition)) {
+                deferToUser(bookmark, room);
+            }
+            else {
+                Log.warning("Unable to auto-join room '" + roomJID + "': " + ConferenceUtils.getReason(e.getXMPPError()));
+                discard(room);
+            }
+            return;
+        }
+        catch (XMPPException | SmackException e) {
+            Log.warning("Unable to auto-join room '" + roomJID + "'.", e);
+            discard(room);
+            return;
+        }
+
+        joined.incrementAndGet();
+        EventQueue.invokeLater(() -> {
+            final ChatContainer container = SparkManager.getChatManager().getChatContainer();
+            if (!container.getChatRooms().contains(room)) {
+                container.addChatRoom(room);
+            }
+        });
+    }
+
+    private synchronized void deferToUser(BookmarkedConference bookmark, GroupChatRoom room) {
+        interactiveJoins.put(bookmark, room);
+    }
+
+    private synchronized Map<BookmarkedConference, GroupChatRoom> getInteractiveJoins() {
+        return new LinkedHashMap<>(interactiveJoins);
+    }
+
+    /**
+     * Stops a room that could not be joined from receiving messages.
+     */
+    private static void discard(GroupChatRoom room) {
+        SparkManager.getConnection().removeAsyncStanzaListener(room);
+    }
+}
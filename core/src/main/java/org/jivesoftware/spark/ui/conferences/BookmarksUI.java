@@ -21,10 +21,10 @@ import org.jivesoftware.smack.SmackException;
 import org.jivesoftware.smack.XMPPException;
 import org.jivesoftware.smackx.bookmarks.BookmarkManager;
 import org.jivesoftware.smackx.bookmarks.BookmarkedConference;
-import org.jivesoftware.smackx.disco.ServiceDiscoveryManager;
 import org.jivesoftware.smackx.disco.packet.DiscoverInfo;
 import org.jivesoftware.smackx.disco.packet.DiscoverItems;
-import org.jivesoftware.smackx.muc.MultiUserChatManager;
+import org.jivesoftware.spark.LoginTaskManager;
+import org.jivesoftware.spark.ServiceDiscoveryCache;
 import org.jivesoftware.spark.SparkManager;
 import org.jivesoftware.spark.component.JiveTreeCellRenderer;
 import org.jivesoftware.spark.component.JiveTreeNode;
@@ -34,7 +34,6 @@ import org.jivesoftware.spark.plugin.ContextMenuListener;
 import org.jivesoftware.spark.util.GraphicUtils;
 import org.jivesoftware.spark.util.ResourceUtils;
 import org.jivesoftware.spark.util.SwingWorker;
-import org.jivesoftware.spark.util.TaskEngine;
 import org.jivesoftware.spark.util.log.Log;
 import org.jxmpp.util.XmppStringUtils;
 
@@ -162,26 +161,23 @@ public class BookmarksUI extends JPanel {
             Log.error(e);
         }
         
-        final TimerTask bookmarkTask = new TimerTask() {
-            @Override
-            public void run() {
-                Collection<BookmarkedConference> bc = null;
-                try
+        // Show the bookmarks once the services of the server are listed.
+        LoginTaskManager.getInstance().addTask("conference-autojoin", () -> {
+            Collection<BookmarkedConference> bc = null;
+            try
+            {
+                while(bc == null)
                 {
-                    while(bc == null)
-                    {
-                        bc = manager.getBookmarkedConferences();
-                    }
-                    setBookmarks(bc);
+                    bc = manager.getBookmarkedConferences();
                 }
-                catch (XMPPException | SmackException error)
-                {
-                    Log.error(error);
-        		}
+                final Collection<BookmarkedConference> bookmarks = bc;
+                EventQueue.invokeLater( () -> setBookmarks(bookmarks) );
             }
-        };
-        
-        TaskEngine.getInstance().schedule(bookmarkTask, 5000);
+            catch (XMPPException | SmackException error)
+            {
+                Log.error(error);
+            }
+        }, "conference-services");
     });
     }
     private void checkPopup(MouseEvent mouseEvent) {
@@ -322,37 +318,29 @@ public class BookmarksUI extends JPanel {
     }
 
     private void addRegisteredServices() {
-        SwingWorker worker = new SwingWorker() {
-
-            @Override
-            public Object construct() {
-                try {
-                    if (SparkManager.getConnection().isConnected()) {
-                        mucServices = MultiUserChatManager.getInstanceFor( SparkManager.getConnection() ).getServiceNames();
-                    }
-                }
-                catch (XMPPException | SmackException e) {
-                    Log.error("Unable to load MUC Service Names.", e);
+        LoginTaskManager.getInstance().addTask("conference-services", () -> {
+            try {
+                if (SparkManager.getConnection().isConnected()) {
+                    mucServices = ServiceDiscoveryCache.getInstance().findServices( SparkManager.getConnection().getServiceName(), "http://jabber.org/protocol/muc" );
                 }
-                return mucServices;
+            }
+            catch (XMPPException | SmackException e) {
+                Log.error("Unable to load MUC Service Names.", e);
             }
 
-            @Override
-            public void finished() {
-                if (mucServices == null) {
-                    return;
-                }
+            final Collection<String> services = mucServices;
+            if (services == null) {
+                return;
+            }
 
-                for (Object mucService : mucServices) {
-                    String service = (String) mucService;
+            EventQueue.invokeLater( () -> {
+                for (String service : services) {
                     if (!hasService(service)) {
                         addServiceToList(service);
                     }
                 }
-            }
-        };
-
-        worker.start();
+            } );
+        }, "discovery");
     }
 
     /**
@@ -457,10 +445,8 @@ public class BookmarksUI extends JPanel {
 
                         @Override
                         public Object construct() {
-                            ServiceDiscoveryManager discoManager = ServiceDiscoveryManager.getInstanceFor(SparkManager.getConnection());
-
                             try {
-                                discoInfo = discoManager.discoverInfo(conferenceService);
+                                discoInfo = ServiceDiscoveryCache.getInstance().discoverInfo(conferenceService);
                                 for (DiscoverInfo.Identity identity : discoInfo.getIdentities() ) {
                                     if ("conference".equals(identity.getCategory())) {
                                         serviceList.add(conferenceService);
@@ -529,22 +515,21 @@ public class BookmarksUI extends JPanel {
 
     private Collection<String> getConferenceServices(String server) throws Exception {
         List<String> answer = new ArrayList<>();
-        ServiceDiscoveryManager discoManager = ServiceDiscoveryManager.getInstanceFor(SparkManager.getConnection());
-        DiscoverItems items = discoManager.discoverItems(server);
+        List<String> candidates = new ArrayList<>();
+        DiscoverItems items = ServiceDiscoveryCache.getInstance().discoverItems(server);
         for (DiscoverItems.Item item : items.getItems()) {
             if (item.getEntityID().startsWith("conference") || item.getEntityID().startsWith("private")) {
                 answer.add(item.getEntityID());
             }
             else {
-                try {
-                    DiscoverInfo info = discoManager.discoverInfo(item.getEntityID());
-                    if (info.containsFeature("http://jabber.org/protocol/muc")) {
-                        answer.add(item.getEntityID());
-                    }
-                }
-                catch (XMPPException | SmackException e) {
-                    Log.error("Problem when loading conference service.", e);
-                }
+                candidates.add(item.getEntityID());
+            }
+        }
+
+        // Query the remaining items in parallel.
+        for (Map.Entry<String, DiscoverInfo> entry : ServiceDiscoveryCache.getInstance().discoverInfo(candidates).entrySet()) {
+            if (entry.getValue().containsFeature("http://jabber.org/protocol/muc")) {
+                answer.add(entry.getKey());
             }
         }
         return answer;
@@ -571,13 +556,14 @@ public class BookmarksUI extends JPanel {
      */
     public void setBookmarks(Collection<BookmarkedConference> bookmarks) {
 
+        final List<BookmarkedConference> autoJoinBookmarks = new ArrayList<>();
         for (BookmarkedConference bookmark : bookmarks) {
             String serviceName = XmppStringUtils.parseDomain(bookmark.getJid());
             String roomJID = bookmark.getJid();
             String roomName = XmppStringUtils.parseLocalpart(bookmark.getJid());
 
             if (bookmark.isAutoJoin()) {
-                ConferenceUtils.joinConferenceOnSeperateThread(roomName, bookmark.getJid(), bookmark.getPassword());
+                autoJoinBookmarks.add(bookmark);
                 ConferenceUtils.addUnclosableChatRoom(roomJID);
                 autoJoinRooms.add(bookmark.getJid());
             }
@@ -597,6 +583,8 @@ public class BookmarksUI extends JPanel {
 
             tree.expandPath(path);
         }
+
+        AutoJoinScheduler.joinRooms(autoJoinBookmarks);
     }
 
     /**
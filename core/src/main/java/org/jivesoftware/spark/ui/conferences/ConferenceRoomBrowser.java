@@ -21,8 +21,17 @@ import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
-import java.util.TimerTask;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.swing.AbstractAction;
 import javax.swing.Action;
@@ -38,11 +47,9 @@ import javax.swing.JScrollPane;
 import javax.swing.JTable;
 import javax.swing.JTextField;
 import javax.swing.ListSelectionModel;
-import javax.swing.RowFilter;
 import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.table.TableCellRenderer;
-import javax.swing.table.TableModel;
-import javax.swing.table.TableRowSorter;
+import javax.swing.event.TableModelEvent;
 import javax.swing.tree.DefaultTreeModel;
 import javax.swing.tree.TreePath;
 import javax.swing.UIManager;
@@ -87,6 +94,12 @@ import org.jxmpp.util.XmppStringUtils;
 public class ConferenceRoomBrowser extends JPanel implements ActionListener,
 	ComponentListener {
     private static final long serialVersionUID = -4483998189117467048L;
+
+    /**
+     * The maximum number of rooms of which the information is requested concurrently.
+     */
+    private static final int ROOM_INFO_THREADS = 8;
+
     private final RoomList roomsTable;
     private final RolloverButton createButton = new RolloverButton("",
 	    SparkRes.getImageIcon(SparkRes.SMALL_USER1_NEW));
@@ -117,11 +130,24 @@ public class ConferenceRoomBrowser extends JPanel implements ActionListener,
     private int twoButtonWidth;
     private int oneButtonWidth;
 
-    private boolean partialDiscovery = false;
+    /**
+     * Retrieves the information of the listed rooms. Replaced on every refresh,
+     * and shut down when the dialog is closed.
+     */
+    private ExecutorService roomInfoExecutor;
 
-    private JPopupMenu popup;
+    /**
+     * Rows that have been prepared in the background, waiting to be added to the table.
+     */
+    private final Queue<PendingRow> pendingRows = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean rowFlushScheduled = new AtomicBoolean();
 
-    final TableRowSorter<TableModel> sorter;
+    /**
+     * The JIDs of the bookmarked rooms.
+     */
+    private final Set<String> bookmarkedRooms = ConcurrentHashMap.newKeySet();
+
+    private JPopupMenu popup;
 
     /**
      * Creates a new instance of ConferenceRooms.
@@ -207,10 +233,6 @@ public class ConferenceRoomBrowser extends JPanel implements ActionListener,
 	// Add Group Chat Table
 	roomsTable = new RoomList();
 
-    //build model for roomsTable, ignoring the 1st column              
-    sorter = new TableRowSorter<>( roomsTable.getModel() );
-    roomsTable.setRowSorter(sorter);
-    
 	final JScrollPane pane = new JScrollPane(roomsTable);
 	pane.setBackground(Color.white);
 	pane.setForeground(Color.white);
@@ -226,13 +248,7 @@ public class ConferenceRoomBrowser extends JPanel implements ActionListener,
         @Override
         public void keyReleased(KeyEvent e) {
             JTextField textField = (JTextField)e.getSource();
-            String text = textField.getText();
-            List<RowFilter<Object,Object>> filters = new ArrayList<>();
-            filters.add(RowFilter.regexFilter(text, 1));
-            filters.add(RowFilter.regexFilter(text, 2));
-            filters.add(RowFilter.regexFilter(text, 3));
-            RowFilter<Object,Object> af = RowFilter.orFilter(filters);
-            sorter.setRowFilter(af);
+            roomsTable.getDirectoryModel().setFilter(textField.getText());
         }
     });                   
 	joinRoomButton.addActionListener( actionEvent -> joinSelectedRoom() );
@@ -296,85 +312,118 @@ public class ConferenceRoomBrowser extends JPanel implements ActionListener,
        stopLoading.start();
    }
 
-   private void clearTable(){
-       SwingWorker clearTable = new SwingWorker() {
-           
-           @Override
-           public Object construct() {
-               return null;
-           }
-           @Override
-           public void finished() {
-               roomsTable.clearTable();
-           }
-       };
-       clearTable.start();
-   }
-
     private void refreshRoomList(final String serviceName) {
+        RoomInfoCache.getInstance().clear();
+        cancelRoomInfoRequests();
+        roomsTable.getDirectoryModel().clear();
+        loadRoomList(serviceName, false);
+    }
+
+    /**
+     * Retrieves the rooms of the service and adds them to the table. The
+     * information of the rooms is requested concurrently, and each room is
+     * added as soon as its information has arrived. Any rooms that are still
+     * being loaded from a previous invocation are discarded.
+     *
+     * @param serviceName
+     *            the name of the conference service.
+     * @param closeOnError
+     *            true if an error should be shown and the dialog closed if the
+     *            rooms could not be retrieved.
+     */
+    private void loadRoomList(final String serviceName, final boolean closeOnError) {
         startLoadingImg();
-        clearTable();
+        final ExecutorService executor = restartRoomInfoExecutor();
+
+        TaskEngine.getInstance().submit( () -> {
+            loadBookmarkedRooms();
 
-        TimerTask refreshTask = new TimerTask() {
             Collection<HostedRoom> rooms;
+            try {
+                rooms = getRoomList(serviceName);
+            } catch (Exception e) {
+                Log.error("Unable to retrieve list of rooms.", e);
+                stopLoadingImg();
+                return;
+            }
 
-            @Override
-            public void run() {
-                try {
-                    rooms = getRoomList(serviceName);
-                    try { 
-                        for (HostedRoom aResult : rooms) {
-                            RoomObject room = getRoomsAndInfo(aResult);
-                            addRoomToTable(room.getRoomJID(), room.getRoomName(),
-                            room.getNumberOfOccupants());
-                        }
-                        stopLoadingImg();
-                    } catch (Exception e) {
-                        Log.error("Unable to retrieve room list and info.", e);
+            if (rooms == null) {
+                if (closeOnError) {
+                    UIManager.put("OptionPane.okButtonText", Res.getString("ok"));
+                    JOptionPane.showMessageDialog(conferences,
+                        Res.getString("message.conference.info.error"),
+                        Res.getString("title.error"),
+                        JOptionPane.ERROR_MESSAGE);
+                    if (dlg != null) {
+                        dlg.dispose();
                     }
-                } catch ( Exception e1 ) {
-                    System.err.println(e1);
                 }
+                stopLoadingImg();
+                return;
             }
-        };
-        TaskEngine.getInstance().submit(refreshTask);
-    }
 
-    private RoomObject getRoomsAndInfo(final HostedRoom room) {
-        boolean stillSearchForOccupants = true;
-        RoomObject result = null;
-        try {
+            if (rooms.isEmpty()) {
+                stopLoadingImg();
+                return;
+            }
+
+            final AtomicInteger remaining = new AtomicInteger(rooms.size());
             try {
-                String roomName = room.getName();
-                String roomJID = room.getJid();
-                int numberOfOccupants = -1;
-                if (stillSearchForOccupants) {
-                RoomInfo roomInfo = null;
-                try {
-                    roomInfo = MultiUserChatManager.getInstanceFor( SparkManager.getConnection() ).getRoomInfo( roomJID );
-                } catch (Exception e) {
-                    // Nothing to do
+                for (final HostedRoom room : rooms) {
+                    executor.submit( () -> {
+                        try {
+                            publishRow(executor, createRow(room.getJid(), room.getName(), getNumberOfOccupants(room.getJid())));
+                        } catch (Exception e) {
+                            Log.error("Error setting up GroupChatTable", e);
+                        } finally {
+                            if (remaining.decrementAndGet() == 0 && !executor.isShutdown()) {
+                                stopLoadingImg();
+                            }
+                        }
+                    } );
                 }
+            } catch (RejectedExecutionException e) {
+                // The dialog was closed, or the list is being refreshed.
+            }
+        } );
+    }
 
-                if (roomInfo != null) {
-                    numberOfOccupants = roomInfo.getOccupantsCount();
-                    if (numberOfOccupants == -1) {
-                    }
-                } else {
-                }
-                }
+    /**
+     * Cancels the retrieval of rooms that are still being loaded, and creates
+     * the executor for the next batch of rooms.
+     */
+    private synchronized ExecutorService restartRoomInfoExecutor() {
+        cancelRoomInfoRequests();
+        final AtomicInteger threadNumber = new AtomicInteger(1);
+        roomInfoExecutor = Executors.newFixedThreadPool(ROOM_INFO_THREADS, runnable -> {
+            final Thread thread = new Thread(runnable, "room-info-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        return roomInfoExecutor;
+    }
 
-                result = new RoomObject();
-                result.setRoomJID(roomJID);
-                result.setRoomName(roomName);
-                result.setNumberOfOccupants(numberOfOccupants);
-            } catch (Exception e) {
-                Log.error("Error setting up GroupChatTable", e);
-            }
-        } catch (Exception e) {
-            System.err.println(e);
+    /**
+     * Cancels the retrieval of rooms that are still being loaded.
+     */
+    private synchronized void cancelRoomInfoRequests() {
+        if (roomInfoExecutor != null) {
+            roomInfoExecutor.shutdownNow();
+            roomInfoExecutor = null;
+        }
+        pendingRows.clear();
+    }
+
+    /**
+     * Returns the number of occupants of a room, or -1 if the room does not
+     * provide that information.
+     */
+    private static int getNumberOfOccupants(String roomJID) {
+        try {
+            return RoomInfoCache.getInstance().getRoomInfo(roomJID).getOccupantsCount();
+        } catch (XMPPException | SmackException e) {
+            return -1;
         }
-        return result;
     }
 
     private void bookmarkRoom(String serviceName) {
@@ -393,7 +442,7 @@ public class ConferenceRoomBrowser extends JPanel implements ActionListener,
         // Check to see what type of room this is.
         boolean persistent = false;
         try {
-            final RoomInfo roomInfo = MultiUserChatManager.getInstanceFor( SparkManager.getConnection() ).getRoomInfo( roomJID );
+            final RoomInfo roomInfo = RoomInfoCache.getInstance().getRoomInfo( roomJID );
             persistent = roomInfo.isPersistent();
         } catch (Exception e) {
             // Do not return
@@ -423,8 +472,9 @@ public class ConferenceRoomBrowser extends JPanel implements ActionListener,
             final DefaultTreeModel model = (DefaultTreeModel) serviceTree.getModel();
             model.nodeStructureChanged(node);
             serviceTree.expandPath(rootPath);
-            roomsTable.getTableModel().setValueAt(new JLabel(SparkRes.getImageIcon(SparkRes.BOOKMARK_ICON)), selectedRow, 0);
+            roomsTable.getModel().setValueAt(new JLabel(SparkRes.getImageIcon(SparkRes.BOOKMARK_ICON)), selectedRow, 0);
             addBookmarkUI(false);
+            bookmarkedRooms.add(roomJID);
 
             conferences.addBookmark(roomName, roomJID, false);
         } else {
@@ -433,11 +483,12 @@ public class ConferenceRoomBrowser extends JPanel implements ActionListener,
             JiveTreeNode node = (JiveTreeNode) path.getLastPathComponent();
             final DefaultTreeModel model = (DefaultTreeModel) serviceTree.getModel();
             model.removeNodeFromParent(node);
-            roomsTable.getTableModel().setValueAt(new JLabel(SparkRes.getImageIcon(SparkRes.BLANK_IMAGE)), selectedRow, 0);
+            roomsTable.getModel().setValueAt(new JLabel(SparkRes.getImageIcon(SparkRes.BLANK_IMAGE)), selectedRow, 0);
             addBookmarkUI(true);
 
             String jid = (String) node.getAssociatedObject();
             conferences.removeBookmark(jid);
+            bookmarkedRooms.remove(jid);
         }
     }
 
@@ -487,66 +538,6 @@ public class ConferenceRoomBrowser extends JPanel implements ActionListener,
      * Displays the ConferenceRoomBrowser.
      */
     public void invoke() {
-        startLoadingImg();
-        TimerTask invokeThread = new TimerTask() {
-            Collection<HostedRoom> rooms;
-
-            @Override
-            public void run() {
-                try {
-                    rooms = getRoomList(serviceName);
-
-                    if (rooms == null) {
-                    	UIManager.put("OptionPane.okButtonText", Res.getString("ok"));
-                        JOptionPane.showMessageDialog(conferences,
-                            Res.getString("message.conference.info.error"),
-                            Res.getString("title.error"),
-                            JOptionPane.ERROR_MESSAGE);
-                        if (dlg != null) {
-                        dlg.dispose();
-                        }
-                    }else{
-                        try {
-                            for (HostedRoom room : rooms) {
-
-                            String roomName = room.getName();
-                            String roomJID = room.getJid();
-
-                            int numberOfOccupants = -1;
-
-                            // Need to handle the case where the room info does not
-                            // contain the number of occupants. If that is the case,
-                            // we should not continue to request this info from the
-                            // service.
-                            if (!partialDiscovery) {
-                                RoomInfo roomInfo = null;
-                                try {
-                                roomInfo = MultiUserChatManager.getInstanceFor( SparkManager.getConnection() ).getRoomInfo( roomJID );
-                                } catch (Exception e) {
-                                // Nothing to do
-                                }
-
-                                if (roomInfo != null) {
-                                numberOfOccupants = roomInfo
-                                    .getOccupantsCount();
-                                }
-                                if (roomInfo == null || numberOfOccupants == -1) {
-                                partialDiscovery = true;
-                                }
-                            }
-                            addRoomToTable(roomJID, roomName, numberOfOccupants);
-                            }
-                        } catch (Exception e) {
-                            Log.error("Error setting up GroupChatTable", e);
-                        }
-                    }
-                } catch (Exception e) {
-                    Log.error("Unable to retrieve list of rooms.", e);
-                }
-                stopLoadingImg();
-            }
-        };
-
         final JOptionPane pane;
 
         TitlePanel titlePanel;
@@ -575,6 +566,12 @@ public class ConferenceRoomBrowser extends JPanel implements ActionListener,
             Res.getString("title.browse.room.service", serviceName));
         dlg.setModal(false);
         dlg.addComponentListener(this);
+        dlg.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                cancelRoomInfoRequests();
+            }
+        });
 
         dlg.setResizable(true);
         dlg.setContentPane(mainPanel);
@@ -651,16 +648,55 @@ public class ConferenceRoomBrowser extends JPanel implements ActionListener,
         dlg.setVisible(true);
         dlg.toFront();
         dlg.requestFocus();  
-        TaskEngine.getInstance().submit(invokeThread);
+        loadRoomList(serviceName, true);
+    }
+
+    private static String[] getColumnNames() {
+	return new String[] { " ", Res.getString("title.name"),
+		Res.getString("title.address"),
+		Res.getString("title.occupants") };
     }
 
     private final class RoomList extends Table {
 	private static final long serialVersionUID = -731280190627042419L;
 
+	private final RoomDirectoryModel directoryModel;
+	private final JLabelRenderer labelRenderer = new JLabelRenderer(false);
+	private final CenterRenderer centerRenderer = new CenterRenderer();
+
+	/**
+	 * The JID of the selected room, to select it again after the rows have changed.
+	 */
+	private String selectedRoomJID;
+	private boolean restoringSelection;
+
 	public RoomList() {
-	    super(new String[] { " ", Res.getString("title.name"),
-		    Res.getString("title.address"),
-		    Res.getString("title.occupants") });
+	    super(getColumnNames());
+
+	    // Filtering and sorting is done by the model, in the background.
+	    setSortable(false);
+	    setAutoCreateRowSorter(false);
+	    directoryModel = new RoomDirectoryModel(getColumnNames());
+	    setModel(directoryModel);
+	    setRowSorter(null);
+
+	    getTableHeader().addMouseListener(new MouseAdapter() {
+		public void mouseClicked(MouseEvent e) {
+		    final int column = columnAtPoint(e.getPoint());
+		    if (column != -1) {
+			directoryModel.toggleSortOrder(convertColumnIndexToModel(column));
+		    }
+		}
+	    });
+
+	    getSelectionModel().addListSelectionListener( e -> {
+		if (!e.getValueIsAdjusting() && !restoringSelection) {
+		    final int selectedRow = getSelectedRow();
+		    selectedRoomJID = selectedRow == -1 ? null
+			    : getValueAt(selectedRow, RoomDirectoryModel.ADDRESS_COLUMN) + "@" + serviceName;
+		}
+	    } );
+
 	    getColumnModel().setColumnMargin(0);
 	    getColumnModel().getColumn(0).setMaxWidth(30);
 	    getColumnModel().getColumn(3).setMaxWidth(80);
@@ -688,17 +724,42 @@ public class ConferenceRoomBrowser extends JPanel implements ActionListener,
 
 	}
 
+	public RoomDirectoryModel getDirectoryModel() {
+	    return directoryModel;
+	}
+
+	/**
+	 * Keeps the selected room selected when the rows change.
+	 */
+	@Override
+	public void tableChanged(TableModelEvent e) {
+	    final String roomJID = selectedRoomJID;
+	    restoringSelection = true;
+	    try {
+		super.tableChanged(e);
+		if (roomJID != null && directoryModel != null && e.getType() == TableModelEvent.UPDATE
+			&& e.getLastRow() == Integer.MAX_VALUE) {
+		    final int row = directoryModel.indexOf(roomJID);
+		    if (row != -1) {
+			setRowSelectionInterval(row, row);
+		    }
+		}
+	    } finally {
+		restoringSelection = false;
+	    }
+	}
+
 	// Handle image rendering correctly
 	public TableCellRenderer getCellRenderer(int row, int column) {
 	    Object o = getValueAt(row, column);
 	    if (o != null) {
 		if (o instanceof JLabel) {
-		    return new JLabelRenderer(false);
+		    return labelRenderer;
 		}
 	    }
 
 	    if (column == 3) {
-		return new CenterRenderer();
+		return centerRenderer;
 	    }
 
 	    return super.getCellRenderer(row, column);
@@ -867,58 +928,77 @@ public class ConferenceRoomBrowser extends JPanel implements ActionListener,
      */
     private void addRoomToTable(final String jid, final String roomName,
 	    final int numberOfOccupants) {
-        SwingWorker addRoomThread = new SwingWorker() {
+        TaskEngine.getInstance().submit( TaskEngine.Category.NETWORK, () -> publishRow(null, createRow(jid, roomName, numberOfOccupants)) );
+    }
 
-            @Override
-            public Object construct() {
-                JLabel iconLabel = new JLabel();
-                iconLabel.setAlignmentX(JLabel.RIGHT_ALIGNMENT);
-                boolean isbookmark = false;
-                boolean ispassword = false;
-
-                ImageIcon bookmarkicon = SparkRes.getImageIcon(SparkRes.BOOKMARK_ICON);
-                ImageIcon passwordicon = SparkRes.getImageIcon(SparkRes.LOCK_16x16);
-
-                if (isBookmarked(jid)) {
-                    isbookmark = true;
-                    iconLabel.setIcon(SparkRes.getImageIcon(SparkRes.BOOKMARK_ICON));
-                }
-                if (isPasswordProtected(jid)) {
-                    ispassword = true;
-                }
+    /**
+     * Creates the table row of a room. This may block while the room
+     * information is retrieved, so it should not be invoked on the event
+     * dispatch thread.
+     */
+    private RoomDirectoryModel.Room createRow(final String jid, final String roomName,
+	    final int numberOfOccupants) {
+        JLabel iconLabel = new JLabel();
+        iconLabel.setAlignmentX(JLabel.RIGHT_ALIGNMENT);
+        boolean isbookmark = false;
+        boolean ispassword = false;
 
-                if (isbookmark && ispassword) {
-                    Image img = ImageCombiner.combine(bookmarkicon, passwordicon);
-                    iconLabel.setIcon(new ImageIcon(img));
-                } else if (isbookmark) {
-                    iconLabel.setIcon(bookmarkicon);
-                } else if (ispassword) {
-                    Image img = ImageCombiner.returnTransparentImage(
-                        passwordicon.getIconWidth(), passwordicon.getIconHeight());
+        ImageIcon bookmarkicon = SparkRes.getImageIcon(SparkRes.BOOKMARK_ICON);
+        ImageIcon passwordicon = SparkRes.getImageIcon(SparkRes.LOCK_16x16);
 
-                    Image combined = ImageCombiner.combine(new ImageIcon(img),
-                        passwordicon);
+        if (isBookmarked(jid)) {
+            isbookmark = true;
+            iconLabel.setIcon(SparkRes.getImageIcon(SparkRes.BOOKMARK_ICON));
+        }
+        if (isPasswordProtected(jid)) {
+            ispassword = true;
+        }
 
-                    iconLabel.setIcon(new ImageIcon(combined));
-                }
+        if (isbookmark && ispassword) {
+            Image img = ImageCombiner.combine(bookmarkicon, passwordicon);
+            iconLabel.setIcon(new ImageIcon(img));
+        } else if (isbookmark) {
+            iconLabel.setIcon(bookmarkicon);
+        } else if (ispassword) {
+            Image img = ImageCombiner.returnTransparentImage(
+                passwordicon.getIconWidth(), passwordicon.getIconHeight());
 
-                String occupants = Integer.toString(numberOfOccupants);
-                if (numberOfOccupants == -1) {
-                    occupants = "n/a";
-                }
+            Image combined = ImageCombiner.combine(new ImageIcon(img),
+                passwordicon);
 
-                final Object[] insertRoom = new Object[] { iconLabel, roomName,
-                    XmppStringUtils.parseLocalpart(jid), occupants };
-                return insertRoom;
-            }
-            
-            @Override
-            public void finished() {
-                Object[] insertRoom = (Object[])get();
-                roomsTable.getTableModel().addRow(insertRoom);
-            }
-        };
-        addRoomThread.start();
+            iconLabel.setIcon(new ImageIcon(combined));
+        }
+
+        return new RoomDirectoryModel.Room(jid, iconLabel, roomName,
+            XmppStringUtils.parseLocalpart(jid), numberOfOccupants);
+    }
+
+    /**
+     * Queues a row to be added to the table. Rows that arrive in quick
+     * succession are added to the table in a single event.
+     *
+     * @param executor
+     *            the executor that created the row, or null if it does not
+     *            belong to a list of rooms that is being loaded.
+     * @param row
+     *            the row.
+     */
+    private void publishRow(ExecutorService executor, RoomDirectoryModel.Room row) {
+        pendingRows.add(new PendingRow(executor, row));
+        if (rowFlushScheduled.compareAndSet(false, true)) {
+            EventQueue.invokeLater( () -> {
+                rowFlushScheduled.set(false);
+                final List<RoomDirectoryModel.Room> rows = new ArrayList<>();
+                PendingRow pendingRow;
+                while ((pendingRow = pendingRows.poll()) != null) {
+                    // Skip rows of a list that was cancelled by closing the dialog or refreshing the list.
+                    if (pendingRow.executor == null || !pendingRow.executor.isShutdown()) {
+                        rows.add(pendingRow.row);
+                    }
+                }
+                roomsTable.getDirectoryModel().addRooms(rows);
+            } );
+        }
     }
 
     /**
@@ -929,16 +1009,22 @@ public class ConferenceRoomBrowser extends JPanel implements ActionListener,
      * @return true if the room is bookmarked.
      */
     private boolean isBookmarked(String roomJID) {
-	for (Object o : conferences.getBookmarks()) {
-	    BookmarkedConference bk = (BookmarkedConference) o;
-	    String jid = bk.getJid();
-	    if (jid != null && roomJID.equals(jid)) {
-		return true;
+	return bookmarkedRooms.contains(roomJID);
+    }
+
+    /**
+     * Reads the bookmarked rooms, so that they can be looked up quickly while
+     * the rooms of the service are being listed.
+     */
+    private void loadBookmarkedRooms() {
+	final Set<String> jids = new HashSet<>();
+	for (BookmarkedConference bookmark : conferences.getBookmarks()) {
+	    if (bookmark.getJid() != null) {
+		jids.add(bookmark.getJid());
 	    }
 	}
-
-	return false;
-
+	bookmarkedRooms.retainAll(jids);
+	bookmarkedRooms.addAll(jids);
     }
 
     /**
@@ -951,7 +1037,7 @@ public class ConferenceRoomBrowser extends JPanel implements ActionListener,
 	boolean result = false;
 	try {
 
-	    RoomInfo rif = MultiUserChatManager.getInstanceFor( SparkManager.getConnection() ).getRoomInfo( roomjid );
+	    RoomInfo rif = RoomInfoCache.getInstance().getRoomInfo( roomjid );
 
 	    result = rif.isMembersOnly() || rif.isPasswordProtected();
 
@@ -1000,35 +1086,14 @@ public class ConferenceRoomBrowser extends JPanel implements ActionListener,
 	}
     }
 
-    private class RoomObject {
-	private String roomName;
-	private String roomJID;
-
-	int numberOfOccupants;
-
-	public String getRoomName() {
-	    return roomName;
-	}
-
-	public void setRoomName(String roomName) {
-	    this.roomName = roomName;
-	}
-
-	public String getRoomJID() {
-	    return roomJID;
-	}
-
-	public void setRoomJID(String roomJID) {
-	    this.roomJID = roomJID;
-	}
-
-	public int getNumberOfOccupants() {
-	    return numberOfOccupants;
-	}
+    private static class PendingRow {
+        private final ExecutorService executor;
+        private final RoomDirectoryModel.Room row;
 
-	public void setNumberOfOccupants(int numberOfOccupants) {
-	    this.numberOfOccupants = numberOfOccupants;
-	}
+        private PendingRow(ExecutorService executor, RoomDirectoryModel.Room row) {
+            this.executor = executor;
+            this.row = row;
+        }
     }
 
     public void componentHidden(ComponentEvent e) {
@@ -17,11 +17,9 @@ package org.jivesoftware.spark.ui.conferences;
 
 import org.jivesoftware.resource.SparkRes;
 import org.jivesoftware.resource.Res;
-import org.jivesoftware.smack.SmackException;
-import org.jivesoftware.smack.XMPPException;
-import org.jivesoftware.smackx.disco.ServiceDiscoveryManager;
 import org.jivesoftware.smackx.disco.packet.DiscoverInfo;
 import org.jivesoftware.smackx.disco.packet.DiscoverItems;
+import org.jivesoftware.spark.ServiceDiscoveryCache;
 import org.jivesoftware.spark.SparkManager;
 import org.jivesoftware.spark.component.RolloverButton;
 import org.jivesoftware.spark.component.TitlePanel;
@@ -49,6 +47,7 @@ import java.beans.PropertyChangeListener;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public class ConferenceServiceBrowser {
 
@@ -141,22 +140,21 @@ public class ConferenceServiceBrowser {
 
     public Collection<String> getConferenceServices(String server) throws Exception {
         List<String> answer = new ArrayList<>();
-        ServiceDiscoveryManager discoManager = ServiceDiscoveryManager.getInstanceFor(SparkManager.getConnection());
-        DiscoverItems items = discoManager.discoverItems(server);
+        List<String> candidates = new ArrayList<>();
+        DiscoverItems items = ServiceDiscoveryCache.getInstance().discoverItems(server);
         for (DiscoverItems.Item item : items.getItems() ) {
             if (item.getEntityID().startsWith("conference") || item.getEntityID().startsWith("private")) {
                 answer.add(item.getEntityID());
             }
             else {
-                try {
-                    DiscoverInfo info = discoManager.discoverInfo(item.getEntityID());
-                    if (info.containsFeature("http://jabber.org/protocol/muc")) {
-                        answer.add(item.getEntityID());
-                    }
-                }
-                catch (XMPPException | SmackException e) {
-                    // Nothing to do
-                }
+                candidates.add(item.getEntityID());
+            }
+        }
+
+        // Query the remaining items in parallel.
+        for (Map.Entry<String, DiscoverInfo> entry : ServiceDiscoveryCache.getInstance().discoverInfo(candidates).entrySet()) {
+            if (entry.getValue().containsFeature("http://jabber.org/protocol/muc")) {
+                answer.add(entry.getKey());
             }
         }
         return answer;
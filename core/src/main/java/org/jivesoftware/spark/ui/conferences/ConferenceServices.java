@@ -30,6 +30,7 @@ import org.jivesoftware.smackx.muc.InvitationListener;
 import org.jivesoftware.smackx.muc.MultiUserChat;
 import org.jivesoftware.smackx.muc.MultiUserChatManager;
 import org.jivesoftware.spark.ChatManager;
+import org.jivesoftware.spark.LoginTaskManager;
 import org.jivesoftware.spark.SparkManager;
 import org.jivesoftware.spark.Workspace;
 import org.jivesoftware.spark.plugin.ContextMenuListener;
@@ -38,7 +39,6 @@ import org.jivesoftware.spark.ui.rooms.ChatRoomImpl;
 import org.jivesoftware.spark.ui.rooms.GroupChatRoom;
 import org.jivesoftware.spark.util.ModelUtil;
 import org.jivesoftware.spark.util.SwingWorker;
-import org.jivesoftware.spark.util.TaskEngine;
 import org.jivesoftware.spark.util.UIComponentRegistry;
 import org.jivesoftware.spark.util.log.Log;
 import org.jivesoftware.sparkimpl.plugin.alerts.SparkToaster;
@@ -54,7 +54,6 @@ import java.awt.event.MouseEvent;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.TimerTask;
 
 /**
  * Conference plugin is reponsible for the initial loading of MultiUser Chat support. To disable plugin,
@@ -132,26 +131,20 @@ public class ConferenceServices implements InvitationListener {
      * Load all bookmarked data.
      */
     public void loadConferenceBookmarks() {
-    	final TimerTask bookmarkLoader = new TimerTask(){
+        LoginTaskManager.getInstance().addTask("conference-bookmarks", () -> {
+            Collection<BookmarkedConference> bc = null;
 
-			@Override
-			public void run() {
-				Collection<BookmarkedConference> bc = null;
-
-                try {
-                    while (bc == null) {
-                        BookmarkManager manager = BookmarkManager.getBookmarkManager(SparkManager.getConnection());
-                        bc = manager.getBookmarkedConferences();
-                    }
-                } catch (XMPPException | SmackException error) {
-                    Log.error(error);
+            try {
+                while (bc == null) {
+                    BookmarkManager manager = BookmarkManager.getBookmarkManager(SparkManager.getConnection());
+                    bc = manager.getBookmarkedConferences();
                 }
-                bookmarksUI.loadUI();
-                addBookmarksUI();
-			}
-    		
-    	};
-    	TaskEngine.getInstance().schedule(bookmarkLoader, 500);
+            } catch (XMPPException | SmackException error) {
+                Log.error(error);
+            }
+            bookmarksUI.loadUI();
+            addBookmarksUI();
+        });
     }
 
     protected void addBookmarksUI() {
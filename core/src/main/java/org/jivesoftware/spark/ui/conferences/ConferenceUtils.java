@@ -16,6 +16,7 @@
 package org.jivesoftware.spark.ui.conferences;
 
 import org.jivesoftware.resource.Res;
+import org.jivesoftware.smack.SmackConfiguration;
 import org.jivesoftware.smack.SmackException;
 import org.jivesoftware.smack.XMPPException;
 import org.jivesoftware.smack.packet.Presence;
@@ -24,6 +25,7 @@ import org.jivesoftware.smackx.bookmarks.BookmarkManager;
 import org.jivesoftware.smackx.bookmarks.BookmarkedConference;
 import org.jivesoftware.smackx.disco.ServiceDiscoveryManager;
 import org.jivesoftware.smackx.disco.packet.DiscoverInfo;
+import org.jivesoftware.smackx.muc.DiscussionHistory;
 import org.jivesoftware.smackx.muc.HostedRoom;
 import org.jivesoftware.smackx.muc.MultiUserChat;
 import org.jivesoftware.smackx.muc.MultiUserChatManager;
@@ -188,14 +190,7 @@ public class ConferenceUtils {
         {
             try
             {
-                if ( ModelUtil.hasLength( password ) )
-                {
-                    groupChat.join( nickname, password );
-                }
-                else
-                {
-                    groupChat.join( nickname );
-                }
+                join( groupChat, null, nickname, password );
                 changePresenceToAvailableIfInvisible();
             }
             catch ( XMPPException | SmackException ex )
@@ -214,6 +209,48 @@ public class ConferenceUtils {
         return errors;
     }
 
+    /**
+     * Joins a chat room, only requesting the history that is not in the transcript of its room yet.
+     *
+     * @param groupChat the <code>MultiUserChat</code>
+     * @param watermark the history watermark of the room that shows the chat, or null to request the default history.
+     * @param nickname  the nickname of the user.
+     * @param password  the password to join the room with, or null if the room has no password.
+     * @throws XMPPException  if the room could not be joined.
+     * @throws SmackException if the server did not respond or the connection was lost.
+     */
+    public static void join( MultiUserChat groupChat, RoomHistoryWatermark watermark, String nickname, String password ) throws XMPPException, SmackException
+    {
+        join( groupChat, watermark, nickname, password, -1, SmackConfiguration.getDefaultPacketReplyTimeout() );
+    }
+
+    /**
+     * Joins a room, requesting at most a number of messages of the history that is not in the transcript of its
+     * room yet.
+     *
+     * @param groupChat  the room to join.
+     * @param watermark  the history watermark of the room that shows the chat, or null to request the default history.
+     * @param nickname   the nickname of the user.
+     * @param password   the password to join the room with, or null if the room has no password.
+     * @param maxStanzas the maximum number of history messages to request, or -1 for no limit.
+     * @param timeout    the number of milliseconds to wait for the server to confirm the join.
+     * @throws XMPPException  if the room could not be joined.
+     * @throws SmackException if the server did not respond or the connection was lost.
+     */
+    static void join( MultiUserChat groupChat, RoomHistoryWatermark watermark, String nickname, String password, int maxStanzas, long timeout ) throws XMPPException, SmackException
+    {
+        DiscussionHistory history = watermark != null ? watermark.getDiscussionHistory() : null;
+        if ( maxStanzas >= 0 )
+        {
+            if ( history == null )
+            {
+                history = new DiscussionHistory();
+            }
+            history.setMaxStanzas( maxStanzas );
+        }
+        groupChat.join( nickname, ModelUtil.hasLength( password ) ? password : null, history, timeout );
+    }
+
     /**
      * Invites users to an existing room.
      *
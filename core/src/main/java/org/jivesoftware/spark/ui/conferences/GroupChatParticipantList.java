@@ -25,8 +25,6 @@ import java.awt.Point;
 import java.awt.event.ActionEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -35,7 +33,6 @@ import java.util.Map;
 
 import javax.swing.AbstractAction;
 import javax.swing.Action;
-import javax.swing.DefaultListModel;
 import javax.swing.Icon;
 import javax.swing.ImageIcon;
 import javax.swing.JComponent;
@@ -48,13 +45,11 @@ import javax.swing.JPanel;
 import javax.swing.JPopupMenu;
 import javax.swing.JScrollPane;
 import javax.swing.ListCellRenderer;
-import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
 
 import org.jdesktop.swingx.JXList;
 import org.jivesoftware.resource.Res;
 import org.jivesoftware.resource.SparkRes;
-import org.jivesoftware.smack.PresenceListener;
 import org.jivesoftware.smack.SmackException;
 import org.jivesoftware.smack.XMPPException;
 import org.jivesoftware.smack.packet.ExtensionElement;
@@ -97,20 +92,16 @@ public class GroupChatParticipantList extends JPanel {
 
 	private UserManager userManager = SparkManager.getUserManager();
 
-	private DefaultListModel model = new DefaultListModel();
+	private final ParticipantListModel model = new ParticipantListModel();
 
 	private JXList participantsList;
 
-	private PresenceListener listener = null;
-
 	private Map<String, String> invitees = new HashMap<>();
 
 	private boolean allowNicknameChange = true;
 
 	private DiscoverInfo roomInformation;
 
-	private List<JLabel> users = new ArrayList<>();
-
 	private Map<String,MUCRole> usersToRoles = new HashMap<>();
 	private Map<String,MUCAffiliation> usersToAffiliation = new HashMap<>();
 
@@ -183,45 +174,7 @@ public class GroupChatParticipantList extends JPanel {
         ChatManager.NOTIFICATION_COLOR);
     } );
 
-	listener = p -> SwingUtilities.invokeLater( () -> {
-if (p.getError() != null) {
-if (p.getError()
-.getCondition()
-.equals(XMPPError.Condition.conflict
-.toString())) {
-return;
-}
-}
-final String userid = p.getFrom();
-
-String displayName = XmppStringUtils.parseResource(userid);
-userMap.put(displayName, userid);
-
-if (p.getType() == Presence.Type.available) {
-addParticipant(userid, p);
-agentInfoPanel.setVisible(true);
-	groupChatRoom.validate();
-} else {
-removeUser(displayName);
-}
-
-// When joining a room, check if the current user is an owner/admin. If so, the UI should allow the current
-// user to change settings of this MUC.
-final MUCUser mucUserEx = p.getExtension( MUCUser.ELEMENT, MUCUser.NAMESPACE );
-if (mucUserEx != null && mucUserEx.getStatus().contains( MUCUser.Status.create( 110 ) ) ) // 110 = Inform user that presence refers to itself
-{
-final MUCItem item = mucUserEx.getItem();
-if ( item != null )
-{
-if ( item.getAffiliation() == MUCAffiliation.admin || item.getAffiliation() == MUCAffiliation.owner )
-{
-groupChatRoom.notifySettingsAccessRight();
-}
-}
-}
-} );
-
-	chat.addParticipantListener(listener);
+	// Occupant presences are delivered in batches by the room, see handlePresences(List).
 
 	ServiceDiscoveryManager disco = ServiceDiscoveryManager
 		.getInstanceFor(SparkManager.getConnection());
@@ -233,6 +186,73 @@ groupChatRoom.notifySettingsAccessRight();
 	}
     }
 
+	/**
+	 * Applies the presences of several occupants to the participant list, such
+	 * as the presences that a room sends when it is joined. The list is sorted
+	 * and repainted once for all of them. This is invoked by the
+	 * {@link GroupChatRoom} for every batch of presences it receives.
+	 *
+	 * @param presences the presences, in the order they were received.
+	 */
+	public void handlePresences(List<Presence> presences) {
+		boolean joined = false;
+		model.beginBatch();
+		try {
+			for (Presence p : presences) {
+				joined |= applyPresence(p);
+			}
+		} finally {
+			model.endBatch();
+		}
+
+		if (joined) {
+			agentInfoPanel.setVisible(true);
+			groupChatRoom.validate();
+		}
+	}
+
+	/**
+	 * @return true if the presence is that of an available occupant.
+	 */
+	private boolean applyPresence(Presence p) {
+		if (p.getError() != null) {
+			if (p.getError().getCondition().equals(XMPPError.Condition.conflict.toString())) {
+				return false;
+			}
+		}
+		final String userid = p.getFrom();
+
+		String displayName = XmppStringUtils.parseResource(userid);
+		if (!ModelUtil.hasLength(displayName)) {
+			// Sent by the room itself rather than by an occupant.
+			return false;
+		}
+		userMap.put(displayName, userid);
+
+		final boolean available = p.getType() == Presence.Type.available;
+		if (available) {
+			addParticipant(userid, p);
+		} else {
+			removeUser(displayName);
+		}
+
+		// When joining a room, check if the current user is an owner/admin. If so, the UI should allow the current
+		// user to change settings of this MUC.
+		final MUCUser mucUserEx = p.getExtension( MUCUser.ELEMENT, MUCUser.NAMESPACE );
+		if (mucUserEx != null && mucUserEx.getStatus().contains( MUCUser.Status.create( 110 ) ) ) // 110 = Inform user that presence refers to itself
+		{
+			final MUCItem item = mucUserEx.getItem();
+			if ( item != null )
+			{
+				if ( item.getAffiliation() == MUCAffiliation.admin || item.getAffiliation() == MUCAffiliation.owner )
+				{
+					groupChatRoom.notifySettingsAccessRight();
+				}
+			}
+		}
+		return available;
+	}
+
 	public void chatRoomOpened(ChatRoom room) {
 		if (room != groupChatRoom) {
 			return;
@@ -356,8 +376,11 @@ groupChatRoom.notifySettingsAccessRight();
 	usersToRoles.put(participantJID, role);
 	usersToAffiliation.put(participantJID, affiliation);
 
+	final boolean showingRoleIcons = _localPreferences.isShowingRoleIcons();
+	model.setSortByRank(showingRoleIcons);
+
 	Icon icon;
-	if (_localPreferences.isShowingRoleIcons()) {
+	if (showingRoleIcons) {
 	    icon = getIconForRole(role, affiliation);
 	} else {
 	    icon = PresenceManager.getIconFromPresence(presence);
@@ -366,16 +389,7 @@ groupChatRoom.notifySettingsAccessRight();
 		}
 	}
 
-	if (!exists(nickname)) {
-	    addUser(icon, nickname);
-	} else {
-	    int index = getIndex(nickname);
-	    if (index != -1) {
-		final JLabel userLabel = new JLabel(nickname, icon,
-			JLabel.HORIZONTAL);
-		model.setElementAt(userLabel, index);
-	    }
-	}
+	model.put(nickname, icon, getCompareValue(role, affiliation));
     }
 
 	/**
@@ -429,23 +443,27 @@ groupChatRoom.notifySettingsAccessRight();
 		}
     }
 
-	public void userHasLeft(String userid) {
-		int index = getIndex(userid);
+	/**
+	 * Removes all occupants from the participant list, such as when the room is
+	 * about to be joined again and the room will send the presences of the
+	 * current occupants.
+	 */
+	public void clear() {
+		model.clear();
+		userMap.clear();
+		usersToRoles.clear();
+		usersToAffiliation.clear();
+	}
 
-		if (index != -1) {
+	public void userHasLeft(String userid) {
+		if (model.contains(userid)) {
 			removeUser(userid);
 			userMap.remove(userid);
 		}
 	}
 
 	protected boolean exists(String nickname) {
-		for (int i = 0; i < model.getSize(); i++) {
-			final JLabel userLabel = (JLabel) model.getElementAt(i);
-			if (userLabel.getText().equals(nickname)) {
-				return true;
-			}
-		}
-		return false;
+		return model.contains(nickname);
 	}
 
 	protected String getSelectedUser() {
@@ -646,7 +664,7 @@ groupChatRoom.notifySettingsAccessRight();
 
 	if (index != -1) {
 	    participantsList.setSelectedIndex(index);
-	    final JLabel userLabel = (JLabel) model.getElementAt(index);
+	    final JLabel userLabel = model.getElementAt(index);
 	    final String selectedUser = userLabel.getText();
 	    final String groupJID = userMap.get(selectedUser);
 	    String groupJIDNickname = XmppStringUtils.parseResource(groupJID);
@@ -697,11 +715,7 @@ groupChatRoom.notifySettingsAccessRight();
 		    private static final long serialVersionUID = -3647279452501661970L;
 
 		    public void actionPerformed(ActionEvent actionEvent) {
-			int index = getIndex(selectedUser);
-
-			if (index != -1) {
-			    model.removeElementAt(index);
-			}
+			model.remove(selectedUser);
 		    }
 		};
 
@@ -803,8 +817,7 @@ groupChatRoom.notifySettingsAccessRight();
 			icon = SparkRes.getImageIcon(SparkRes.BRICKWALL_IMAGE);
 		    }
 
-		    JLabel label = new JLabel(user, icon, JLabel.HORIZONTAL);
-		    model.setElementAt(label, index);
+		    model.setIcon(user, icon);
 		}
 	    };
 
@@ -846,8 +859,6 @@ groupChatRoom.notifySettingsAccessRight();
 		    } else {
 			grantVoice(selectedUser);
 		    }
-		    Collections.sort(users, labelComp);
-
 		}
 	    };
 
@@ -893,7 +904,6 @@ groupChatRoom.notifySettingsAccessRight();
 		    } else {
 			revokeMember(selectedUser);
 		    }
-		    Collections.sort(users, labelComp);
 	        }
 	    };
 	    memberAction.putValue(Action.SMALL_ICON,
@@ -919,8 +929,6 @@ groupChatRoom.notifySettingsAccessRight();
 		    } else {
 			revokeModerator(selectedUser);
 		    }
-		    Collections.sort(users, labelComp);
-
 		}
 	    };
 
@@ -947,8 +955,6 @@ groupChatRoom.notifySettingsAccessRight();
 		    } else {
 			revokeAdmin(selectedUser);
 		    }
-		    Collections.sort(users, labelComp);
-
 	        }
 	    };
 	    adminAction.putValue(Action.SMALL_ICON,
@@ -977,8 +983,6 @@ groupChatRoom.notifySettingsAccessRight();
 		    } else {
 			revokeOwner(selectedUser);
 		    }
-		    Collections.sort(users, labelComp);
-
 	        }
 	    };
 	    ownerAction.putValue(Action.SMALL_ICON,
@@ -1062,13 +1066,7 @@ groupChatRoom.notifySettingsAccessRight();
 	}
 
 	public int getIndex(String name) {
-		for (int i = 0; i < model.getSize(); i++) {
-			JLabel label = (JLabel) model.getElementAt(i);
-			if (label.getText().equals(name)) {
-				return i;
-			}
-		}
-		return -1;
+		return model.indexOf(name);
 	}
 
 	/**
@@ -1079,21 +1077,7 @@ groupChatRoom.notifySettingsAccessRight();
 	 */
 	public synchronized void removeUser(String displayName) {
 		try {
-			for (int i = 0; i < users.size(); i++) {
-				JLabel label = users.get(i);
-				if (label.getText().equals(displayName)) {
-					users.remove(label);
-					model.removeElement(label);
-				}
-			}
-
-			for (int i = 0; i < model.size(); i++) {
-				JLabel label = (JLabel) model.getElementAt(i);
-				if (label.getText().equals(displayName)) {
-					users.remove(label);
-					model.removeElement(label);
-				}
-			}
+			model.remove(displayName);
 		} catch (Exception e) {
 			Log.error(e);
 		}
@@ -1109,16 +1093,7 @@ groupChatRoom.notifySettingsAccessRight();
 	 */
 	public synchronized void addUser(Icon userIcon, String nickname) {
 		try {
-			final JLabel user = new JLabel(nickname, userIcon,
-					JLabel.HORIZONTAL);
-			users.add(user);
-
-			// Sort users alpha.
-			Collections.sort(users, labelComp);
-
-			// Add to the correct position in the model.
-			final int index = users.indexOf(user);
-			model.insertElementAt(user, index);
+			model.put(nickname, userIcon, ParticipantListModel.RANK_NONE);
 		} catch (Exception e) {
 			Log.error(e);
 		}
@@ -1127,70 +1102,15 @@ groupChatRoom.notifySettingsAccessRight();
     /**
      * Sorts ContactItems.
      */
-    final Comparator<JLabel> labelComp = new Comparator<JLabel>() {
-
-	public int compare(JLabel item1, JLabel item2) {
-	    if (_localPreferences.isShowingRoleIcons()) {
-		return compareWithRole(item1, item2);
-	    } else {
-		return compareWithoutRole(item1.getText(), item2.getText());
-	    }
-
-	}
-
-	private int compareWithoutRole(String s1, String s2) {
-	    return (s1.toLowerCase().compareTo(s2.toLowerCase()));
-	}
-
-	/**
-	 * Comparaes 2 items by their Role and Affiliation<br>
-	 * affiliation > role<br>
-	 * owner > admin > moderator > member > participant > visitor
-	 * @param item1
-	 * @param item2
-	 * @return -1, 0 or 1
-	 */
-	private int compareWithRole(JLabel item1, JLabel item2) {
-
-	   int user1 = 100;
-	    int user2 = 100;
-	    try {
-		// append Room-JID to UserLabel
-		String jid1 = chat.getRoom() + "/" + item1.getText();
-		String jid2 = chat.getRoom() + "/" + item2.getText();
-
-		user1 = getCompareValue(jid1);
-		user2 = getCompareValue(jid2);
-
-	    } catch (Exception e) {
-		// Sometimes theres no Occupant with that jid, dunno why
-	    }
-
-	    int result = 0;
-	    if (user1 == user2) {
-		result = compareWithoutRole(item1.getText(), item2.getText());
-
-	    } else {
-		// a=owner,b=admin, m=moderator, n=member , p=participant, v=visitor
-		// a < b < m < n < p < v
-		if (user1 < user2)
-		    result = -1;
-		if (user1 > user2)
-		    result = 1;
-	    }
-	    return result;
-	}
-    };
+    final Comparator<JLabel> labelComp = model.getComparator();
 
     /**
-     * check if we have an affiliation to this room<br>
-     * and map it to an integer<br>
+     * Maps the affiliation and role of an occupant to an integer,<br>
+     * affiliation > role<br>
      * 0=owner,1=admin.....5=visitor<br>
      */
-    private int getCompareValue(String jid)
+    private static int getCompareValue(MUCRole role, MUCAffiliation affiliation)
 	{
-		MUCRole role = usersToRoles.get( jid );
-		MUCAffiliation affiliation = usersToAffiliation.get( jid );
 		switch ( affiliation )
 		{
 			case owner:
@@ -1209,10 +1129,10 @@ groupChatRoom.notifySettingsAccessRight();
 					case visitor:
 						return 5;
 					default:
-						return 100;
+						return ParticipantListModel.RANK_NONE;
 				}
 			default:
-				return 100;
+				return ParticipantListModel.RANK_NONE;
 		}
 	}
 
@@ -1265,7 +1185,7 @@ groupChatRoom.notifySettingsAccessRight();
         return userMap;
     }
 
-    protected DefaultListModel getModel() {
+    protected ParticipantListModel getModel() {
         return model;
     }
 
@@ -1275,10 +1195,6 @@ groupChatRoom.notifySettingsAccessRight();
 
     }
 
-    protected PresenceListener getListener() {
-        return listener;
-    }
-
     protected Map<String, String> getInvitees() {
         return invitees;
     }
@@ -1292,7 +1208,7 @@ groupChatRoom.notifySettingsAccessRight();
     }
 
     protected List<JLabel> getUsers() {
-        return users;
+        return model.getLabels();
     }
 
     protected Comparator<JLabel> getLabelComp() {
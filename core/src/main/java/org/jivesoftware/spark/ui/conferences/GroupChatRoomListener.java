@@ -94,12 +94,7 @@ public class GroupChatRoomListener implements ChatRoomListener {
 
     @Override
 	public void chatRoomClosed(ChatRoom room) {
-		if (!(room instanceof GroupChatRoom)) {
-			return;
-		}
-		GroupChatRoom groupChatRoom = (GroupChatRoom)room;
-		MultiUserChat chat = groupChatRoom.getMultiUserChat();		
-		chat.removeParticipantListener(groupChatRoom.getConferenceRoomInfo().getListener());		
+		// The participant list is updated by the room itself, which stops doing so once it is closed.
 	}
 
 	@Override
@@ -49,6 +49,8 @@ public class JoinRoomSwingWorker extends SwingWorker
 
     private SwingWorker followUp;
 
+    private GroupChatRoom chatRoom;
+
     public JoinRoomSwingWorker( String roomJID )
     {
         this( roomJID, null, null, XmppStringUtils.parseLocalpart( roomJID ) );
@@ -67,6 +69,17 @@ public class JoinRoomSwingWorker extends SwingWorker
         this.tabTitle = tabTitle;
     }
 
+    /**
+     * Set the UI component to use when the room is not in the chat container yet, instead of creating a new one. This
+     * is used to retry joining a room for which a UI component was created already.
+     *
+     * @param chatRoom a UI component for the room (can be null).
+     */
+    void setChatRoom( GroupChatRoom chatRoom )
+    {
+        this.chatRoom = chatRoom;
+    }
+
     /**
      * Set a follow-up action, to be executed upon successful join of the room.
      *
@@ -97,7 +110,7 @@ public class JoinRoomSwingWorker extends SwingWorker
             }
             catch ( ChatRoomNotFoundException e )
             {
-                room = UIComponentRegistry.createGroupChatRoom( groupChat );
+                room = chatRoom != null ? chatRoom : UIComponentRegistry.createGroupChatRoom( groupChat );
                 ((GroupChatRoom) room).setPassword( password );
                 ((GroupChatRoom) room).setTabTitle( tabTitle );
             }
@@ -130,14 +143,7 @@ public class JoinRoomSwingWorker extends SwingWorker
                     return null;
                 }
 
-                if ( ModelUtil.hasLength( password ) )
-                {
-                    groupChat.join( nickname, password );
-                }
-                else
-                {
-                    groupChat.join( nickname );
-                }
+                ConferenceUtils.join( groupChat, ( (GroupChatRoom) room ).getHistoryWatermark(), nickname, password );
             }
             return room;
         }
@@ -0,0 +1,317 @@
+/**
+ * Copyright (C) 2004-2011 Jive Software. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.spark.ui.conferences;
+
+import java.text.CollationKey;
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.swing.AbstractListModel;
+import javax.swing.Icon;
+import javax.swing.JLabel;
+
+/**
+ * The list model of the {@link GroupChatParticipantList}, holding one label per
+ * occupant (or invitee) of a room, keyed by nickname.
+ * <p>
+ * The labels are kept sorted by rank (when sorting by role is enabled) and then
+ * by nickname. The rank and the collation key of every occupant are computed
+ * once, when the occupant is added, so that an insertion only costs a binary
+ * search and looking up an occupant by nickname is a hash lookup.
+ * <p>
+ * A large number of changes, such as the flood of presences when joining a
+ * room, can be applied between {@link #beginBatch()} and {@link #endBatch()}.
+ * The labels are then sorted once, and listeners are notified with a single
+ * event.
+ * <p>
+ * Like other Swing models, this model should only be used on the event
+ * dispatch thread.
+ */
+public class ParticipantListModel extends AbstractListModel<JLabel> {
+
+    private static final long serialVersionUID = -2146427906618315082L;
+
+    /**
+     * The rank of occupants without a known role or affiliation, such as invitees.
+     */
+    public static final int RANK_NONE = 100;
+
+    private final Collator collator = Collator.getInstance();
+
+    private final List<Entry> entries = new ArrayList<>();
+    private final Map<String, Entry> entriesByNickname = new HashMap<>();
+
+    private boolean sortByRank;
+    private int batchDepth;
+    private boolean batchChanged;
+
+    private final Comparator<Entry> order = (entry1, entry2) -> {
+        if (sortByRank && entry1.rank != entry2.rank) {
+            return entry1.rank < entry2.rank ? -1 : 1;
+        }
+        final int result = entry1.collationKey.compareTo(entry2.collationKey);
+        return result != 0 ? result : entry1.nickname.compareTo(entry2.nickname);
+    };
+
+    public ParticipantListModel() {
+        // Ignore case when sorting.
+        collator.setStrength(Collator.SECONDARY);
+    }
+
+    @Override
+    public int getSize() {
+        return entries.size();
+    }
+
+    @Override
+    public JLabel getElementAt(int index) {
+        return entries.get(index).label;
+    }
+
+    /**
+     * Returns true if the model holds an occupant with the given nickname.
+     *
+     * @param nickname the nickname.
+     * @return true if the occupant is in the model.
+     */
+    public boolean contains(String nickname) {
+        return entriesByNickname.containsKey(nickname);
+    }
+
+    /**
+     * Returns the position of an occupant in the list.
+     *
+     * @param nickname the nickname.
+     * @return the index of the occupant, or -1 if it is not in the list.
+     */
+    public int indexOf(String nickname) {
+        final Entry entry = entriesByNickname.get(nickname);
+        if (entry == null || batchDepth > 0) {
+            // During a batch, the list does not reflect the changes yet.
+            return entry == null ? -1 : entries.indexOf(entry);
+        }
+        final int index = Collections.binarySearch(entries, entry, order);
+        return index >= 0 ? index : -1;
+    }
+
+    /**
+     * Returns the labels of all occupants, in list order.
+     *
+     * @return a copy of the labels.
+     */
+    public List<JLabel> getLabels() {
+        final List<JLabel> labels = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            labels.add(entry.label);
+        }
+        return labels;
+    }
+
+    /**
+     * Adds an occupant, or updates the icon and rank of an occupant that is
+     * already in the model.
+     *
+     * @param nickname the nickname of the occupant.
+     * @param icon     the icon to show.
+     * @param rank     the rank of the occupant. Lower ranks are listed first when sorting by rank.
+     */
+    public void put(String nickname, Icon icon, int rank) {
+        final Entry existing = entriesByNickname.get(nickname);
+        if (existing != null && (existing.rank == rank || !sortByRank)) {
+            // The position does not change.
+            existing.rank = rank;
+            setIcon(existing, icon);
+            return;
+        }
+
+        if (existing != null) {
+            remove(nickname);
+        }
+
+        final Entry entry = new Entry(nickname, collator.getCollationKey(nickname), new JLabel(nickname, icon, JLabel.HORIZONTAL), rank);
+        entriesByNickname.put(nickname, entry);
+        if (batchDepth > 0) {
+            batchChanged = true;
+            return;
+        }
+
+        final int index = -Collections.binarySearch(entries, entry, order) - 1;
+        entries.add(index, entry);
+        fireIntervalAdded(this, index, index);
+    }
+
+    /**
+     * Changes the icon of an occupant.
+     *
+     * @param nickname the nickname of the occupant.
+     * @param icon     the new icon.
+     */
+    public void setIcon(String nickname, Icon icon) {
+        final Entry entry = entriesByNickname.get(nickname);
+        if (entry != null) {
+            setIcon(entry, icon);
+        }
+    }
+
+    /**
+     * Removes an occupant.
+     *
+     * @param nickname the nickname of the occupant.
+     */
+    public void remove(String nickname) {
+        final Entry entry = entriesByNickname.remove(nickname);
+        if (entry == null) {
+            return;
+        }
+        if (batchDepth > 0) {
+            batchChanged = true;
+            return;
+        }
+
+        final int index = Collections.binarySearch(entries, entry, order);
+        if (index >= 0) {
+            entries.remove(index);
+            fireIntervalRemoved(this, index, index);
+        }
+    }
+
+    /**
+     * Removes all occupants.
+     */
+    public void clear() {
+        entriesByNickname.clear();
+        if (batchDepth > 0) {
+            batchChanged = true;
+            return;
+        }
+
+        final int size = entries.size();
+        if (size > 0) {
+            entries.clear();
+            fireIntervalRemoved(this, 0, size - 1);
+        }
+    }
+
+    /**
+     * Sets whether occupants are sorted by their rank before their nickname.
+     *
+     * @param sortByRank true to sort by rank.
+     */
+    public void setSortByRank(boolean sortByRank) {
+        if (this.sortByRank == sortByRank) {
+            return;
+        }
+        this.sortByRank = sortByRank;
+        if (batchDepth > 0) {
+            batchChanged = true;
+        } else {
+            entries.sort(order);
+            if (!entries.isEmpty()) {
+                fireContentsChanged(this, 0, entries.size() - 1);
+            }
+        }
+    }
+
+    /**
+     * Returns a comparator ordering labels of this model the way they are listed.
+     *
+     * @return the comparator.
+     */
+    public Comparator<JLabel> getComparator() {
+        return (label1, label2) -> {
+            final Entry entry1 = entriesByNickname.get(label1.getText());
+            final Entry entry2 = entriesByNickname.get(label2.getText());
+            if (entry1 == null || entry2 == null) {
+                return label1.getText().compareToIgnoreCase(label2.getText());
+            }
+            return order.compare(entry1, entry2);
+        };
+    }
+
+    /**
+     * Starts a batch of changes. Until the matching {@link #endBatch()}, changes
+     * are only reflected by {@link #contains(String)}; the list itself is
+     * updated and listeners are notified when the batch ends. Batches may be
+     * nested.
+     */
+    public void beginBatch() {
+        batchDepth++;
+    }
+
+    /**
+     * Ends a batch of changes, sorting the list once and notifying listeners
+     * of the rows that were removed or added and of the rows that changed.
+     */
+    public void endBatch() {
+        if (batchDepth == 0 || --batchDepth > 0 || !batchChanged) {
+            return;
+        }
+        batchChanged = false;
+
+        final int oldSize = entries.size();
+        entries.clear();
+        entries.addAll(entriesByNickname.values());
+        entries.sort(order);
+        final int newSize = entries.size();
+
+        // Rows are reported as removed or added at the end, so that the selection
+        // of the list never points past it, and the rest as changed.
+        if (newSize < oldSize) {
+            fireIntervalRemoved(this, newSize, oldSize - 1);
+        } else if (newSize > oldSize) {
+            fireIntervalAdded(this, oldSize, newSize - 1);
+        }
+        final int commonSize = Math.min(oldSize, newSize);
+        if (commonSize > 0) {
+            fireContentsChanged(this, 0, commonSize - 1);
+        }
+    }
+
+    private void setIcon(Entry entry, Icon icon) {
+        if (entry.label.getIcon() == icon) {
+            return;
+        }
+        entry.label = new JLabel(entry.nickname, icon, JLabel.HORIZONTAL);
+        if (batchDepth > 0) {
+            batchChanged = true;
+            return;
+        }
+
+        final int index = Collections.binarySearch(entries, entry, order);
+        if (index >= 0) {
+            fireContentsChanged(this, index, index);
+        }
+    }
+
+    private static class Entry {
+        private final String nickname;
+        private final CollationKey collationKey;
+        private JLabel label;
+        private int rank;
+
+        private Entry(String nickname, CollationKey collationKey, JLabel label, int rank) {
+            this.nickname = nickname;
+            this.collationKey = collationKey;
+            this.label = label;
+            this.rank = rank;
+        }
+    }
+}
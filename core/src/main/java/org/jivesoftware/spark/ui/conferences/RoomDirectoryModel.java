@@ -0,0 +1,289 @@
+/**
+ * Copyright (C) 2004-2011 Jive Software. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.spark.ui.conferences;
+
+import java.awt.EventQueue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import javax.swing.JLabel;
+import javax.swing.table.AbstractTableModel;
+
+import org.jivesoftware.spark.util.SearchIndex;
+import org.jivesoftware.spark.util.TaskEngine;
+
+/**
+ * The table model of the {@link ConferenceRoomBrowser}, listing the rooms of a
+ * conference service.
+ * <p>
+ * All rooms are kept in a {@link SearchIndex} over their names and addresses.
+ * Filtering and sorting happen on a background thread, which then publishes an
+ * immutable view of the matching rooms to the table. Changes that arrive while
+ * a view is being computed are coalesced into a single follow-up computation,
+ * so that typing a filter or adding thousands of rooms never blocks the event
+ * dispatch thread.
+ * <p>
+ * Except where noted otherwise, methods must be invoked on the event dispatch
+ * thread.
+ */
+public class RoomDirectoryModel extends AbstractTableModel {
+
+    private static final long serialVersionUID = -3592620581870930516L;
+
+    public static final int ICON_COLUMN = 0;
+    public static final int NAME_COLUMN = 1;
+    public static final int ADDRESS_COLUMN = 2;
+    public static final int OCCUPANTS_COLUMN = 3;
+
+    private final String[] columnNames;
+
+    private final List<Room> rooms = new ArrayList<>();
+    private final SearchIndex<Room> index = new SearchIndex<>();
+
+    private List<Room> view = Collections.emptyList();
+
+    private String filter = "";
+    private int sortColumn = -1;
+    private boolean sortAscending = true;
+
+    private int generation;
+    private boolean refreshRunning;
+    private boolean refreshPending;
+
+    /**
+     * Creates a new, empty model.
+     *
+     * @param columnNames the names of the icon, name, address and occupants columns.
+     */
+    public RoomDirectoryModel(String[] columnNames) {
+        this.columnNames = Arrays.copyOf(columnNames, columnNames.length);
+    }
+
+    @Override
+    public int getRowCount() {
+        return view.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columnNames[column];
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        final Room room = view.get(rowIndex);
+        switch (columnIndex) {
+            case ICON_COLUMN:
+                return room.icon;
+            case NAME_COLUMN:
+                return room.name;
+            case ADDRESS_COLUMN:
+                return room.address;
+            case OCCUPANTS_COLUMN:
+                return room.numberOfOccupants == -1 ? "n/a" : Integer.toString(room.numberOfOccupants);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Only the icon of a room can be changed, by setting a <code>JLabel</code>.
+     */
+    @Override
+    public void setValueAt(Object value, int rowIndex, int columnIndex) {
+        if (columnIndex == ICON_COLUMN && value instanceof JLabel) {
+            view.get(rowIndex).icon = (JLabel) value;
+            fireTableCellUpdated(rowIndex, columnIndex);
+        }
+    }
+
+    /**
+     * Returns the position of a room in the table.
+     *
+     * @param roomJID the JID of the room.
+     * @return the row of the room, or -1 if the room is not shown.
+     */
+    public int indexOf(String roomJID) {
+        for (int i = 0; i < view.size(); i++) {
+            if (view.get(i).jid.equals(roomJID)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Adds rooms to the directory. They appear in the table once the view has
+     * been brought up to date in the background.
+     *
+     * @param newRooms the rooms to add.
+     */
+    public void addRooms(List<Room> newRooms) {
+        if (newRooms.isEmpty()) {
+            return;
+        }
+        for (Room room : newRooms) {
+            rooms.add(room);
+            index.put(room, room.name, Collections.singletonList(room.address));
+        }
+        refresh();
+    }
+
+    /**
+     * Removes all rooms, immediately clearing the table.
+     */
+    public void clear() {
+        generation++;
+        rooms.clear();
+        index.clear();
+        view = Collections.emptyList();
+        fireTableDataChanged();
+    }
+
+    /**
+     * Only shows rooms of which the name or address contains the given text. A
+     * single or double character only matches the start of a word.
+     *
+     * @param text the filter text. An empty text shows all rooms.
+     */
+    public void setFilter(String text) {
+        final String newFilter = text == null ? "" : text.trim();
+        if (!newFilter.equals(filter)) {
+            filter = newFilter;
+            refresh();
+        }
+    }
+
+    /**
+     * Sorts the rooms by the given column. Sorting by the same column again
+     * reverses the order.
+     *
+     * @param column the column to sort by.
+     */
+    public void toggleSortOrder(int column) {
+        if (column == ICON_COLUMN) {
+            return;
+        }
+        sortAscending = column != sortColumn || !sortAscending;
+        sortColumn = column;
+        refresh();
+    }
+
+    /**
+     * Computes a new view in the background, unless a computation is running
+     * already. In that case, another computation follows once it completes.
+     */
+    private void refresh() {
+        if (refreshRunning) {
+            refreshPending = true;
+            return;
+        }
+        refreshRunning = true;
+
+        final int refreshGeneration = generation;
+        final List<Room> snapshot = new ArrayList<>(rooms);
+        final String query = filter;
+        final Comparator<Room> order = getComparator();
+
+        TaskEngine.getInstance().submit( () -> {
+            List<Room> result = snapshot;
+            if (!query.isEmpty()) {
+                final Set<Room> matches = Collections.newSetFromMap(new IdentityHashMap<>());
+                matches.addAll(index.search(query, 0));
+                result = new ArrayList<>(matches.size());
+                for (Room room : snapshot) {
+                    if (matches.contains(room)) {
+                        result.add(room);
+                    }
+                }
+            }
+            if (order != null) {
+                result.sort(order);
+            }
+
+            final List<Room> published = Collections.unmodifiableList(result);
+            EventQueue.invokeLater( () -> {
+                refreshRunning = false;
+                if (refreshGeneration == generation) {
+                    view = published;
+                    fireTableDataChanged();
+                }
+                if (refreshPending) {
+                    refreshPending = false;
+                    refresh();
+                }
+            } );
+        } );
+    }
+
+    private Comparator<Room> getComparator() {
+        final Comparator<Room> order;
+        switch (sortColumn) {
+            case NAME_COLUMN:
+                order = Comparator.comparing(room -> room.sortName);
+                break;
+            case ADDRESS_COLUMN:
+                order = Comparator.comparing(room -> room.address);
+                break;
+            case OCCUPANTS_COLUMN:
+                order = Comparator.comparingInt(room -> room.numberOfOccupants);
+                break;
+            default:
+                return null;
+        }
+        return sortAscending ? order : order.reversed();
+    }
+
+    /**
+     * A room in the directory.
+     */
+    public static class Room {
+        private final String jid;
+        private final String name;
+        private final String sortName;
+        private final String address;
+        private final int numberOfOccupants;
+        private JLabel icon;
+
+        /**
+         * Creates a new room. This may be invoked on any thread.
+         *
+         * @param jid               the JID of the room.
+         * @param icon              the icon showing the bookmark and password state of the room.
+         * @param name              the name of the room.
+         * @param address           the address (the local part of the JID) of the room.
+         * @param numberOfOccupants the number of occupants, or -1 if unknown.
+         */
+        public Room(String jid, JLabel icon, String name, String address, int numberOfOccupants) {
+            this.jid = jid;
+            this.icon = icon;
+            this.name = name != null ? name : address;
+            this.sortName = this.name.toLowerCase();
+            this.address = address;
+            this.numberOfOccupants = numberOfOccupants;
+        }
+    }
+}
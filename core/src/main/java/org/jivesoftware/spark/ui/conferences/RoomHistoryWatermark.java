@@ -0,0 +1,111 @@
+/**
+ * Copyright (C) 2004-2011 Jive Software. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.spark.ui.conferences;
+
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.jivesoftware.smackx.muc.DiscussionHistory;
+
+/**
+ * Remembers when the last message shown in a group chat room was sent, so that
+ * when the room is joined again while it is open, only the history that is not
+ * in its transcript yet is requested.
+ * <p>
+ * Next to the time of the last message, the fingerprints (sender and body) of
+ * the most recent messages are kept. The history is requested starting a little
+ * before the last message, to allow for clock differences between Spark and the
+ * server, and replayed messages with a known fingerprint are skipped.
+ * <p>
+ * A watermark belongs to a single room and is only kept in memory, as group chat
+ * transcripts are not persisted: a room that is opened anew, or after a restart,
+ * starts with an empty watermark and gets the default history of the service.
+ * This class is thread-safe.
+ */
+public class RoomHistoryWatermark {
+
+    /**
+     * How many milliseconds of history before the last message are requested again.
+     */
+    private static final long CLOCK_SKEW_MARGIN = 2 * 60 * 1000;
+
+    /**
+     * The number of recent message fingerprints kept.
+     */
+    private static final int MAX_FINGERPRINTS = 50;
+
+    private final Set<String> fingerprints = new LinkedHashSet<>();
+    private long stamp = -1;
+
+    /**
+     * Returns the history to request when joining the room.
+     *
+     * @return the history to request, or null to use the default history of the service.
+     */
+    public synchronized DiscussionHistory getDiscussionHistory() {
+        if (stamp < 0) {
+            return null;
+        }
+
+        final DiscussionHistory history = new DiscussionHistory();
+        history.setSince(new Date(stamp - CLOCK_SKEW_MARGIN));
+        return history;
+    }
+
+    /**
+     * Returns true if a message replayed from the room history was shown before.
+     *
+     * @param nickname the nickname of the sender.
+     * @param body     the body of the message.
+     * @param stamp    the time at which the message was sent, according to the server.
+     * @return true if the message should not be shown again.
+     */
+    public synchronized boolean isKnown(String nickname, String body, Date stamp) {
+        if (this.stamp < 0) {
+            return false;
+        }
+
+        return stamp.getTime() < this.stamp - CLOCK_SKEW_MARGIN
+            || fingerprints.contains(getFingerprint(nickname, body));
+    }
+
+    /**
+     * Records that a message was shown in the room.
+     *
+     * @param nickname the nickname of the sender.
+     * @param body     the body of the message.
+     * @param stamp    the time at which the message was sent.
+     */
+    public synchronized void record(String nickname, String body, Date stamp) {
+        this.stamp = Math.max(this.stamp, stamp.getTime());
+
+        // Move the fingerprint to the end, dropping the oldest if there are too many.
+        final String fingerprint = getFingerprint(nickname, body);
+        fingerprints.remove(fingerprint);
+        fingerprints.add(fingerprint);
+        if (fingerprints.size() > MAX_FINGERPRINTS) {
+            final Iterator<String> iterator = fingerprints.iterator();
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    private static String getFingerprint(String nickname, String body) {
+        return Integer.toHexString((nickname + '\n' + body).hashCode());
+    }
+}
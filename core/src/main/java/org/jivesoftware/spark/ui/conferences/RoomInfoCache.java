@@ -0,0 +1,105 @@
+/**
+ * Copyright (C) 2004-2011 Jive Software. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.spark.ui.conferences;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jivesoftware.smack.SmackException;
+import org.jivesoftware.smack.XMPPException;
+import org.jivesoftware.smackx.muc.MultiUserChatManager;
+import org.jivesoftware.smackx.muc.RoomInfo;
+import org.jivesoftware.spark.SparkManager;
+
+/**
+ * Caches the information of conference rooms for a short while, so that
+ * browsing a conference service requests the information of every room only
+ * once, even though it is needed for the occupant count, the password check and
+ * the room details.
+ * <p>
+ * This class is thread-safe.
+ */
+public class RoomInfoCache {
+
+    /**
+     * The number of milliseconds for which room information is considered up to date.
+     */
+    private static final long TIME_TO_LIVE = 60 * 1000;
+
+    private static final RoomInfoCache instance = new RoomInfoCache();
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the room information cache (singleton).
+     *
+     * @return the room information cache.
+     */
+    public static RoomInfoCache getInstance() {
+        return instance;
+    }
+
+    private RoomInfoCache() {
+    }
+
+    /**
+     * Returns the information of a room, requesting it from the server if it is
+     * not cached or has expired. This method blocks while the information is
+     * requested, so it should not be invoked on the event dispatch thread.
+     *
+     * @param roomJID the JID of the room.
+     * @return the room information.
+     * @throws XMPPException  if the server returned an error.
+     * @throws SmackException if the server did not respond or the connection was lost.
+     */
+    public RoomInfo getRoomInfo(String roomJID) throws XMPPException, SmackException {
+        final long now = System.currentTimeMillis();
+        final Entry entry = entries.get(roomJID);
+        if (entry != null && now - entry.created < TIME_TO_LIVE) {
+            return entry.roomInfo;
+        }
+
+        final RoomInfo roomInfo = MultiUserChatManager.getInstanceFor(SparkManager.getConnection()).getRoomInfo(roomJID);
+        entries.put(roomJID, new Entry(roomInfo, now));
+        return roomInfo;
+    }
+
+    /**
+     * Removes the information of a room, for instance after it was reconfigured.
+     *
+     * @param roomJID the JID of the room.
+     */
+    public void invalidate(String roomJID) {
+        entries.remove(roomJID);
+    }
+
+    /**
+     * Removes the information of all rooms.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    private static class Entry {
+        private final RoomInfo roomInfo;
+        private final long created;
+
+        private Entry(RoomInfo roomInfo, long created) {
+            this.roomInfo = roomInfo;
+            this.created = created;
+        }
+    }
+}
@@ -44,7 +44,13 @@ import org.jivesoftware.spark.ui.conferences.AnswerFormDialog;
 import org.jivesoftware.spark.ui.conferences.ConferenceUtils;
 import org.jivesoftware.spark.ui.conferences.DataFormDialog;
 import org.jivesoftware.spark.ui.conferences.GroupChatParticipantList;
+import org.jivesoftware.spark.ui.conferences.RoomHistoryWatermark;
+import org.jivesoftware.spark.util.KeywordMatcher;
 import org.jivesoftware.spark.util.ModelUtil;
+import org.jivesoftware.spark.util.SearchIndex;
+import org.jivesoftware.spark.util.SwingTimerTask;
+import org.jivesoftware.spark.util.SwingWorker;
+import org.jivesoftware.spark.util.TaskEngine;
 import org.jivesoftware.spark.util.UIComponentRegistry;
 import org.jivesoftware.spark.util.log.Log;
 import org.jivesoftware.sparkimpl.settings.local.LocalPreferences;
@@ -57,17 +63,33 @@ import java.awt.event.ActionEvent;
 import java.awt.event.MouseEvent;
 import java.util.*;
 import java.util.List;
-import java.util.regex.Pattern;
 
 /**
  * GroupChatRoom is the conference chat room UI used to have Multi-User Chats.
  */
 public class GroupChatRoom extends ChatRoom
 {
+    /**
+     * The number of milliseconds after the first pending presence was received at which all presences received
+     * until then are handled as a single batch.
+     */
+    private static final long PRESENCE_BATCH_DELAY = 100;
+
+    private static final Color OWN_MESSAGE_BACKGROUND = new Color( 244, 248, 255 );
+    private static final Color MENTION_BACKGROUND = new Color( 255, 255, 153 );
+    private static final Color DEFAULT_BACKGROUND = new Color( 0, 0, 0, 0 );
+
     private final LocalPreferences pref = SettingsManager.getLocalPreferences();
     private final MultiUserChat chat;
     private final SubjectPanel subjectPanel;
-    private final List<String> currentUserList = new ArrayList<>();
+    private final Set<String> currentUserList = new LinkedHashSet<>();
+    private final List<Presence> pendingPresences = new ArrayList<>();
+    private boolean presenceBatchScheduled;
+    private boolean initialPresencesReceived;
+    private KeywordMatcher mentionMatcher = KeywordMatcher.EMPTY;
+    private String mentionMatcherNickname;
+    private final SearchIndex<String> participantSearchIndex = new SearchIndex<>();
+    private final RoomHistoryWatermark historyWatermark = new RoomHistoryWatermark();
     private final List<String> blockedUsers = new ArrayList<>();
     private final GroupChatParticipantList roomInfo;
     private final RolloverButton settings;
@@ -88,6 +110,9 @@ public class GroupChatRoom extends ChatRoom
     {
         this.chat = chat;
 
+        // When joining, the room first sends the presences of all occupants, followed by our own presence.
+        initialPresencesReceived = chat.isJoined();
+
         // Create the filter and register with the current connection making sure to filter by room
         final StanzaFilter fromFilter = FromMatchesFilter.createBare( chat.getRoom() );
         final StanzaFilter orFilter = new OrFilter( new StanzaTypeFilter( Presence.class ), new StanzaTypeFilter( Message.class ) );
@@ -357,23 +382,34 @@ public class GroupChatRoom extends ChatRoom
     private Color getMessageBackground( String nickname, String body )
     {
         final String myNickName = chat.getNickname();
-        final String myUserName = SparkManager.getSessionManager().getUsername();
-        final Pattern usernameMatch = Pattern.compile( myUserName, Pattern.CASE_INSENSITIVE );
-        final Pattern nicknameMatch = Pattern.compile( myNickName, Pattern.CASE_INSENSITIVE );
 
         // Should we even highlight this packet?
-        if ( pref.isMucHighNameEnabled() && myNickName.equalsIgnoreCase( nickname ) )
+        if ( pref.isMucHighNameEnabled() && myNickName != null && myNickName.equalsIgnoreCase( nickname ) )
         {
-            return new Color( 244, 248, 255 );
+            return OWN_MESSAGE_BACKGROUND;
         }
-        else if ( pref.isMucHighTextEnabled() && ( usernameMatch.matcher( body ).find() || nicknameMatch.matcher( body ).find() ) )
+        else if ( pref.isMucHighTextEnabled() && getMentionMatcher( myNickName ).matches( body ) )
         {
-            return new Color( 255, 255, 153 );
+            return MENTION_BACKGROUND;
         }
         else
         {
-            return new Color( 0, 0, 0, 0 );
+            return DEFAULT_BACKGROUND;
+        }
+    }
+
+    /**
+     * Returns the matcher for mentions of the user's name or nickname, compiling it again only when the nickname
+     * in this room has changed.
+     */
+    private KeywordMatcher getMentionMatcher( String myNickName )
+    {
+        if ( mentionMatcherNickname == null || !mentionMatcherNickname.equals( myNickName ) )
+        {
+            mentionMatcher = new KeywordMatcher( Arrays.asList( SparkManager.getSessionManager().getUsername(), myNickName ) );
+            mentionMatcherNickname = myNickName;
         }
+        return mentionMatcher;
     }
 
     /**
@@ -572,12 +608,29 @@ public class GroupChatRoom extends ChatRoom
         super.processPacket( stanza );
         if ( stanza instanceof Presence )
         {
-            SwingUtilities.invokeLater( () -> handlePresencePacket( stanza ) );
+            synchronized ( pendingPresences )
+            {
+                pendingPresences.add( (Presence) stanza );
+                if ( !presenceBatchScheduled )
+                {
+                    presenceBatchScheduled = true;
+                    TaskEngine.getInstance().schedule( new SwingTimerTask()
+                    {
+                        @Override
+                        public void doRun()
+                        {
+                            handlePendingPresences();
+                        }
+                    }, PRESENCE_BATCH_DELAY );
+                }
+            }
         }
 
         if ( stanza instanceof Message )
         {
             SwingUtilities.invokeLater( () -> {
+                // Presences that were received before the message should be shown before it.
+                handlePendingPresences();
                 handleMessagePacket( stanza );
 
                 // Set last activity
@@ -616,8 +669,15 @@ public class GroupChatRoom extends ChatRoom
                 {
                     // This is part of the MUC history. No need to add it to the transcript again.
 
+                    // Skip history that this room showed before it was joined again.
+                    if ( historyWatermark.isKnown( from, message.getBody(), sentDate ) )
+                    {
+                        return;
+                    }
+
                     // Add to the UI component that shows the chat.
                     getTranscriptWindow().insertHistoryMessage( from, message.getBody(), sentDate );
+                    historyWatermark.record( from, message.getBody(), sentDate );
                 }
                 else
                 {
@@ -639,6 +699,7 @@ public class GroupChatRoom extends ChatRoom
 
                     // Add to the UI component that shows the chat.
                     getTranscriptWindow().insertMessage( from, message, getColor( from ), getMessageBackground( from, message.getBody() ) );
+                    historyWatermark.record( from, message.getBody(), sentDate );
                 }
             }
         }
@@ -691,16 +752,49 @@ public class GroupChatRoom extends ChatRoom
     }
 
     /**
-     * Handle all presence packets being sent to this Group Chat Room.
+     * Handles all presences that were received since the last batch, updating the participant list only once.
+     */
+    private void handlePendingPresences()
+    {
+        final List<Presence> presences;
+        synchronized ( pendingPresences )
+        {
+            if ( pendingPresences.isEmpty() )
+            {
+                return;
+            }
+            presences = new ArrayList<>( pendingPresences );
+            pendingPresences.clear();
+            presenceBatchScheduled = false;
+        }
+
+        boolean notified = false;
+        for ( Presence presence : presences )
+        {
+            notified |= handlePresencePacket( presence );
+        }
+
+        roomInfo.handlePresences( presences );
+
+        if ( notified )
+        {
+            scrollToBottom();
+        }
+    }
+
+    /**
+     * Handle all presence packets being sent to this Group Chat Room. Join notifications are not shown for the
+     * occupants that were already in the room when it was joined.
      *
      * @param stanza the presence packet.
+     * @return true if a notification was added to the transcript.
      */
-    private void handlePresencePacket( Stanza stanza )
+    private boolean handlePresencePacket( Stanza stanza )
     {
         final Presence presence = (Presence) stanza;
         if ( presence.getError() != null )
         {
-            return;
+            return false;
         }
 
         final String from = presence.getFrom();
@@ -720,10 +814,17 @@ public class GroupChatRoom extends ChatRoom
                         Res.getString( "title.room.destroyed" ),
                         JOptionPane.INFORMATION_MESSAGE );
                 leaveChatRoom();
-                return;
+                return false;
             }
         }
 
+        if ( status.contains( MUCUser.Status.create( 110 ) ) ) // 110 = Inform user that presence refers to itself
+        {
+            initialPresencesReceived = true;
+        }
+
+        boolean notified = false;
+
         if ( presence.getType() == Presence.Type.unavailable && !status.contains( MUCUser.Status.NEW_NICKNAME_303 ) )
         {
             if ( currentUserList.contains( from ) )
@@ -731,26 +832,28 @@ public class GroupChatRoom extends ChatRoom
                 if ( pref.isShowJoinLeaveMessagesEnabled() )
                 {
                     getTranscriptWindow().insertNotificationMessage( Res.getString( "message.user.left.room", nickname ), ChatManager.NOTIFICATION_COLOR );
-                    scrollToBottom();
+                    notified = true;
                 }
                 currentUserList.remove( from );
+                participantSearchIndex.remove( nickname );
             }
         }
         else
         {
-            if ( !currentUserList.contains( from ) )
+            if ( currentUserList.add( from ) )
             {
-                currentUserList.add( from );
+                participantSearchIndex.put( nickname, nickname, null );
                 getChatInputEditor().setEnabled( true );
-                if ( pref.isShowJoinLeaveMessagesEnabled() )
+                if ( pref.isShowJoinLeaveMessagesEnabled() && initialPresencesReceived )
                 {
                     getTranscriptWindow().insertNotificationMessage(
                             Res.getString( "message.user.joined.room", nickname ),
                             ChatManager.NOTIFICATION_COLOR );
-                    scrollToBottom();
+                    notified = true;
                 }
             }
         }
+        return notified;
     }
 
     /**
@@ -964,6 +1067,16 @@ public class GroupChatRoom extends ChatRoom
         return currentUserList;
     }
 
+    /**
+     * Returns the search index over the nicknames of all users in the room, for instance for nickname completion.
+     *
+     * @return the participant search index.
+     */
+    public SearchIndex<String> getParticipantSearchIndex()
+    {
+        return participantSearchIndex;
+    }
+
     /**
      * Sends the message that is currently in the send field.
      */
@@ -1094,6 +1207,17 @@ public class GroupChatRoom extends ChatRoom
         getTranscriptWindow().insertNotificationMessage( Res.getString( "message.disconnected.group.chat.error" ), ChatManager.ERROR_COLOR );
     }
 
+    /**
+     * Returns the watermark of the history shown in this room, to only request the missing history when the room is
+     * joined again.
+     *
+     * @return the history watermark of this room.
+     */
+    public RoomHistoryWatermark getHistoryWatermark()
+    {
+        return historyWatermark;
+    }
+
     /**
      * Sets the Password for this GroupChat if available, to rejoin the chat after a reconnection without prompting the user
      */
@@ -1108,15 +1232,65 @@ public class GroupChatRoom extends ChatRoom
     @Override
     public void reconnectionSuccessful()
     {
-        final String roomJID = chat.getRoom();
-        final String roomName = tabTitle;
-        isActive = false;
+        // Join again with this room rather than a new one, so that only the history it does not show yet is requested.
         EventQueue.invokeLater( () -> {
-            ConferenceUtils.joinConferenceOnSeperateThread( roomName, roomJID, password );
-            closeChatRoom();
+            if ( !isActive )
+            {
+                return;
+            }
+
+            // The room sends the presences of the current occupants again.
+            roomInfo.clear();
+            currentUserList.clear();
+            participantSearchIndex.clear();
+            initialPresencesReceived = false;
+
+            final String nickname = ModelUtil.hasLength( chat.getNickname() ) ? chat.getNickname() : SettingsManager.getRelodLocalPreferences().getNickname().trim();
+            final SwingWorker rejoinWorker = new SwingWorker()
+            {
+                @Override
+                public Object construct()
+                {
+                    try
+                    {
+                        ConferenceUtils.join( chat, historyWatermark, nickname, password );
+                        return true;
+                    }
+                    catch ( XMPPException | SmackException e )
+                    {
+                        Log.error( "Unable to join room '" + chat.getRoom() + "' again after reconnecting.", e );
+                        return false;
+                    }
+                }
+
+                @Override
+                public void finished()
+                {
+                    if ( Boolean.TRUE.equals( getValue() ) )
+                    {
+                        handleReconnect();
+                    }
+                    else
+                    {
+                        getTranscriptWindow().insertNotificationMessage( Res.getString( "message.error.unable.join.room" ), ChatManager.ERROR_COLOR );
+                    }
+                }
+            };
+            rejoinWorker.start();
         } );
     }
 
+    /**
+     * Is called when the room was joined again after Spark reconnected.
+     */
+    private void handleReconnect()
+    {
+        getChatInputEditor().setEnabled( true );
+        getSendButton().setEnabled( true );
+        getSplitPane().setRightComponent( roomInfo.getGUI() );
+        SparkManager.getChatManager().getChatContainer().fireChatRoomStateUpdated( this );
+    }
+
     /**
      * Is called whenever Spark was unexpectedly disconnected.
      */
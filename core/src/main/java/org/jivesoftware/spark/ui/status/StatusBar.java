@@ -461,7 +461,7 @@ public class StatusBar extends JPanel implements VCardListener {
 			updateVCardInformation(vcard);
 		};
 
-		TaskEngine.getInstance().submit(loadVCard);
+		TaskEngine.getInstance().submit(TaskEngine.Category.NETWORK, loadVCard);
 	}
 
 	protected void updateVCardInformation(final VCard vCard) {
@@ -0,0 +1,215 @@
+/**
+ * Copyright (C) 2004-2011 Jive Software. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.spark.util;
+
+import java.awt.EventQueue;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.jivesoftware.Spark;
+import org.jivesoftware.spark.util.log.Log;
+
+/**
+ * Watches how responsive the event dispatch thread is, and reports what it was
+ * doing when it was not.
+ * <p>
+ * A small task is posted to the event queue a few times per second. When such a
+ * probe has not run after the threshold, the event dispatch thread is stalled,
+ * and its stack is sampled until the probe runs. The samples are then written to
+ * <code>edt-stalls.log</code> in the log directory, grouped by the innermost
+ * frame of Spark (or Smack) code that was running, with the group that was seen
+ * most often first. That frame is usually the method that is to blame, even when
+ * the time is spent in the JDK or in a library it calls.
+ * <p>
+ * When the event dispatch thread keeps up, all the watchdog does is post a probe
+ * and wait for it, on a thread of its own.
+ */
+public final class EdtWatchdog {
+
+    /**
+     * The number of milliseconds between probes.
+     */
+    private static final long PROBE_INTERVAL = 200;
+
+    /**
+     * The number of milliseconds between samples of the stack during a stall.
+     */
+    private static final long SAMPLE_INTERVAL = 50;
+
+    /**
+     * The maximum number of samples taken during a single stall.
+     */
+    private static final int MAX_SAMPLES = 1200;
+
+    /**
+     * The maximum number of groups in a report, and of frames shown for each group.
+     */
+    private static final int MAX_GROUPS = 10;
+    private static final int MAX_FRAMES = 25;
+
+    /**
+     * The size beyond which the report file is started anew.
+     */
+    private static final long MAX_REPORT_SIZE = 1024 * 1024;
+
+    private static final String APPLICATION_PACKAGE = "org.jivesoftware.";
+
+    private static boolean started;
+
+    private final long threshold;
+    private volatile Thread eventDispatchThread;
+
+    /**
+     * Starts watching the event dispatch thread. Only the first invocation has any effect.
+     *
+     * @param threshold the number of milliseconds the event dispatch thread may be
+     *                  unresponsive before a stall is reported, or 0 to not watch it.
+     */
+    public static synchronized void start(long threshold) {
+        if (started || threshold <= 0) {
+            return;
+        }
+        started = true;
+
+        final EdtWatchdog watchdog = new EdtWatchdog(threshold);
+        final Thread thread = new Thread(watchdog::run, "edt-watchdog");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private EdtWatchdog(long threshold) {
+        this.threshold = threshold;
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                Thread.sleep(PROBE_INTERVAL);
+
+                final long posted = System.nanoTime();
+                final CountDownLatch probe = new CountDownLatch(1);
+                EventQueue.invokeLater(() -> {
+                    // The event dispatch thread is replaced when an exception escapes from an event.
+                    eventDispatchThread = Thread.currentThread();
+                    probe.countDown();
+                });
+
+                if (!probe.await(threshold, TimeUnit.MILLISECONDS)) {
+                    sampleStall(probe, posted);
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            Log.debug("Stopped watching the event dispatch thread.");
+        }
+    }
+
+    private void sampleStall(CountDownLatch probe, long posted) throws InterruptedException {
+        final Thread thread = getEventDispatchThread();
+        final List<StackTraceElement[]> samples = new ArrayList<>();
+        do {
+            if (thread != null && samples.size() < MAX_SAMPLES) {
+                final StackTraceElement[] stack = thread.getStackTrace();
+                if (stack.length > 0) {
+                    samples.add(stack);
+                }
+            }
+        }
+        while (!probe.await(SAMPLE_INTERVAL, TimeUnit.MILLISECONDS));
+
+        final long duration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - posted);
+        Log.warning("The user interface did not respond for " + duration + " ms. See edt-stalls.log in the log directory for details.");
+        TaskEngine.getInstance().submit(TaskEngine.Category.IO, () -> writeReport(duration, samples));
+    }
+
+    private Thread getEventDispatchThread() {
+        if (eventDispatchThread == null) {
+            // No probe has run yet; look the thread up by its name.
+            for (Thread thread : Thread.getAllStackTraces().keySet()) {
+                if (thread.getName().startsWith("AWT-EventQueue")) {
+                    eventDispatchThread = thread;
+                }
+            }
+        }
+        return eventDispatchThread;
+    }
+
+    private void writeReport(long duration, List<StackTraceElement[]> samples) {
+        // Group the samples by the innermost frame of our own code, keeping the first sample of each group.
+        final Map<String, List<StackTraceElement[]>> groups = new LinkedHashMap<>();
+        for (StackTraceElement[] sample : samples) {
+            groups.computeIfAbsent(getHotSpot(sample), key -> new ArrayList<>()).add(sample);
+        }
+        final List<Map.Entry<String, List<StackTraceElement[]>>> sorted = new ArrayList<>(groups.entrySet());
+        sorted.sort((a, b) -> b.getValue().size() - a.getValue().size());
+
+        final StringBuilder report = new StringBuilder();
+        report.append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()))
+            .append("  The event dispatch thread stalled for ").append(duration).append(" ms. (threshold ")
+            .append(threshold).append(" ms.), ").append(samples.size()).append(" samples taken every ")
+            .append(SAMPLE_INTERVAL).append(" ms.\n");
+
+        for (Map.Entry<String, List<StackTraceElement[]>> group : sorted.subList(0, Math.min(MAX_GROUPS, sorted.size()))) {
+            final int count = group.getValue().size();
+            report.append(String.format("%n%3d%% (%d samples)  %s%n", count * 100 / samples.size(), count, group.getKey()));
+
+            final StackTraceElement[] stack = group.getValue().get(0);
+            for (int i = 0; i < Math.min(MAX_FRAMES, stack.length); i++) {
+                report.append("        at ").append(stack[i]).append('\n');
+            }
+            if (stack.length > MAX_FRAMES) {
+                report.append("        ... ").append(stack.length - MAX_FRAMES).append(" more\n");
+            }
+        }
+        if (sorted.size() > MAX_GROUPS) {
+            report.append(String.format("%n(%d more places, with fewer samples)%n", sorted.size() - MAX_GROUPS));
+        }
+        report.append('\n');
+
+        final File file = new File(Spark.getLogDirectory(), "edt-stalls.log");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file, file.length() < MAX_REPORT_SIZE), StandardCharsets.UTF_8)) {
+            writer.write(report.toString());
+        }
+        catch (IOException e) {
+            Log.warning("Unable to write " + file, e);
+        }
+    }
+
+    /**
+     * Returns the innermost frame of Spark or Smack code, or the innermost frame
+     * if there is none, as a string.
+     */
+    private static String getHotSpot(StackTraceElement[] stack) {
+        for (StackTraceElement frame : stack) {
+            if (frame.getClassName().startsWith(APPLICATION_PACKAGE)) {
+                return frame.getClassName() + "." + frame.getMethodName();
+            }
+        }
+        return stack[0].getClassName() + "." + stack[0].getMethodName();
+    }
+}
@@ -0,0 +1,180 @@
+/**
+ * Copyright (C) 2004-2011 Jive Software. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.spark.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds any of a set of keywords in a text, such as mentions of the user's
+ * name in a group chat or the keywords that trigger a notification.
+ * <p>
+ * The keywords are compiled once into an Aho-Corasick automaton, so that a text
+ * is scanned in a single pass regardless of the number of keywords. Matching
+ * ignores case and only accepts whole words: a keyword that starts (or ends)
+ * with a letter or digit does not match if the text has another letter or
+ * digit directly before (or after) it.
+ * <p>
+ * Instances are immutable and thread-safe. Create a new matcher when the
+ * keywords change.
+ */
+public final class KeywordMatcher {
+
+    /**
+     * A matcher without keywords, which never matches.
+     */
+    public static final KeywordMatcher EMPTY = new KeywordMatcher(Collections.emptyList());
+
+    private final Node root = new Node();
+    private final List<String> keywords;
+
+    /**
+     * Compiles a matcher for the given keywords.
+     *
+     * @param keywords the keywords. Surrounding whitespace is ignored, as are null and empty keywords.
+     */
+    public KeywordMatcher(Collection<String> keywords) {
+        final Set<String> unique = new LinkedHashSet<>();
+        for (String keyword : keywords) {
+            if (keyword != null && !keyword.trim().isEmpty()) {
+                unique.add(keyword.trim());
+            }
+        }
+        this.keywords = Collections.unmodifiableList(new ArrayList<>(unique));
+
+        for (String keyword : this.keywords) {
+            Node node = root;
+            for (int i = 0; i < keyword.length(); i++) {
+                node = node.children.computeIfAbsent(fold(keyword.charAt(i)), key -> new Node());
+            }
+            node.addMatch(new Keyword(keyword.length(), isWordChar(keyword.charAt(0)), isWordChar(keyword.charAt(keyword.length() - 1))));
+        }
+
+        // Compute the failure links breadth-first, inheriting the matches of the longest proper suffix.
+        final Deque<Node> queue = new ArrayDeque<>();
+        for (Node child : root.children.values()) {
+            child.failure = root;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            final Node node = queue.poll();
+            for (Map.Entry<Character, Node> entry : node.children.entrySet()) {
+                final Node child = entry.getValue();
+                Node failure = node.failure;
+                while (failure != root && !failure.children.containsKey(entry.getKey())) {
+                    failure = failure.failure;
+                }
+                final Node target = failure.children.get(entry.getKey());
+                child.failure = target != null && target != child ? target : root;
+                for (Keyword keyword : child.failure.matches) {
+                    child.addMatch(keyword);
+                }
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * Returns the keywords of this matcher.
+     *
+     * @return an unmodifiable list of the keywords.
+     */
+    public List<String> getKeywords() {
+        return keywords;
+    }
+
+    /**
+     * Returns true if this matcher has no keywords.
+     *
+     * @return true if the matcher never matches.
+     */
+    public boolean isEmpty() {
+        return keywords.isEmpty();
+    }
+
+    /**
+     * Returns true if the text contains any of the keywords as a whole word.
+     *
+     * @param text the text to search, may be null.
+     * @return true if a keyword was found.
+     */
+    public boolean matches(CharSequence text) {
+        if (text == null || isEmpty()) {
+            return false;
+        }
+
+        Node node = root;
+        for (int i = 0; i < text.length(); i++) {
+            final char c = fold(text.charAt(i));
+            while (node != root && !node.children.containsKey(c)) {
+                node = node.failure;
+            }
+            final Node next = node.children.get(c);
+            node = next != null ? next : root;
+
+            for (Keyword keyword : node.matches) {
+                final int start = i - keyword.length + 1;
+                final int end = i + 1;
+                if ((!keyword.wordStart || start == 0 || !isWordChar(text.charAt(start - 1)))
+                    && (!keyword.wordEnd || end == text.length() || !isWordChar(text.charAt(end)))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    private static class Node {
+        private final Map<Character, Node> children = new HashMap<>(4);
+        private List<Keyword> matches = Collections.emptyList();
+        private Node failure;
+
+        private void addMatch(Keyword keyword) {
+            if (matches.isEmpty()) {
+                matches = new ArrayList<>(1);
+            }
+            matches.add(keyword);
+        }
+    }
+
+    private static class Keyword {
+        private final int length;
+        private final boolean wordStart;
+        private final boolean wordEnd;
+
+        private Keyword(int length, boolean wordStart, boolean wordEnd) {
+            this.length = length;
+            this.wordStart = wordStart;
+            this.wordEnd = wordEnd;
+        }
+    }
+}
@@ -0,0 +1,404 @@
+/**
+ * Copyright (C) 2004-2011 Jive Software. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.spark.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * An incrementally maintained, case-insensitive search index over the names of
+ * items such as contacts or room occupants.
+ * <p>
+ * Every term of an item (e.g. its nickname, JID and vCard name), as well as
+ * every word in those terms, is stored in a prefix trie. Additionally, all
+ * trigrams of the terms are indexed, so that substring queries of at least
+ * three characters do not need to scan all items. Results are ranked: exact
+ * matches come first, followed by items of which a term starts with the query,
+ * items of which a word starts with the query and finally items that merely
+ * contain the query. Within a rank, items are ordered by display name.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @param <T> the type of the indexed items.
+ */
+public class SearchIndex<T> {
+
+    private static final int GRAM_LENGTH = 3;
+
+    private static final int RANK_EXACT = 0;
+    private static final int RANK_TERM_PREFIX = 1;
+    private static final int RANK_WORD_PREFIX = 2;
+    private static final int RANK_SUBSTRING = 3;
+
+    private final Node<T> root = new Node<>();
+    private final Map<T, Document<T>> documents = new HashMap<>();
+    private final Map<String, Set<Document<T>>> grams = new HashMap<>();
+
+    /**
+     * Adds an item to the index, replacing any terms previously indexed for it.
+     *
+     * @param item        the item.
+     * @param displayName the name under which the item is shown. It is searchable and used for name completion.
+     * @param terms       additional searchable terms, such as JIDs. Null or empty terms are ignored.
+     */
+    public synchronized void put(T item, String displayName, Collection<String> terms) {
+        remove(item);
+
+        final Set<String> keys = new LinkedHashSet<>();
+        addKey(keys, displayName);
+        if (terms != null) {
+            for (String term : terms) {
+                addKey(keys, term);
+            }
+        }
+
+        if (keys.isEmpty()) {
+            return;
+        }
+
+        final Document<T> document = new Document<>(item, displayName != null ? displayName : keys.iterator().next(), new ArrayList<>(keys));
+        for (String token : tokenize(document.keys)) {
+            Node<T> node = root;
+            for (int i = 0; i < token.length(); i++) {
+                node = node.getOrCreateChild(token.charAt(i));
+            }
+            node.documents.add(document);
+        }
+        for (String gram : grams(document.keys)) {
+            grams.computeIfAbsent(gram, key -> new HashSet<>()).add(document);
+        }
+        documents.put(item, document);
+    }
+
+    /**
+     * Removes an item from the index.
+     *
+     * @param item the item.
+     */
+    public synchronized void remove(T item) {
+        final Document<T> document = documents.remove(item);
+        if (document == null) {
+            return;
+        }
+
+        for (String token : tokenize(document.keys)) {
+            final Deque<Node<T>> path = new ArrayDeque<>();
+            Node<T> node = root;
+            for (int i = 0; i < token.length() && node != null; i++) {
+                path.push(node);
+                node = node.children.get(token.charAt(i));
+            }
+            if (node == null) {
+                continue;
+            }
+            node.documents.remove(document);
+
+            // Prune branches that no longer lead to any document.
+            for (int i = token.length() - 1; i >= 0 && node.isEmpty(); i--) {
+                final Node<T> parent = path.pop();
+                parent.children.remove(token.charAt(i));
+                node = parent;
+            }
+        }
+
+        for (String gram : grams(document.keys)) {
+            final Set<Document<T>> postings = grams.get(gram);
+            if (postings != null) {
+                postings.remove(document);
+                if (postings.isEmpty()) {
+                    grams.remove(gram);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all items from the index.
+     */
+    public synchronized void clear() {
+        documents.clear();
+        grams.clear();
+        root.children.clear();
+        root.documents.clear();
+    }
+
+    /**
+     * Returns whether an item is indexed.
+     *
+     * @param item the item.
+     * @return true if the item is indexed.
+     */
+    public synchronized boolean contains(T item) {
+        return documents.containsKey(item);
+    }
+
+    /**
+     * Returns the number of indexed items.
+     *
+     * @return the number of items.
+     */
+    public synchronized int size() {
+        return documents.size();
+    }
+
+    /**
+     * Searches for items matching the query, ranked by relevance.
+     *
+     * @param query the text to search for. An empty query matches all items.
+     * @param limit the maximum number of results, or zero for no limit.
+     * @return the matching items, best match first.
+     */
+    public synchronized List<T> search(String query, int limit) {
+        final String needle = normalize(query);
+
+        final Map<Document<T>, Integer> ranks = new IdentityHashMap<>();
+        if (needle.isEmpty()) {
+            for (Document<T> document : documents.values()) {
+                ranks.put(document, RANK_TERM_PREFIX);
+            }
+        }
+        else {
+            for (Document<T> document : collect(needle)) {
+                ranks.put(document, rank(document, needle));
+            }
+
+            if (needle.length() >= GRAM_LENGTH) {
+                for (Document<T> document : candidatesContaining(needle)) {
+                    if (!ranks.containsKey(document) && document.contains(needle)) {
+                        ranks.put(document, RANK_SUBSTRING);
+                    }
+                }
+            }
+        }
+
+        final Comparator<Map.Entry<Document<T>, Integer>> order = (a, b) -> {
+            final int result = Integer.compare(a.getValue(), b.getValue());
+            return result != 0 ? result : a.getKey().sortKey.compareTo(b.getKey().sortKey);
+        };
+
+        final List<Map.Entry<Document<T>, Integer>> matches;
+        if (limit > 0 && ranks.size() > limit) {
+            // Only keep the best matches, instead of sorting all of them.
+            final PriorityQueue<Map.Entry<Document<T>, Integer>> best = new PriorityQueue<>(limit + 1, order.reversed());
+            for (Map.Entry<Document<T>, Integer> match : ranks.entrySet()) {
+                best.add(match);
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+            matches = new ArrayList<>(best);
+        }
+        else {
+            matches = new ArrayList<>(ranks.entrySet());
+        }
+        matches.sort(order);
+
+        final List<T> results = new ArrayList<>(matches.size());
+        for (Map.Entry<Document<T>, Integer> match : matches) {
+            results.add(match.getKey().item);
+        }
+        return results;
+    }
+
+    /**
+     * Returns the display names that start with the given prefix, for name completion.
+     *
+     * @param prefix the prefix typed so far.
+     * @param limit  the maximum number of results, or zero for no limit.
+     * @return the matching display names, in case-insensitive order.
+     */
+    public synchronized List<String> complete(String prefix, int limit) {
+        final String needle = normalize(prefix);
+
+        final Set<String> names = new TreeSet<>(String::compareToIgnoreCase);
+        for (Document<T> document : needle.isEmpty() ? documents.values() : collect(needle)) {
+            if (document.sortKey.startsWith(needle)) {
+                names.add(document.displayName);
+            }
+        }
+
+        final List<String> results = new ArrayList<>(names);
+        return limit > 0 && results.size() > limit ? results.subList(0, limit) : results;
+    }
+
+    /**
+     * Collects all documents having a token that starts with the given (normalized) prefix.
+     */
+    private Set<Document<T>> collect(String prefix) {
+        Node<T> node = root;
+        for (int i = 0; i < prefix.length() && node != null; i++) {
+            node = node.children.get(prefix.charAt(i));
+        }
+        if (node == null) {
+            return Collections.emptySet();
+        }
+
+        final Set<Document<T>> result = Collections.newSetFromMap(new IdentityHashMap<>());
+        final Deque<Node<T>> stack = new ArrayDeque<>();
+        stack.push(node);
+        while (!stack.isEmpty()) {
+            final Node<T> current = stack.pop();
+            result.addAll(current.documents);
+            for (Node<T> child : current.children.values()) {
+                stack.push(child);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the documents that contain all trigrams of the given (normalized) text.
+     */
+    private Set<Document<T>> candidatesContaining(String needle) {
+        Set<Document<T>> smallest = null;
+        final List<Set<Document<T>>> postings = new ArrayList<>();
+        for (int i = 0; i + GRAM_LENGTH <= needle.length(); i++) {
+            final Set<Document<T>> posting = grams.get(needle.substring(i, i + GRAM_LENGTH));
+            if (posting == null) {
+                return Collections.emptySet();
+            }
+            postings.add(posting);
+            if (smallest == null || posting.size() < smallest.size()) {
+                smallest = posting;
+            }
+        }
+        if (smallest == null) {
+            return Collections.emptySet();
+        }
+
+        final Set<Document<T>> result = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Document<T> document : smallest) {
+            boolean inAll = true;
+            for (Set<Document<T>> posting : postings) {
+                if (posting != smallest && !posting.contains(document)) {
+                    inAll = false;
+                    break;
+                }
+            }
+            if (inAll) {
+                result.add(document);
+            }
+        }
+        return result;
+    }
+
+    private static <T> int rank(Document<T> document, String needle) {
+        int rank = RANK_WORD_PREFIX;
+        for (String key : document.keys) {
+            if (key.equals(needle)) {
+                return RANK_EXACT;
+            }
+            if (key.startsWith(needle)) {
+                rank = RANK_TERM_PREFIX;
+            }
+        }
+        return rank;
+    }
+
+    private static void addKey(Set<String> keys, String term) {
+        final String key = normalize(term);
+        if (!key.isEmpty()) {
+            keys.add(key);
+        }
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns the keys themselves, as well as every word within the keys.
+     */
+    private static Set<String> tokenize(List<String> keys) {
+        final Set<String> tokens = new HashSet<>(keys);
+        for (String key : keys) {
+            int start = 0;
+            for (int i = 0; i <= key.length(); i++) {
+                if (i == key.length() || isSeparator(key.charAt(i))) {
+                    if (i > start) {
+                        tokens.add(key.substring(start, i));
+                    }
+                    start = i + 1;
+                }
+            }
+        }
+        return tokens;
+    }
+
+    private static boolean isSeparator(char c) {
+        return Character.isWhitespace(c) || c == '@' || c == '.' || c == '_' || c == ',' || c == '/' || c == '-';
+    }
+
+    private static Set<String> grams(List<String> keys) {
+        final Set<String> result = new HashSet<>();
+        for (String key : keys) {
+            for (int i = 0; i + GRAM_LENGTH <= key.length(); i++) {
+                result.add(key.substring(i, i + GRAM_LENGTH));
+            }
+        }
+        return result;
+    }
+
+    private static class Node<T> {
+        private final Map<Character, Node<T>> children = new HashMap<>(4);
+        private final Set<Document<T>> documents = new HashSet<>(2);
+
+        private Node<T> getOrCreateChild(char c) {
+            return children.computeIfAbsent(c, key -> new Node<>());
+        }
+
+        private boolean isEmpty() {
+            return children.isEmpty() && documents.isEmpty();
+        }
+    }
+
+    private static class Document<T> {
+        private final T item;
+        private final String displayName;
+        private final String sortKey;
+        private final List<String> keys;
+
+        private Document(T item, String displayName, List<String> keys) {
+            this.item = item;
+            this.displayName = displayName;
+            this.sortKey = normalize(displayName);
+            this.keys = keys;
+        }
+
+        private boolean contains(String needle) {
+            for (String key : keys) {
+                if (key.contains(needle)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
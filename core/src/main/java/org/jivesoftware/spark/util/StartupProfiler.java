@@ -0,0 +1,299 @@
+/**
+ * Copyright (C) 2004-2011 Jive Software. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.spark.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.jivesoftware.Spark;
+import org.jivesoftware.spark.util.log.Log;
+import org.jivesoftware.sparkimpl.settings.JiveInfo;
+
+/**
+ * Records how long the steps of starting Spark take, from the launch of the
+ * JVM until all plugins have been initialized.
+ * <p>
+ * A step is recorded as a span, which is started with {@link #begin(String)}
+ * and ended on the same thread. Spans that are started while another span is
+ * open on the same thread are nested within it. Every span remembers the
+ * thread it ran on.
+ * <p>
+ * When startup completes ({@link #finish()}), the spans are written to
+ * <code>startup-trace.json</code> in the log directory, in the Trace Event
+ * format that can be opened in trace viewers such as <code>chrome://tracing</code>
+ * or Perfetto, and a summary is appended to <code>startup-summary.log</code>,
+ * so that the startup times of different runs and releases can be compared.
+ * After that, nothing is recorded anymore. This class is thread-safe.
+ * <p>
+ * The time during which Spark waits for the user to log in is recorded as a
+ * span of its own ({@link #beginUserWait()}), and is not counted in the startup
+ * time, so that it only depends on Spark itself.
+ */
+public final class StartupProfiler {
+
+    /**
+     * The size beyond which the summary file is started anew.
+     */
+    private static final long MAX_SUMMARY_SIZE = 512 * 1024;
+
+    /**
+     * The value of {@link System#nanoTime()} when the JVM started.
+     */
+    private static final long ORIGIN = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(ManagementFactory.getRuntimeMXBean().getUptime());
+
+    private static final List<Event> events = new ArrayList<>();
+    private static final ThreadLocal<Deque<Span>> openSpans = ThreadLocal.withInitial(ArrayDeque::new);
+    private static volatile boolean finished;
+
+    // Guarded by events.
+    private static long userWaitStart = -1;
+    private static long userWait;
+
+    static {
+        // Everything that happened before Spark's own code ran.
+        record("JVM and launcher", ORIGIN, System.nanoTime());
+    }
+
+    private StartupProfiler() {
+    }
+
+    /**
+     * Starts a span on the current thread.
+     *
+     * @param name the name of the step.
+     * @return the span, to be ended on the same thread.
+     */
+    public static Span begin(String name) {
+        final Span span = new Span(name);
+        if (!finished) {
+            openSpans.get().push(span);
+        }
+        return span;
+    }
+
+    /**
+     * Records a span of which the start and end were measured already, on the
+     * current thread.
+     *
+     * @param name       the name of the step.
+     * @param startNanos the value of {@link System#nanoTime()} when the step started.
+     * @param endNanos   the value of {@link System#nanoTime()} when the step ended.
+     */
+    public static void record(String name, long startNanos, long endNanos) {
+        add(new Event(name, Thread.currentThread(), startNanos, endNanos, openSpans.get().size()));
+    }
+
+    /**
+     * Marks that Spark starts waiting for the user, such as for credentials to
+     * be entered in the login dialog. Has no effect if Spark is waiting already.
+     */
+    public static void beginUserWait() {
+        synchronized (events) {
+            if (!finished && userWaitStart < 0) {
+                userWaitStart = System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * Marks that Spark no longer waits for the user, recording the wait as a
+     * span that is not counted in the startup time. Has no effect if Spark was
+     * not waiting.
+     */
+    public static void endUserWait() {
+        synchronized (events) {
+            if (userWaitStart < 0) {
+                return;
+            }
+            final long now = System.nanoTime();
+            add(new Event("Wait for user to log in", Thread.currentThread(), userWaitStart, now, 0));
+            userWait += now - userWaitStart;
+            userWaitStart = -1;
+        }
+    }
+
+    /**
+     * Marks the end of the startup, writing the trace and the summary. Only the
+     * first invocation has any effect.
+     */
+    public static void finish() {
+        final long end = System.nanoTime();
+        final List<Event> recorded;
+        final long waited;
+        synchronized (events) {
+            if (finished) {
+                return;
+            }
+            endUserWait();
+            finished = true;
+            recorded = new ArrayList<>(events);
+            events.clear();
+            waited = userWait;
+        }
+        recorded.sort(Comparator.comparingLong(event -> event.start));
+
+        TaskEngine.getInstance().submit(TaskEngine.Category.IO, () -> {
+            final long total = end - ORIGIN - waited;
+            writeTrace(recorded);
+            writeSummary(recorded, total, waited);
+            Log.debug("Spark started in " + TimeUnit.NANOSECONDS.toMillis(total) + " ms, not counting " + TimeUnit.NANOSECONDS.toMillis(waited)
+                + " ms waiting for the user to log in. See startup-trace.json in the log directory for details.");
+        });
+    }
+
+    private static void add(Event event) {
+        synchronized (events) {
+            if (!finished) {
+                events.add(event);
+            }
+        }
+    }
+
+    private static void writeTrace(List<Event> recorded) {
+        final Map<Long, String> threads = new LinkedHashMap<>();
+        final StringBuilder json = new StringBuilder("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[\n");
+        for (Event event : recorded) {
+            threads.putIfAbsent(event.threadId, event.threadName);
+            json.append("{\"name\":\"").append(escape(event.name))
+                .append("\",\"cat\":\"startup\",\"ph\":\"X\",\"pid\":1,\"tid\":").append(event.threadId)
+                .append(",\"ts\":").append(toMicros(event.start - ORIGIN))
+                .append(",\"dur\":").append(toMicros(event.end - event.start))
+                .append("},\n");
+        }
+        for (Map.Entry<Long, String> thread : threads.entrySet()) {
+            json.append("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":").append(thread.getKey())
+                .append(",\"args\":{\"name\":\"").append(escape(thread.getValue())).append("\"}},\n");
+        }
+        json.append("{\"name\":\"process_name\",\"ph\":\"M\",\"pid\":1,\"args\":{\"name\":\"Spark\"}}\n]}\n");
+
+        write(new File(Spark.getLogDirectory(), "startup-trace.json"), json.toString(), false);
+    }
+
+    private static void writeSummary(List<Event> recorded, long total, long waited) {
+        final StringBuilder summary = new StringBuilder();
+        summary.append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()))
+            .append("  ").append(JiveInfo.getName()).append(' ').append(JiveInfo.getVersion())
+            .append(" (Java ").append(System.getProperty("java.version")).append(", ").append(JiveInfo.getOS()).append(")")
+            .append(": started in ").append(TimeUnit.NANOSECONDS.toMillis(total)).append(" ms")
+            .append(", not counting ").append(TimeUnit.NANOSECONDS.toMillis(waited)).append(" ms waiting for the user to log in\n");
+        for (Event event : recorded) {
+            summary.append(String.format("%8d ms %8d ms  ", TimeUnit.NANOSECONDS.toMillis(event.start - ORIGIN), TimeUnit.NANOSECONDS.toMillis(event.end - event.start)));
+            for (int i = 0; i < event.depth; i++) {
+                summary.append("  ");
+            }
+            summary.append(event.name).append("  [").append(event.threadName).append("]\n");
+        }
+        summary.append('\n');
+
+        final File file = new File(Spark.getLogDirectory(), "startup-summary.log");
+        write(file, summary.toString(), file.length() < MAX_SUMMARY_SIZE);
+    }
+
+    private static void write(File file, String content, boolean append) {
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file, append), StandardCharsets.UTF_8)) {
+            writer.write(content);
+        }
+        catch (IOException e) {
+            Log.warning("Unable to write " + file, e);
+        }
+    }
+
+    private static long toMicros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    private static String escape(String value) {
+        final StringBuilder escaped = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                escaped.append('\\').append(c);
+            }
+            else if (c < 0x20) {
+                escaped.append(String.format("\\u%04x", (int) c));
+            }
+            else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * A step of the startup that is being measured.
+     */
+    public static final class Span implements AutoCloseable {
+        private final String name;
+        private final long start = System.nanoTime();
+        private boolean ended;
+
+        private Span(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Ends the span. This must be invoked on the thread that started it.
+         * Ending a span more than once has no effect.
+         */
+        public void end() {
+            if (ended) {
+                return;
+            }
+            ended = true;
+
+            final Deque<Span> open = openSpans.get();
+            open.remove(this);
+            add(new Event(name, Thread.currentThread(), start, System.nanoTime(), open.size()));
+        }
+
+        @Override
+        public void close() {
+            end();
+        }
+    }
+
+    private static final class Event {
+        private final String name;
+        private final long threadId;
+        private final String threadName;
+        private final long start;
+        private final long end;
+        private final int depth;
+
+        private Event(String name, Thread thread, long start, long end, int depth) {
+            this.name = name;
+            this.threadId = thread.getId();
+            this.threadName = thread.getName();
+            this.start = start;
+            this.end = end;
+            this.depth = depth;
+        }
+    }
+}
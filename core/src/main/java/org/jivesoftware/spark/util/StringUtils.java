@@ -1986,12 +1986,7 @@ public class StringUtils {
      * @throws Exception
      */
     public static String getMD5Checksum(String filepath) throws NoSuchAlgorithmException, IOException {
-	byte[] b = createChecksum(filepath);
-	String result = "";
-	for (int i = 0; i < b.length; i++) {
-	    result += Integer.toString((b[i] & 0xff) + 0x100, 16).substring(1);
-	}
-	return result;
+	return encodeHex(createChecksum(filepath));
     }
     
     /**
@@ -2003,18 +1998,14 @@ public class StringUtils {
      * @throws Exception
      */
     public static byte[] createChecksum(String filename) throws NoSuchAlgorithmException, IOException {
-	InputStream fis = new FileInputStream(filename);
-
-	byte[] buffer = new byte[1024];
 	MessageDigest complete = MessageDigest.getInstance("MD5");
-	int numRead;
-	do {
-	    numRead = fis.read(buffer);
-	    if (numRead > 0) {
+	try (InputStream fis = new FileInputStream(filename)) {
+	    byte[] buffer = new byte[64 * 1024];
+	    int numRead;
+	    while ((numRead = fis.read(buffer)) != -1) {
 		complete.update(buffer, 0, numRead);
 	    }
-	} while (numRead != -1);
-	fis.close();
+	}
 	return complete.digest();
     }
     
@@ -20,37 +20,58 @@ package org.jivesoftware.spark.util;
 import org.jivesoftware.spark.util.log.Log;
 
 import javax.swing.SwingUtilities;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Improvement version of the javax SwingWorker class to avoid deadlocks. This gives user
  * multi-threaded abilities within their swing apps.
+ * <p>
+ * Workers share a pool of named threads, which are kept around for a while when idle, instead
+ * of each worker starting a thread of its own. A worker never waits for a thread: some workers
+ * run until an external event happens, such as a file transfer being accepted, so when all
+ * threads are busy, another thread is started.
  *
  * @author Derek DeMoro
  */
 public abstract class SwingWorker {
-    private Object value;  // see getValue(), setValue()
 
     /**
-     * Class to maintain reference to current worker thread
-     * under separate synchronization control.
+     * The number of threads the pool normally has. Workers often wait for the server, so there
+     * are more threads than processors. Starting more threads than this is logged, as it means
+     * that many workers are running at the same time.
      */
-    private static class ThreadVar {
-        private Thread thread;
+    private static final int CORE_THREADS = 32;
 
-        ThreadVar(Thread t) {
-            thread = t;
-        }
+    /**
+     * The number of seconds an idle thread is kept around.
+     */
+    private static final long KEEP_ALIVE = 60;
 
-        synchronized Thread get() {
-            return thread;
-        }
+    private static final ThreadPoolExecutor executor;
 
-        synchronized void clear() {
-            thread = null;
-        }
+    static {
+        final AtomicInteger threadNumber = new AtomicInteger(1);
+        executor = new ThreadPoolExecutor(CORE_THREADS, Integer.MAX_VALUE, KEEP_ALIVE, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+            if (SwingWorker.executor.getPoolSize() >= CORE_THREADS) {
+                Log.warning("All " + SwingWorker.executor.getPoolSize() + " SwingWorker threads are busy, starting another one.");
+            }
+            final Thread thread = new Thread(runnable, "swing-worker-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
     }
 
-    private ThreadVar threadVar;
+    private Object value;  // see getValue(), setValue()
+
+    private final FutureTask<Void> task;
+    private boolean started;
 
     /**
      * Get the value produced by the worker thread, or null if it
@@ -87,14 +108,11 @@ public abstract class SwingWorker {
 
     /**
      * A new method that interrupts the worker thread.  Call this method
-     * to force the worker to stop what it's doing.
+     * to force the worker to stop what it's doing. A worker that did not
+     * start running yet never will.
      */
     public void interrupt() {
-        Thread t = threadVar.get();
-        if (t != null) {
-            t.interrupt();
-        }
-        threadVar.clear();
+        task.cancel(true);
     }
 
 
@@ -106,59 +124,68 @@ public abstract class SwingWorker {
      * @return the value created by the <code>construct</code> method
      */
     public Object get() {
-        while (true) {
-            Thread t = threadVar.get();
-            if (t == null) {
+        synchronized (this) {
+            if (!started) {
                 return getValue();
             }
-            try {
-                t.join();
-            }
-            catch (InterruptedException e) {
-                Thread.currentThread().interrupt(); // propagate
-                return null;
-            }
         }
+
+        try {
+            task.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // propagate
+            return null;
+        }
+        catch (CancellationException | ExecutionException e) {
+            // Either interrupted, or already logged.
+        }
+        return getValue();
     }
 
 
     /**
-     * Start a thread that will call the <code>construct</code> method
+     * Prepare a worker that will call the <code>construct</code> method
      * and then exit.
      */
     public SwingWorker() {
-        new Runnable() {
-            public void run() {
-                finished();
-            }
-        };
-
         Runnable doConstruct = () -> {
+            final Thread thread = Thread.currentThread();
+            final String name = thread.getName();
+            thread.setName(name + " (" + getClass().getName() + ")");
             try {
-                        setValue(construct());
+                setValue(construct());
             }
             catch ( Exception e ) {
-                Log.error( e );
+                Log.error( "An exception occurred in SwingWorker " + getClass().getName(), e );
             }
             finally {
-                threadVar.clear();
+                thread.setName(name);
             }
-            SwingUtilities.invokeLater( () -> finished() );
+            SwingUtilities.invokeLater( () -> {
+                try {
+                    finished();
+                }
+                catch ( Exception e ) {
+                    Log.error( "An exception occurred while finishing SwingWorker " + getClass().getName(), e );
+                }
+            } );
 
         };
 
-        Thread t = new Thread(doConstruct);
-        threadVar = new ThreadVar(t);
+        task = new FutureTask<>(doConstruct, null);
     }
 
     /**
-     * Start the worker thread.
+     * Start the worker thread. Starting a worker more than once has no effect.
      */
     public void start() {
-        Thread t = threadVar.get();
-        if (t != null) {
-            t.start();
+        synchronized (this) {
+            if (started) {
+                return;
+            }
+            started = true;
         }
+        executor.execute(task);
     }
 }
-
@@ -18,15 +18,21 @@ package org.jivesoftware.spark.util;
 import org.jivesoftware.spark.util.log.Log;
 
 import java.util.Date;
+import java.util.EnumMap;
 import java.util.Map;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Performs tasks using worker threads. It also allows tasks to be scheduled to be
@@ -35,6 +41,14 @@ import java.util.concurrent.atomic.AtomicInteger;
  * scheduled to be run in the future will automatically be run using the thread
  * executor's thread pool. This means that the standard restriction that TimerTasks
  * should run quickly does not apply.
+ * <p/>
+ * Tasks are run in a {@link Category}, each of which has its own, bounded, pool of
+ * threads, so that for instance a burst of network requests does not hold up the
+ * writing of files. Scheduled tasks are timed by a single thread that does nothing
+ * but hand them over to the pool of their category. For every category, the number
+ * of tasks, their run time and the number of tasks that wait for a thread are
+ * recorded (see {@link #getStatistics()}), tasks that take long are logged, and so
+ * are exceptions thrown by tasks.
  *
  * @author Matt Tucker
  */
@@ -51,31 +65,24 @@ public class TaskEngine {
         return instance;
     }
 
-    private Timer timer;
-    private ExecutorService executor;
-    private Map<TimerTask, TimerTaskWrapper> wrappedTasks = new ConcurrentHashMap<>();
+    private ScheduledThreadPoolExecutor timer;
+    private final Map<Category, CategoryExecutor> executors = new EnumMap<>(Category.class);
+    private final Map<TimerTask, ScheduledFuture<?>> scheduledTasks = new ConcurrentHashMap<>();
 
     /**
      * Constructs a new task engine.
      */
     private TaskEngine() {
-        timer = new Timer("timer-spark", true);
-        executor = Executors.newCachedThreadPool(new ThreadFactory() {
-
-            final AtomicInteger threadNumber = new AtomicInteger(1);
-
-            public Thread newThread(Runnable runnable) {
-                // Use our own naming scheme for the threads.
-                Thread thread = new Thread(Thread.currentThread().getThreadGroup(), runnable,
-                        "pool-spark" + threadNumber.getAndIncrement(), 0);
-                // Make workers daemon threads.
-                thread.setDaemon(true);
-                if (thread.getPriority() != Thread.NORM_PRIORITY) {
-                    thread.setPriority(Thread.NORM_PRIORITY);
-                }
-                return thread;
-            }
+        timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "timer-spark");
+            thread.setDaemon(true);
+            return thread;
         });
+        timer.setRemoveOnCancelPolicy(true);
+
+        for (Category category : Category.values()) {
+            executors.put(category, new CategoryExecutor(category));
+        }
     }
 
     /**
@@ -92,7 +99,38 @@ public class TaskEngine {
      * @throws NullPointerException if task null.
      */
     public Future<?> submit(Runnable task) {
-        return executor.submit(task);
+        return submit(Category.GENERAL, task);
+    }
+
+    /**
+     * Submits a Runnable task for execution in a category and returns a Future
+     * representing that task.
+     *
+     * @param category the category of the task.
+     * @param task     the task to submit.
+     * @return a Future representing pending completion of the task,
+     *         and whose <tt>get()</tt> method will return <tt>null</tt>
+     *         upon completion.
+     * @throws java.util.concurrent.RejectedExecutionException
+     *                              if task cannot be scheduled
+     *                              for execution.
+     * @throws NullPointerException if task null.
+     */
+    public Future<?> submit(Category category, Runnable task) {
+        return executors.get(category).submit(new MeasuredTask(category, task));
+    }
+
+    /**
+     * Returns true if the current thread is one of the threads of a category.
+     * A task that waits for other tasks of its own category can use this to
+     * run them itself, rather than waiting for them behind its own thread.
+     *
+     * @param category the category.
+     * @return true if the current thread runs tasks of the category.
+     */
+    public boolean isCategoryThread(Category category) {
+        final Thread thread = Thread.currentThread();
+        return thread instanceof CategoryThread && ((CategoryThread) thread).category == category;
     }
 
 
@@ -107,7 +145,26 @@ public class TaskEngine {
      *                                  cancelled, or timer was cancelled.
      */
     public void schedule(TimerTask task, long delay) {
-        timer.schedule(new TimerTaskWrapper(task), delay);
+        schedule(Category.GENERAL, task, delay);
+    }
+
+    /**
+     * Schedules the specified task for execution in a category after the specified delay.
+     *
+     * @param category the category of the task.
+     * @param task     task to be scheduled.
+     * @param delay    delay in milliseconds before task is to be executed.
+     * @throws IllegalArgumentException if <tt>delay</tt> is negative.
+     */
+    public void schedule(Category category, TimerTask task, long delay) {
+        checkDelay(delay);
+        final TimerTaskWrapper taskWrapper = new TimerTaskWrapper(category, task, true);
+        final ScheduledFuture<?> scheduledTask = timer.schedule(taskWrapper, delay, TimeUnit.MILLISECONDS);
+        scheduledTasks.put(task, scheduledTask);
+        if (scheduledTask.isDone()) {
+            // It ran before it could be registered.
+            scheduledTasks.remove(task, scheduledTask);
+        }
     }
 
     /**
@@ -121,7 +178,8 @@ public class TaskEngine {
      *                                  cancelled, timer was cancelled, or timer thread terminated.
      */
     public void schedule(TimerTask task, Date time) {
-        timer.schedule(new TimerTaskWrapper(task), time);
+        checkDelay(time.getTime());
+        schedule(task, Math.max(0, time.getTime() - System.currentTimeMillis()));
     }
 
     /**
@@ -155,9 +213,25 @@ public class TaskEngine {
      *                                  cancelled, timer was cancelled, or timer thread terminated.
      */
     public void schedule(TimerTask task, long delay, long period) {
-        TimerTaskWrapper taskWrapper = new TimerTaskWrapper(task);
-        wrappedTasks.put(task, taskWrapper);
-        timer.schedule(taskWrapper, delay, period);
+        schedule(Category.GENERAL, task, delay, period);
+    }
+
+    /**
+     * Schedules the specified task for repeated <i>fixed-delay execution</i> in
+     * a category, beginning after the specified delay.
+     *
+     * @param category the category of the task.
+     * @param task     task to be scheduled.
+     * @param delay    delay in milliseconds before task is to be executed.
+     * @param period   time in milliseconds between successive task executions.
+     * @throws IllegalArgumentException if <tt>delay</tt> is negative, or
+     *                                  <tt>period</tt> is not positive.
+     * @see #schedule(TimerTask, long, long)
+     */
+    public void schedule(Category category, TimerTask task, long delay, long period) {
+        checkDelay(delay);
+        final TimerTaskWrapper taskWrapper = new TimerTaskWrapper(category, task, false);
+        scheduledTasks.put(task, timer.scheduleWithFixedDelay(taskWrapper, delay, period, TimeUnit.MILLISECONDS));
     }
 
     /**
@@ -190,9 +264,8 @@ public class TaskEngine {
      *                                  cancelled, timer was cancelled, or timer thread terminated.
      */
     public void schedule(TimerTask task, Date firstTime, long period) {
-        TimerTaskWrapper taskWrapper = new TimerTaskWrapper(task);
-        wrappedTasks.put(task, taskWrapper);
-        timer.schedule(taskWrapper, firstTime, period);
+        checkDelay(firstTime.getTime());
+        schedule(task, Math.max(0, firstTime.getTime() - System.currentTimeMillis()), period);
     }
 
     /**
@@ -227,10 +300,23 @@ public class TaskEngine {
      *                                  cancelled, timer was cancelled, or timer thread terminated.
      */
     public void scheduleAtFixedRate(TimerTask task, long delay, long period) {
-        TimerTaskWrapper taskWrapper = new TimerTaskWrapper(task);
-        wrappedTasks.put(task, taskWrapper);
+        scheduleAtFixedRate(Category.GENERAL, task, delay, period);
+    }
+
+    /**
+     * Schedules the specified task for repeated <i>fixed-rate execution</i> in
+     * a category, beginning after the specified delay.
+     *
+     * @param category the category of the task.
+     * @param task     task to be scheduled.
+     * @param delay    delay in milliseconds before task is to be executed.
+     * @param period   time in milliseconds between successive task executions.
+     * @see #scheduleAtFixedRate(TimerTask, long, long)
+     */
+    public void scheduleAtFixedRate(Category category, TimerTask task, long delay, long period) {
+        final TimerTaskWrapper taskWrapper = new TimerTaskWrapper(category, task, false);
         try {
-            timer.scheduleAtFixedRate(taskWrapper, delay, period);
+            scheduledTasks.put(task, timer.scheduleAtFixedRate(taskWrapper, delay, period, TimeUnit.MILLISECONDS));
         }
         catch (Exception e) {
             Log.error(e);
@@ -268,14 +354,7 @@ public class TaskEngine {
      *                                  cancelled, timer was cancelled, or timer thread terminated.
      */
     public void scheduleAtFixedRate(TimerTask task, Date firstTime, long period) {
-        TimerTaskWrapper taskWrapper = new TimerTaskWrapper(task);
-        wrappedTasks.put(task, taskWrapper);
-        try {
-            timer.scheduleAtFixedRate(taskWrapper, firstTime, period);
-        }
-        catch (Exception e) {
-            Log.error(e);
-        }
+        scheduleAtFixedRate(task, Math.max(0, firstTime.getTime() - System.currentTimeMillis()), period);
     }
 
     /**
@@ -284,41 +363,218 @@ public class TaskEngine {
      * @param task the scheduled task to cancel.
      */
     public void cancelScheduledTask(TimerTask task) {
-        TaskEngine.TimerTaskWrapper taskWrapper = wrappedTasks.remove(task);
-        if (taskWrapper != null) {
-            taskWrapper.cancel();
+        ScheduledFuture<?> scheduledTask = scheduledTasks.remove(task);
+        if (scheduledTask != null) {
+            scheduledTask.cancel(false);
+        }
+    }
+
+    /**
+     * Returns, for every category, the number of tasks that were run, failed and are
+     * waiting for a thread, and how long the tasks took.
+     *
+     * @return a description of the statistics, one line per category.
+     */
+    public String getStatistics() {
+        StringBuilder statistics = new StringBuilder();
+        for (CategoryExecutor executor : executors.values()) {
+            statistics.append(executor.getStatistics()).append('\n');
         }
+        return statistics.toString();
     }
 
     /**
      * Shuts down the task engine service.
      */
     public void shutdown() {
-        if (executor != null) {
+        if (timer != null) {
+            timer.shutdownNow();
+            timer = null;
+        }
+
+        Log.debug("Task engine statistics:\n" + getStatistics());
+        for (CategoryExecutor executor : executors.values()) {
             executor.shutdownNow();
-            executor = null;
         }
+    }
 
-        if (timer != null) {
-            timer.cancel();
-            timer = null;
+    private static void checkDelay(long delay) {
+        if (delay < 0) {
+            throw new IllegalArgumentException("Negative delay.");
+        }
+    }
+
+    /**
+     * The categories of tasks. Each category has its own pool of threads.
+     */
+    public enum Category {
+        /**
+         * Tasks that do not belong to any other category. This is the category of
+         * tasks for which none is given.
+         */
+        GENERAL("spark-general-", 32, 10 * 1000),
+
+        /**
+         * Tasks that wait for the server or other hosts on the network.
+         */
+        NETWORK("spark-network-", 16, 60 * 1000),
+
+        /**
+         * Tasks that read or write local files, or play sounds.
+         */
+        IO("spark-io-", 4, 5 * 1000);
+
+        private final String threadPrefix;
+        private final int maxThreads;
+        private final long slowTaskThreshold;
+
+        Category(String threadPrefix, int maxThreads, long slowTaskThreshold) {
+            this.threadPrefix = threadPrefix;
+            this.maxThreads = maxThreads;
+            this.slowTaskThreshold = slowTaskThreshold;
+        }
+    }
+
+    /**
+     * The pool of threads of a category, which keeps track of the tasks it runs.
+     * Threads are started as tasks are submitted, up to the maximum of the
+     * category, and stop after having been idle for a minute.
+     */
+    private static class CategoryExecutor extends ThreadPoolExecutor {
+
+        private final Category category;
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong slow = new AtomicLong();
+        private final AtomicLong totalRunTime = new AtomicLong();
+        private final AtomicLong maxRunTime = new AtomicLong();
+        private final AtomicLong maxQueueSize = new AtomicLong();
+
+        CategoryExecutor(Category category) {
+            super(category.maxThreads, category.maxThreads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new CategoryThreadFactory(category));
+            this.category = category;
+            allowCoreThreadTimeOut(true);
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            super.execute(command);
+            maxQueueSize.accumulateAndGet(getQueue().size(), Math::max);
+        }
+
+        private void completed(MeasuredTask task, long runTime, boolean success) {
+            if (success) {
+                completed.incrementAndGet();
+            }
+            else {
+                failed.incrementAndGet();
+            }
+            totalRunTime.addAndGet(runTime);
+            maxRunTime.accumulateAndGet(runTime, Math::max);
+
+            if (runTime > category.slowTaskThreshold) {
+                slow.incrementAndGet();
+                Log.warning("Task " + task.task + " (" + category + ") took " + runTime + " ms. to run.");
+            }
+        }
+
+        private String getStatistics() {
+            long finished = completed.get() + failed.get();
+            return category + ": " + completed + " completed, " + failed + " failed, " + slow + " slow, "
+                    + getActiveCount() + " running, " + getQueue().size() + " waiting (at most " + maxQueueSize + "), "
+                    + "run time " + (finished == 0 ? 0 : totalRunTime.get() / finished) + " ms. on average, " + maxRunTime + " ms. at most.";
+        }
+    }
+
+    private static class CategoryThreadFactory implements ThreadFactory {
+
+        private final Category category;
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+        CategoryThreadFactory(Category category) {
+            this.category = category;
+        }
+
+        public Thread newThread(Runnable runnable) {
+            // Use our own naming scheme for the threads.
+            Thread thread = new CategoryThread(category, runnable, category.threadPrefix + threadNumber.getAndIncrement());
+            // Make workers daemon threads.
+            thread.setDaemon(true);
+            if (thread.getPriority() != Thread.NORM_PRIORITY) {
+                thread.setPriority(Thread.NORM_PRIORITY);
+            }
+            return thread;
+        }
+    }
+
+    private static class CategoryThread extends Thread {
+
+        private final Category category;
+
+        CategoryThread(Category category, Runnable runnable, String name) {
+            super(Thread.currentThread().getThreadGroup(), runnable, name, 0);
+            this.category = category;
+        }
+    }
+
+    /**
+     * Wrapper class for a task, that measures how long it takes and logs the
+     * exceptions it throws.
+     */
+    private class MeasuredTask implements Runnable {
+
+        private final Category category;
+        private final Runnable task;
+
+        MeasuredTask(Category category, Runnable task) {
+            this.category = category;
+            this.task = task;
+        }
+
+        public void run() {
+            long start = System.currentTimeMillis();
+            boolean success = false;
+            try {
+                task.run();
+                success = true;
+            }
+            catch (RuntimeException | Error e) {
+                Log.error("Task " + task + " (" + category + ") threw an exception.", e);
+                throw e;
+            }
+            finally {
+                executors.get(category).completed(this, System.currentTimeMillis() - start, success);
+            }
         }
     }
 
     /**
      * Wrapper class for a standard TimerTask. It simply executes the TimerTask
-     * using the executor's thread pool.
+     * using the thread pool of its category.
      */
-    private class TimerTaskWrapper extends TimerTask {
+    private class TimerTaskWrapper implements Runnable {
 
-        private TimerTask task;
+        private final Category category;
+        private final TimerTask task;
+        private final boolean once;
 
-        public TimerTaskWrapper(TimerTask task) {
+        TimerTaskWrapper(Category category, TimerTask task, boolean once) {
+            this.category = category;
             this.task = task;
+            this.once = once;
         }
 
         public void run() {
-            executor.submit(task);
+            if (once) {
+                scheduledTasks.remove(task);
+            }
+            try {
+                submit(category, task);
+            }
+            catch (Exception e) {
+                // Keep the task scheduled, even though this execution is lost.
+                Log.error("Unable to run task " + task + " (" + category + ").", e);
+            }
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,243 @@
+/**
+ * Copyright (C) 2004-2011 Jive Software. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.spark.util;
+
+import org.jivesoftware.spark.util.log.Log;
+
+import java.awt.EventQueue;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A hashed timer wheel for large numbers of short, keyed deadlines, such as the
+ * delayed move of a contact to the offline group.
+ * <p>
+ * Unlike {@link TaskEngine}, which creates a timer task per scheduled
+ * operation, all deadlines share a single daemon thread that advances a
+ * fixed-size wheel once per tick. Scheduling and cancelling is O(1). At most
+ * one task is pending per key: scheduling a key again replaces its previous
+ * task. All tasks that expire in the same tick are executed together, followed
+ * by the optional batch callback, so that a burst of deadlines results in a
+ * single (UI) update rather than one per task. While no task is pending the
+ * wheel thread sleeps and costs nothing.
+ * <p>
+ * Deadlines are honored with a resolution of one tick.
+ *
+ * @param <K> the type of the keys identifying the tasks.
+ */
+public class TimerWheel<K> {
+
+    private final String name;
+    private final long tickMillis;
+    private final boolean runOnEventThread;
+    private final Runnable batchCompleted;
+
+    private final List<List<Entry<K>>> wheel;
+    private final Map<K, Entry<K>> pending = new HashMap<>();
+
+    private int cursor;
+    private Thread thread;
+
+    /**
+     * Creates a new timer wheel.
+     *
+     * @param name             the name of the wheel, used for its thread.
+     * @param tickMillis       the duration of a single tick in milliseconds.
+     * @param wheelSize        the number of slots on the wheel.
+     * @param runOnEventThread true if expired tasks should be executed on the Swing event dispatch thread.
+     * @param batchCompleted   executed after each batch of expired tasks, may be null.
+     */
+    public TimerWheel(String name, long tickMillis, int wheelSize, boolean runOnEventThread, Runnable batchCompleted) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("Tick duration and wheel size must be positive.");
+        }
+        this.name = name;
+        this.tickMillis = tickMillis;
+        this.runOnEventThread = runOnEventThread;
+        this.batchCompleted = batchCompleted;
+
+        wheel = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            wheel.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Schedules a task for execution after the given delay, replacing any
+     * task that is still pending for the same key.
+     *
+     * @param key   the key identifying the task.
+     * @param delay the delay in milliseconds.
+     * @param task  the task to execute.
+     */
+    public synchronized void schedule(K key, long delay, Runnable task) {
+        final Entry<K> previous = pending.remove(key);
+        if (previous != null) {
+            previous.cancelled = true;
+        }
+
+        final long ticks = Math.max(1, (delay + tickMillis - 1) / tickMillis);
+        final Entry<K> entry = new Entry<>(key, task, (ticks - 1) / wheel.size());
+        wheel.get((int) ((cursor + ticks) % wheel.size())).add(entry);
+        pending.put(key, entry);
+
+        if (thread == null) {
+            thread = new Thread(this::advance, "timer-wheel-" + name);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        notifyAll();
+    }
+
+    /**
+     * Cancels the task pending for the given key, if any.
+     *
+     * @param key the key identifying the task.
+     * @return true if a pending task was cancelled.
+     */
+    public synchronized boolean cancel(K key) {
+        final Entry<K> entry = pending.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        entry.cancelled = true;
+        return true;
+    }
+
+    /**
+     * Returns true if a task is pending for the given key.
+     *
+     * @param key the key identifying the task.
+     * @return true if a task is pending.
+     */
+    public synchronized boolean isPending(K key) {
+        return pending.containsKey(key);
+    }
+
+    /**
+     * Cancels all pending tasks and stops the wheel thread.
+     */
+    public synchronized void shutdown() {
+        for (Entry<K> entry : pending.values()) {
+            entry.cancelled = true;
+        }
+        pending.clear();
+        for (List<Entry<K>> slot : wheel) {
+            slot.clear();
+        }
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    private void advance() {
+        long nextTick = System.currentTimeMillis() + tickMillis;
+        while (true) {
+            final List<Runnable> expired = new ArrayList<>();
+            synchronized (this) {
+                try {
+                    if (thread != Thread.currentThread()) {
+                        return;
+                    }
+                    if (pending.isEmpty()) {
+                        // Nothing to do, sleep until something is scheduled.
+                        wait();
+                        nextTick = System.currentTimeMillis() + tickMillis;
+                        continue;
+                    }
+
+                    long remaining = nextTick - System.currentTimeMillis();
+                    if (remaining > 0) {
+                        wait(remaining);
+                        continue;
+                    }
+                }
+                catch (InterruptedException e) {
+                    return;
+                }
+
+                nextTick += tickMillis;
+                cursor = (cursor + 1) % wheel.size();
+
+                final List<Entry<K>> slot = wheel.get(cursor);
+                final List<Entry<K>> remainder = new ArrayList<>();
+                for (Entry<K> entry : slot) {
+                    if (entry.cancelled) {
+                        continue;
+                    }
+                    if (entry.rounds > 0) {
+                        entry.rounds--;
+                        remainder.add(entry);
+                        continue;
+                    }
+                    pending.remove(entry.key);
+                    expired.add(entry.task);
+                }
+                slot.clear();
+                slot.addAll(remainder);
+            }
+
+            if (!expired.isEmpty()) {
+                dispatch(expired);
+            }
+        }
+    }
+
+    private void dispatch(final List<Runnable> expired) {
+        final Runnable batch = () -> {
+            for (Runnable task : expired) {
+                try {
+                    task.run();
+                }
+                catch (Exception e) {
+                    Log.error("Error running task on timer wheel " + name, e);
+                }
+            }
+
+            if (batchCompleted != null) {
+                try {
+                    batchCompleted.run();
+                }
+                catch (Exception e) {
+                    Log.error("Error completing batch on timer wheel " + name, e);
+                }
+            }
+        };
+
+        if (runOnEventThread) {
+            EventQueue.invokeLater(batch);
+        }
+        else {
+            batch.run();
+        }
+    }
+
+    private static class Entry<K> {
+        private final K key;
+        private final Runnable task;
+        private long rounds;
+        private boolean cancelled;
+
+        private Entry(K key, Runnable task, long rounds) {
+            this.key = key;
+            this.task = task;
+            this.rounds = rounds;
+        }
+    }
+}
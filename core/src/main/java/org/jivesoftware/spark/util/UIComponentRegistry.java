@@ -17,7 +17,11 @@ package org.jivesoftware.spark.util;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.jivesoftware.LoginDialog;
 import org.jivesoftware.smackx.muc.MultiUserChat;
 import org.jivesoftware.spark.ButtonFactory;
@@ -63,6 +67,13 @@ public final class UIComponentRegistry {
     private static Class<? extends ChatContainer> chatContainerClass = ChatContainer.class;
     private static Class<? extends ButtonFactory> buttonFactoryClass = ButtonFactory.class;
 
+    /**
+     * Constructors resolved so far, per class and list of argument types. As the
+     * key contains the class itself, registering another class never returns a
+     * stale constructor.
+     */
+    private static final Map<List<Class<?>>, Constructor<?>> constructors = new ConcurrentHashMap<>();
+
 
 
     private UIComponentRegistry() {
@@ -310,6 +321,53 @@ public final class UIComponentRegistry {
         return instantiate(contactItemClass, aliass, nick, jid);
     }
 
+    /**
+     * Creates new contact item objects for a batch of contacts, such as a
+     * roster that is being loaded. The constructor of the registered class is
+     * resolved only once for the whole batch.
+     *
+     * @param aliases
+     *            the alias of each contact.
+     * @param fullyQualifiedJIDs
+     *            the JID of each contact, in the same order as the aliases.
+     *
+     * @return New instances of the class currently registered as contact item,
+     *         in the order of the JIDs. Items that could not be created are
+     *         null.
+     */
+    public static List<ContactItem> createContactItems(List<String> aliases, List<String> fullyQualifiedJIDs) {
+        if (aliases.size() != fullyQualifiedJIDs.size()) {
+            throw new IllegalArgumentException("Expected an alias for every JID.");
+        }
+
+        final Class<? extends ContactItem> currentClass = contactItemClass;
+        final List<ContactItem> items = new ArrayList<>(fullyQualifiedJIDs.size());
+        final Constructor<? extends ContactItem> ctor;
+        try {
+            ctor = getConstructor(currentClass, String.class, String.class, String.class);
+        } catch (final NoSuchMethodException e) {
+            Log.error("Error calling constructor for " + currentClass.getName(), e);
+            for (int i = 0; i < fullyQualifiedJIDs.size(); i++) {
+                items.add(null);
+            }
+            return items;
+        }
+
+        for (int i = 0; i < fullyQualifiedJIDs.size(); i++) {
+            final String alias = aliases.get(i);
+            final String jid = fullyQualifiedJIDs.get(i);
+            ContactItem item = null;
+            try {
+                // null breaks instantiation by reflection
+                item = ctor.newInstance(alias != null ? alias : "", "", jid != null ? jid : "");
+            } catch (final Exception e) {
+                Log.error("Error calling constructor for " + currentClass.getName(), e);
+            }
+            items.add(item);
+        }
+        return items;
+    }
+
     /**
      * Retrieves the contact info window instance (this is implemented as a
      * singleton).
@@ -486,19 +544,16 @@ public final class UIComponentRegistry {
     private static <T> T instantiate(Class<? extends T> currentClass, Object... args) {
         T instance = null;
 
-        Log.debug("Args: " + Arrays.toString(args));
+        if (System.getProperty("debug.mode") != null) {
+            Log.debug("Args: " + Arrays.toString(args));
+        }
         try {
-            if (args != null) {
-                Class<? extends Object>[] classes = new Class<?>[args.length];
-                for (int i = 0; i < args.length; i++) {
-                    classes[i] = args[i].getClass();
-                }
-                final Constructor<? extends T> ctor = currentClass.getDeclaredConstructor(classes);
-                instance = ctor.newInstance(args);
-            } else {
-                final Constructor<? extends T> ctor = currentClass.getDeclaredConstructor();
-                instance = ctor.newInstance();
+            final Class<?>[] classes = new Class<?>[args != null ? args.length : 0];
+            for (int i = 0; i < classes.length; i++) {
+                classes[i] = args[i].getClass();
             }
+            final Constructor<? extends T> ctor = getConstructor(currentClass, classes);
+            instance = ctor.newInstance(args);
         } catch (final Exception e) {
             // not pretty but we're catching several exceptions we can do little
             // about
@@ -507,4 +562,31 @@ public final class UIComponentRegistry {
         return instance;
     }
 
-}
\ No newline at end of file
+    /**
+     * Returns the constructor of a class taking the given argument types,
+     * looking it up by reflection only the first time it is requested.
+     *
+     * @param currentClass
+     *            Class to instantiate.
+     * @param argTypes
+     *            Types of the constructor arguments.
+     * @return The constructor.
+     * @throws NoSuchMethodException
+     *             if the class has no such constructor.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> Constructor<? extends T> getConstructor(Class<? extends T> currentClass, Class<?>... argTypes)
+            throws NoSuchMethodException {
+        final List<Class<?>> key = new ArrayList<>(argTypes.length + 1);
+        key.add(currentClass);
+        key.addAll(Arrays.asList(argTypes));
+
+        Constructor<?> ctor = constructors.get(key);
+        if (ctor == null) {
+            ctor = currentClass.getDeclaredConstructor(argTypes);
+            constructors.put(key, ctor);
+        }
+        return (Constructor<? extends T>) ctor;
+    }
+
+}
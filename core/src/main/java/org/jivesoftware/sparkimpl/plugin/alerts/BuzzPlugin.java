@@ -67,7 +67,8 @@ public class BuzzPlugin implements Plugin {
     }
     }, new StanzaTypeFilter(Message.class));
 
-	SparkManager.getChatManager().addChatRoomListener(
+	// The chat container is not thread-safe.
+	SwingUtilities.invokeLater( () -> SparkManager.getChatManager().addChatRoomListener(
 		new ChatRoomListener() {
 		    public void chatRoomOpened(final ChatRoom room) {
 			TimerTask task = new SwingTimerTask() {
@@ -93,7 +94,12 @@ public class BuzzPlugin implements Plugin {
 
 		    public void userHasLeft(ChatRoom room, String userid) {
 		    }
-		});
+		}) );
+    }
+
+    @Override
+    public boolean canInitializeInBackground() {
+	return true;
     }
 
     private void addBuzzFeatureToChatRoom(final ChatRoom room) {
@@ -26,6 +26,7 @@ import org.jivesoftware.smack.packet.Presence;
 import org.jivesoftware.smack.provider.ProviderManager;
 import org.jivesoftware.smackx.disco.packet.DiscoverItems;
 import org.jivesoftware.spark.ChatManager;
+import org.jivesoftware.spark.LoginTaskManager;
 import org.jivesoftware.spark.PresenceManager;
 import org.jivesoftware.spark.SparkManager;
 import org.jivesoftware.spark.component.MessageDialog;
@@ -69,31 +70,19 @@ public class GatewayPlugin implements Plugin, ContactItemHandler {
 	LocalPreferences localPref = SettingsManager.getLocalPreferences();
 	useTab = localPref.getShowTransportTab();
 	transferTab.setBackground((Color)UIManager.get("ContactItem.background"));
-        SwingWorker thread = new SwingWorker() {
-            public Object construct() {
-                try {
-                    // Let's try and avoid any timing issues with the gateway presence.
-                    Thread.sleep(5000);
-                    populateTransports();
-                }
-                catch (Exception e) {
-                    Log.error(e);
-                    return false;
-                }
-
-                return true;
+        // The registration state of the transports is only known once the server's components are discovered.
+        LoginTaskManager.getInstance().addTask("gateways", () -> {
+            try {
+                populateTransports();
+            }
+            catch (Exception e) {
+                Log.error(e);
+                return;
             }
 
-            public void finished() {
-        	
-        	transferTab.setLayout(new VerticalFlowLayout(0,0,0,true,false));
-        	Boolean transportExists = (Boolean)get();
-                if (!transportExists) {
-                    return;
-                } 
-                
-                
-                
+            SwingUtilities.invokeLater( () -> {
+                transferTab.setLayout(new VerticalFlowLayout(0,0,0,true,false));
+
                 if (TransportUtils.getTransports().size() > 0  && useTab) {
                    SparkManager.getWorkspace().getWorkspacePane().addTab(Res.getString("title.transports"), SparkRes.getImageIcon(SparkRes.TRANSPORT_ICON), transferTab); 
                 }
@@ -104,10 +93,8 @@ public class GatewayPlugin implements Plugin, ContactItemHandler {
 
                 // Register presences.
                 registerPresenceListener();
-            }
-        };
-
-        thread.start();
+            } );
+        }, "discovery");
     }
 
     public void shutdown() {
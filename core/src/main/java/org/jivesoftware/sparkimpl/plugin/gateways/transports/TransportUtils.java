@@ -21,8 +21,8 @@ import org.jivesoftware.smack.packet.IQ;
 import org.jivesoftware.smack.packet.ExtensionElement;
 import org.jivesoftware.smackx.iqregister.packet.Registration;
 import org.jivesoftware.smackx.iqprivate.PrivateDataManager;
-import org.jivesoftware.smackx.disco.ServiceDiscoveryManager;
 import org.jivesoftware.smackx.disco.packet.DiscoverInfo;
+import org.jivesoftware.spark.ServiceDiscoveryCache;
 import org.jivesoftware.spark.SparkManager;
 import org.jivesoftware.spark.util.TaskEngine;
 import org.jivesoftware.spark.util.log.Log;
@@ -127,9 +127,8 @@ public class TransportUtils {
             return false;
         }
 
-        ServiceDiscoveryManager discoveryManager = ServiceDiscoveryManager.getInstanceFor(con);
         try {
-            DiscoverInfo info = discoveryManager.discoverInfo(transport.getServiceName());
+            DiscoverInfo info = ServiceDiscoveryCache.getInstance().discoverInfo(transport.getServiceName());
             return info.containsFeature("jabber:iq:registered");
         }
         catch (XMPPException | SmackException e) {
@@ -165,7 +164,11 @@ public class TransportUtils {
         registration.setTo(gatewayDomain);
         registration.addExtension(new GatewayRegisterExtension());
 
-        con.sendStanzaWithResponseCallback( registration, new IQReplyFilter( registration, con ), callback);
+        con.sendStanzaWithResponseCallback( registration, new IQReplyFilter( registration, con ), stanza -> {
+            // The registration changes the features of the gateway.
+            ServiceDiscoveryCache.getInstance().invalidate( gatewayDomain );
+            callback.processPacket( stanza );
+        } );
     }
 
     /**
@@ -182,6 +185,7 @@ public class TransportUtils {
         registration.setTo(gatewayDomain);
 
         con.sendStanzaWithResponseCallback( registration, new IQReplyFilter( registration, con ), stanza -> {
+            ServiceDiscoveryCache.getInstance().invalidate( gatewayDomain );
             IQ response = (IQ) stanza;
             if (response.getType() == IQ.Type.error ) {
                 Log.warning( "Unable to unregister from gateway: " + stanza );
@@ -67,6 +67,12 @@ public class UserIdlePlugin extends TimerTask implements Plugin {
 			isLocked.intWinLockListener();
 		}
 	}
+
+	@Override
+	public boolean canInitializeInBackground() {
+		return true;
+	}
+
 	private long getIdleTime() {
 		IdleTime idleTime;
 		if (Spark.isWindows()) {
@@ -17,9 +17,9 @@ package org.jivesoftware.sparkimpl.plugin.manager;
 
 import org.jivesoftware.smack.SmackException;
 import org.jivesoftware.smack.XMPPException;
-import org.jivesoftware.smackx.disco.ServiceDiscoveryManager;
 import org.jivesoftware.smackx.disco.packet.DiscoverInfo;
 import org.jivesoftware.smackx.disco.packet.DiscoverItems;
+import org.jivesoftware.spark.ServiceDiscoveryCache;
 import org.jivesoftware.spark.SparkManager;
 import org.jivesoftware.spark.util.log.Log;
 
@@ -95,7 +95,6 @@ public class Enterprise {
     }
 
     private void populateFeatureSet() {
-        final ServiceDiscoveryManager disco = ServiceDiscoveryManager.getInstanceFor(SparkManager.getConnection());
         final DiscoverItems items = SparkManager.getSessionManager().getDiscoveredItems();
         for (DiscoverItems.Item item : items.getItems() ) {
             String entity = item.getEntityID();
@@ -105,7 +104,7 @@ public class Enterprise {
 
                     // Populate with feature sets.
                     try {
-                        featureInfo = disco.discoverInfo(item.getEntityID());
+                        featureInfo = ServiceDiscoveryCache.getInstance().discoverInfo(item.getEntityID());
                     }
                     catch (XMPPException | SmackException e) {
                         Log.error("Error while retrieving feature list for SparkManager.", e);
@@ -18,13 +18,13 @@ package org.jivesoftware.sparkimpl.plugin.privacy;
 import org.jivesoftware.smack.SmackException;
 import org.jivesoftware.smack.XMPPConnection;
 import org.jivesoftware.smack.XMPPException;
-import org.jivesoftware.smackx.disco.ServiceDiscoveryManager;
 import org.jivesoftware.smackx.disco.packet.DiscoverInfo;
 import org.jivesoftware.smackx.disco.packet.DiscoverInfo.Feature;
 import org.jivesoftware.smackx.privacy.PrivacyList;
 import org.jivesoftware.smackx.privacy.PrivacyListManager;
 import org.jivesoftware.smackx.privacy.packet.PrivacyItem;
 import org.jivesoftware.spark.PresenceManager;
+import org.jivesoftware.spark.ServiceDiscoveryCache;
 import org.jivesoftware.spark.SparkManager;
 import org.jivesoftware.spark.util.log.Log;
 import org.jivesoftware.sparkimpl.plugin.privacy.list.PrivacyPresenceHandler;
@@ -95,10 +95,9 @@ public class PrivacyManager {
 
     
     private boolean checkIfPrivacyIsSupported(XMPPConnection conn) {
-    	ServiceDiscoveryManager servDisc = ServiceDiscoveryManager.getInstanceFor(conn);
         DiscoverInfo info = null;
     	try {
-    		info = servDisc.discoverInfo(conn.getServiceName());
+    		info = ServiceDiscoveryCache.getInstance().discoverInfo(conn.getServiceName());
         } catch (XMPPException | SmackException e) {
             	// We could not query the server
         }
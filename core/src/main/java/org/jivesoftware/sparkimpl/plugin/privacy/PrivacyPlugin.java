@@ -16,7 +16,6 @@
 package org.jivesoftware.sparkimpl.plugin.privacy;
 
 import java.awt.event.MouseEvent;
-import java.util.TimerTask;
 
 
 import javax.swing.JMenuItem;
@@ -28,11 +27,11 @@ import org.jivesoftware.resource.SparkRes;
 import org.jivesoftware.smack.SmackException;
 import org.jivesoftware.smackx.privacy.packet.PrivacyItem;
 import org.jivesoftware.smackx.privacy.packet.PrivacyItem.Type;
+import org.jivesoftware.spark.LoginTaskManager;
 import org.jivesoftware.spark.SparkManager;
 import org.jivesoftware.spark.plugin.ContextMenuListener;
 import org.jivesoftware.spark.plugin.Plugin;
 import org.jivesoftware.spark.ui.ContactItem;
-import org.jivesoftware.spark.util.TaskEngine;
 import org.jivesoftware.spark.util.log.Log;
 import org.jivesoftware.sparkimpl.plugin.privacy.list.SparkPrivacyList;
 
@@ -48,22 +47,10 @@ public class PrivacyPlugin implements Plugin {
 
     @Override
     public void initialize() {
-        TimerTask pManagerInstance = new TimerTask() {
-			@Override
-			public void run() {
-				PrivacyManager.getInstance(); // Initiating PrivacyLists
-	
-		        TimerTask thread = new TimerTask() {
-					@Override
-					public void run() {
-						addMenuItemToContactItems();
-					}
-				};
-				TaskEngine.getInstance().schedule(thread, 500);
-			}
-		};
-		TaskEngine.getInstance().schedule(pManagerInstance, 1000);
-		 
+        LoginTaskManager.getInstance().addTask("privacy-lists", () -> {
+            PrivacyManager.getInstance(); // Initiating PrivacyLists
+            addMenuItemToContactItems();
+        }, "discovery");
 
     }
 
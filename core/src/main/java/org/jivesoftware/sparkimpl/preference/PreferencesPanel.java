@@ -63,24 +63,6 @@ public class PreferencesPanel extends JPanel implements ListSelectionListener {
      * @param displayPref the preference you want to select
      */
     public PreferencesPanel (Iterator<Preference> preferences, Preference displayPref){
-        this(preferences);
-        if ( displayPref != null || listModel.getSize() == 1){
-            // iterate through all preference-ui items
-            for (int i = 0; i < listModel.size(); i++){
-                PreferenceUI p = (PreferenceUI)listModel.get( i );
-                // check if the namespace is the namespace we search for
-                if ( Objects.equals( p.getPreference().getNamespace(), displayPref.getNamespace() ) ){
-                    // if we've got our target, we can select this item and stop the search
-                    list.setSelectedIndex( i );
-                    break; 
-                }
-            }
-            // if we got a valid target, we trigger the selection changed method
-            if (list.getSelectedIndex() > -1) selectionChanged();
-        }
-    }
-    
-    public PreferencesPanel(Iterator<Preference> preferences) {
         this.setLayout(new GridBagLayout());
 
         JLabel titleLabel = new JLabel();
@@ -100,13 +82,21 @@ public class PreferencesPanel extends JPanel implements ListSelectionListener {
 
         list.setCellRenderer(new JLabelIconRenderer());
         list.addListSelectionListener(this);
-        // Populate with current preferences
+        // Populate with current preferences. Only the UI of the selected preference is built.
+        int selectedIndex = 0;
         while (preferences.hasNext()) {
             Preference preference = preferences.next();
+            if (displayPref != null && Objects.equals( preference.getNamespace(), displayPref.getNamespace() )) {
+                selectedIndex = listModel.getSize();
+            }
             listModel.addElement(new PreferenceUI(preference));
         }
 
-        list.setSelectedIndex(0);
+        list.setSelectedIndex(selectedIndex);
+    }
+    
+    public PreferencesPanel(Iterator<Preference> preferences) {
+        this(preferences, null);
     }
 
     private synchronized void selectionChanged(){
@@ -38,7 +38,7 @@ import org.jivesoftware.sparkimpl.settings.local.SettingsManager;
  * to be used and showing dates and times of chat posts.
  */
 public class ChatPreference implements Preference {
-    private ChatPreferencePanel panel = new ChatPreferencePanel();
+    private ChatPreferencePanel panel;
     private String errorMessage = "Error";
 
     /**
@@ -72,6 +72,7 @@ public class ChatPreference implements Preference {
             }
 
             public void finished() {
+                final ChatPreferencePanel panel = getPanel();
                 boolean showTime = localPreferences.isTimeDisplayedInChat();
                 boolean notificationsOn = localPreferences.isChatRoomNotificationsOn();
                 boolean chatHistoryHidden = !localPreferences.isChatHistoryEnabled();
@@ -95,6 +96,11 @@ public class ChatPreference implements Preference {
     }
 
     public void commit() {
+        if (panel == null) {
+            // Never shown, so nothing was changed.
+            return;
+        }
+
         LocalPreferences pref = SettingsManager.getLocalPreferences();
         pref.setTimeDisplayedInChat(panel.getShowTime());
         if( panel.getShowTime() )
@@ -136,7 +142,7 @@ public class ChatPreference implements Preference {
 
     public boolean isDataValid() {
         boolean dataIsValid = true;
-        if (ModelUtil.hasLength(panel.getPassword()) && ModelUtil.hasLength(panel.getConfirmationPassword())) {
+        if (panel != null && ModelUtil.hasLength(panel.getPassword()) && ModelUtil.hasLength(panel.getConfirmationPassword())) {
             if (!panel.getPassword().equals(panel.getConfirmationPassword())) {
                 errorMessage = Res.getString("message.passwords.no.match");
                 dataIsValid = false;
@@ -146,6 +152,16 @@ public class ChatPreference implements Preference {
     }
 
     public JComponent getGUI() {
+        return getPanel();
+    }
+
+    /**
+     * The panel is only created once the preference is shown.
+     */
+    private ChatPreferencePanel getPanel() {
+        if (panel == null) {
+            panel = new ChatPreferencePanel();
+        }
         return panel;
     }
 
@@ -32,7 +32,7 @@ import javax.swing.JComponent;
  */
 public class GroupChatPreference implements Preference {
 
-    private GroupChatPreferencePanel panel = new GroupChatPreferencePanel();
+    private GroupChatPreferencePanel panel;
 
     /**
      * Define the Namespace used for this preference.
@@ -74,6 +74,8 @@ public class GroupChatPreference implements Preference {
                 boolean randomColors 		= localPreferences.isMucRandomColors();
                 boolean inviteToBookmark    = !localPreferences.isUseAdHocRoom();
 
+                final GroupChatPreferencePanel panel = getPanel();
+
                 panel.setMucHighNameEnabled(highlightMyName);
                 panel.setMucHighTextEnabled(highlightMyText);
                 panel.setMuchHighToastEnabled(highlightPopName);
@@ -90,6 +92,11 @@ public class GroupChatPreference implements Preference {
     }
 
     public void commit() {
+        if (panel == null) {
+            // Never shown, so nothing was changed.
+            return;
+        }
+
         LocalPreferences pref = SettingsManager.getLocalPreferences();
 
         pref.setMucHighNameEnabled(panel.isMucHighNameEnabled());
@@ -117,6 +124,16 @@ public class GroupChatPreference implements Preference {
     }
 
     public JComponent getGUI() {
+        return getPanel();
+    }
+
+    /**
+     * The panel is only created once the preference is shown.
+     */
+    private GroupChatPreferencePanel getPanel() {
+        if (panel == null) {
+            panel = new GroupChatPreferencePanel();
+        }
         return panel;
     }
 
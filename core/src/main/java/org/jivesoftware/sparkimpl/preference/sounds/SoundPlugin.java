@@ -57,7 +57,7 @@ public class SoundPlugin implements Plugin, MessageListener, ChatRoomListener {
         // Load sound preferences.
         final Runnable soundLoader = () -> soundPreference.loadFromFile();
 
-        TaskEngine.getInstance().submit(soundLoader);
+        TaskEngine.getInstance().submit(TaskEngine.Category.IO, soundLoader);
 
         MultiUserChatManager.getInstanceFor(SparkManager.getConnection()).addInvitationListener( ( xmppConnection, muc, string1, string2, string3, message ) -> {
             SoundPreferences preferences = soundPreference.getPreferences();
@@ -0,0 +1,200 @@
+/**
+ * Copyright (C) 2004-2011 Jive Software. All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jivesoftware.sparkimpl.profile;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reverse index from phone numbers to the JIDs whose vCard lists them.
+ * <p>
+ * Numbers are reduced to their digits and stored back to front in a trie, so
+ * that a lookup only walks as many nodes as the queried number has digits. A
+ * query matches every stored number that ends with it (e.g. an extension or a
+ * number dialed without area code). A query carrying an extra international or
+ * trunk prefix (e.g. <tt>+1 555 1212</tt> versus a stored <tt>555-1212</tt>)
+ * also matches, provided the stored number has at least
+ * {@link #MINIMUM_SUFFIX_MATCH} digits.
+ *
+ * @see VCardManager#searchPhoneNumber(String)
+ */
+class PhoneNumberIndex {
+
+    /**
+     * The minimal number of digits a stored number must have before it is matched
+     * against the tail of a longer query.
+     */
+    static final int MINIMUM_SUFFIX_MATCH = 7;
+
+    private final Node root = new Node();
+
+    private final Map<String, Set<String>> numbersByJid = new HashMap<>();
+
+    /**
+     * Replaces all numbers indexed for the given JID.
+     *
+     * @param jid     the bare JID owning the numbers.
+     * @param numbers the phone numbers in any format. Null entries are ignored.
+     */
+    public synchronized void put(String jid, Collection<String> numbers) {
+        remove(jid);
+
+        final Set<String> normalized = new HashSet<>();
+        for (String number : numbers) {
+            final String digits = normalize(number);
+            if (digits != null && !digits.isEmpty()) {
+                normalized.add(digits);
+            }
+        }
+
+        if (normalized.isEmpty()) {
+            return;
+        }
+
+        for (String digits : normalized) {
+            Node node = root;
+            for (int i = digits.length() - 1; i >= 0; i--) {
+                node = node.getOrCreateChild(digits.charAt(i) - '0');
+                node.addOwner(jid);
+            }
+            node.addTerminal(jid);
+        }
+        numbersByJid.put(jid, normalized);
+    }
+
+    /**
+     * Removes all numbers indexed for the given JID.
+     *
+     * @param jid the bare JID.
+     */
+    public synchronized void remove(String jid) {
+        final Set<String> numbers = numbersByJid.remove(jid);
+        if (numbers == null) {
+            return;
+        }
+
+        for (String digits : numbers) {
+            Node node = root;
+            for (int i = digits.length() - 1; i >= 0 && node != null; i--) {
+                final int digit = digits.charAt(i) - '0';
+                final Node child = node.children[digit];
+                if (child == null) {
+                    break;
+                }
+                child.removeOwner(jid);
+                if (i == 0) {
+                    child.removeTerminal(jid);
+                }
+                if (child.owners.isEmpty()) {
+                    // Nothing else passes through this branch any more.
+                    node.children[digit] = null;
+                    break;
+                }
+                node = child;
+            }
+        }
+    }
+
+    /**
+     * Finds the JID owning a phone number that matches the query.
+     *
+     * @param number the phone number in any format.
+     * @return a matching JID, or null if no indexed number matches.
+     */
+    public synchronized String lookup(String number) {
+        final String digits = normalize(number);
+        if (digits == null || digits.isEmpty()) {
+            return null;
+        }
+
+        Node node = root;
+        String longestContainedNumber = null;
+        for (int i = digits.length() - 1; i >= 0; i--) {
+            node = node.children[digits.charAt(i) - '0'];
+            if (node == null) {
+                return longestContainedNumber;
+            }
+
+            final int matched = digits.length() - i;
+            if (matched >= MINIMUM_SUFFIX_MATCH && !node.terminals.isEmpty()) {
+                longestContainedNumber = node.terminals.keySet().iterator().next();
+            }
+        }
+
+        return node.owners.keySet().iterator().next();
+    }
+
+    /**
+     * Reduces a phone number to its (ASCII) digits, dropping punctuation,
+     * whitespace and the international '+' sign.
+     *
+     * @param number the phone number in any format.
+     * @return the digits of the number, or null if number is null.
+     */
+    static String normalize(String number) {
+        if (number == null) {
+            return null;
+        }
+
+        final StringBuilder builder = new StringBuilder(number.length());
+        for (int i = 0; i < number.length(); i++) {
+            final int digit = Character.digit(number.charAt(i), 10);
+            if (digit >= 0) {
+                builder.append((char) ('0' + digit));
+            }
+        }
+        return builder.toString();
+    }
+
+    private static class Node {
+        private final Node[] children = new Node[10];
+
+        /** JIDs of all numbers passing through this node, with the amount of such numbers per JID. */
+        private final Map<String, Integer> owners = new LinkedHashMap<>(2);
+
+        /** JIDs of all numbers ending (i.e. starting, as the trie is reversed) at this node. */
+        private final Map<String, Integer> terminals = new LinkedHashMap<>(1);
+
+        private Node getOrCreateChild(int digit) {
+            Node child = children[digit];
+            if (child == null) {
+                child = new Node();
+                children[digit] = child;
+            }
+            return child;
+        }
+
+        private void addOwner(String jid) {
+            owners.merge(jid, 1, Integer::sum);
+        }
+
+        private void removeOwner(String jid) {
+            owners.computeIfPresent(jid, (key, count) -> count > 1 ? count - 1 : null);
+        }
+
+        private void addTerminal(String jid) {
+            terminals.merge(jid, 1, Integer::sum);
+        }
+
+        private void removeTerminal(String jid) {
+            terminals.computeIfPresent(jid, (key, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+}
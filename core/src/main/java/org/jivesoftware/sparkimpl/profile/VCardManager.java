@@ -70,6 +70,8 @@ public class VCardManager {
 
     private Map<String, VCard> vcards = Collections.synchronizedMap( new HashMap<>());
 
+    private final PhoneNumberIndex phoneNumberIndex = new PhoneNumberIndex();
+
     private Set<String> delayedContacts = Collections.synchronizedSet( new HashSet<>());
     
     private boolean vcardLoaded;
@@ -536,6 +538,22 @@ public class VCardManager {
         	
         }
         vcards.put(jid, vcard);
+        phoneNumberIndex.put(jid, Arrays.asList(
+            vcard.getPhoneHome("VOICE"),
+            vcard.getPhoneWork("VOICE"),
+            vcard.getPhoneWork("CELL")));
+        SparkManager.getUserManager().indexContact(jid, vcard);
+    }
+
+    /**
+     * Returns the vCard of a user if it is currently cached in memory. Unlike
+     * {@link #getVCardFromMemory(String)}, this never loads or queues a vCard.
+     *
+     * @param jid the users jid.
+     * @return the cached vCard, or null.
+     */
+    public VCard getCachedVCard(String jid) {
+        return vcards.get(XmppStringUtils.parseBareJid(jid));
     }
 
     /**
@@ -595,26 +613,20 @@ public class VCardManager {
     }
 
     /**
-     * Searches all vCards for a specified phone number.
+     * Searches all cached vCards for a specified phone number. The number is
+     * matched against the end of the home, work and cell numbers of each vCard,
+     * ignoring formatting and international prefixes.
      *
      * @param phoneNumber the phoneNumber.
      * @return the vCard which contains the phone number.
      */
     public VCard searchPhoneNumber(String phoneNumber) {
-        for (VCard vcard : vcards.values()) {
-            String homePhone = getNumbersFromPhone(vcard.getPhoneHome("VOICE"));
-            String workPhone = getNumbersFromPhone(vcard.getPhoneWork("VOICE"));
-            String cellPhone = getNumbersFromPhone(vcard.getPhoneWork("CELL"));
-
-            String query = getNumbersFromPhone(phoneNumber);
-            if ((homePhone != null && homePhone.endsWith(query)) ||
-                (workPhone != null && workPhone.endsWith(query)) ||
-                (cellPhone != null && cellPhone.endsWith(query))) {
-                return vcard;
-            }
+        final String jid = phoneNumberIndex.lookup(phoneNumber);
+        if (jid == null) {
+            return null;
         }
 
-        return null;
+        return vcards.get(jid);
     }
 
     /**
@@ -17,11 +17,10 @@ package org.jivesoftware.sparkimpl.search.users;
 
 import org.jivesoftware.resource.Res;
 import org.jivesoftware.resource.SparkRes;
-import org.jivesoftware.smack.SmackException;
 import org.jivesoftware.smack.XMPPException;
-import org.jivesoftware.smackx.disco.ServiceDiscoveryManager;
 import org.jivesoftware.smackx.disco.packet.DiscoverInfo;
 import org.jivesoftware.smackx.disco.packet.DiscoverItems;
+import org.jivesoftware.spark.ServiceDiscoveryCache;
 import org.jivesoftware.spark.SparkManager;
 import org.jivesoftware.spark.search.Searchable;
 import org.jivesoftware.spark.ui.DataFormUI;
@@ -30,8 +29,11 @@ import org.jivesoftware.spark.util.SwingWorker;
 import org.jivesoftware.spark.util.log.Log;
 
 import javax.swing.*;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public class UserSearchService implements Searchable {
@@ -131,32 +133,25 @@ public class UserSearchService implements Searchable {
      */
     private Collection<String> getServices() throws Exception {
         final Set<String> searchServices = new HashSet<>();
-        ServiceDiscoveryManager discoManager = ServiceDiscoveryManager.getInstanceFor(SparkManager.getConnection());
+        final List<String> entities = new ArrayList<>();
         DiscoverItems items = SparkManager.getSessionManager().getDiscoveredItems();
         for (DiscoverItems.Item item : items.getItems() ) {
-            try {
-                DiscoverInfo info;
-                try {
-                    info = discoManager.discoverInfo(item.getEntityID());
-                }
-                catch (XMPPException | SmackException e) {
-                    // Ignore Case
-                    continue;
-                }
+            if (item.getEntityID() != null) {
+                entities.add(item.getEntityID());
+            }
+        }
 
-                if (info.containsFeature("jabber:iq:search")) {
-                    // Check that the search service belongs to user searches (and not room searches or other searches)
-                    for (DiscoverInfo.Identity identity : info.getIdentities() ) {
-                        if ("directory".equals(identity.getCategory()) && "user".equals(identity.getType())) {
-                            searchServices.add(item.getEntityID());
-                        }
+        // Entities that cannot be queried are left out.
+        for (Map.Entry<String, DiscoverInfo> entry : ServiceDiscoveryCache.getInstance().discoverInfo(entities).entrySet()) {
+            final DiscoverInfo info = entry.getValue();
+            if (info.containsFeature("jabber:iq:search")) {
+                // Check that the search service belongs to user searches (and not room searches or other searches)
+                for (DiscoverInfo.Identity identity : info.getIdentities() ) {
+                    if ("directory".equals(identity.getCategory()) && "user".equals(identity.getType())) {
+                        searchServices.add(entry.getKey());
                     }
                 }
             }
-            catch (Exception e) {
-                // No info found.
-                break;
-            }
         }
         return searchServices;
     }
@@ -1493,5 +1493,20 @@ public class LocalPreferences {
         return getBoolean("fileTransferIbbOnly", Default.getBoolean(Default.FILE_TRANSFER_IBB_ONLY));
     }
 
+    /**
+     * Returns the number of milliseconds the user interface may be unresponsive
+     * before a stall report is written to the log directory, or 0 if the user
+     * interface is not watched.
+     *
+     * @return the threshold in milliseconds.
+     */
+    public int getEdtStallThreshold() {
+        return getInt("edtStallThreshold", 2000);
+    }
+
+    public void setEdtStallThreshold(int threshold) {
+        setInt("edtStallThreshold", threshold);
+    }
+
 
 }
@@ -0,0 +1,108 @@
+package org.jivesoftware.spark.ui;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jivesoftware.smackx.chatstates.ChatState;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ChatStateSchedulerTest
+{
+	private final List<String> changes = new CopyOnWriteArrayList<>();
+
+	private final CountDownLatch changed = new CountDownLatch(1);
+
+	private final ChatStateScheduler<String> scheduler = new ChatStateScheduler<>((room, state) -> {
+		changes.add(room + ":" + state);
+		changed.countDown();
+	});
+
+	@Test
+	public void testChangeIsMadeWhenDue() throws Exception
+	{
+		final long start = System.currentTimeMillis();
+		scheduler.schedule("a", ChatState.paused, start + 100);
+
+		assertTrue(changed.await(2, TimeUnit.SECONDS));
+		assertTrue(System.currentTimeMillis() - start >= 100);
+		assertEquals("a:paused", changes.get(0));
+	}
+
+	@Test
+	public void testRepeatedComposingMovesDeadline() throws Exception
+	{
+		final long start = System.currentTimeMillis();
+
+		// Every keystroke moves the pause further away.
+		scheduler.schedule("a", ChatState.paused, start + 300);
+		Thread.sleep(150);
+		scheduler.schedule("a", ChatState.paused, System.currentTimeMillis() + 300);
+		Thread.sleep(150);
+		scheduler.schedule("a", ChatState.paused, System.currentTimeMillis() + 300);
+
+		// The first deadline passes without a change.
+		assertFalse(changed.await(150, TimeUnit.MILLISECONDS));
+		assertTrue(changes.isEmpty());
+
+		assertTrue(changed.await(2, TimeUnit.SECONDS));
+		assertTrue(System.currentTimeMillis() - start >= 500);
+		Thread.sleep(100);
+		assertEquals(1, changes.size());
+		assertEquals("a:paused", changes.get(0));
+	}
+
+	@Test
+	public void testCancel() throws Exception
+	{
+		final long start = System.currentTimeMillis();
+		scheduler.schedule("a", ChatState.paused, start + 50);
+		scheduler.cancel("a");
+
+		assertFalse(changed.await(200, TimeUnit.MILLISECONDS));
+		assertTrue(changes.isEmpty());
+	}
+
+	@Test
+	public void testEarlierChangeOfAnotherRoom() throws Exception
+	{
+		final long start = System.currentTimeMillis();
+		scheduler.schedule("a", ChatState.inactive, start + 1000);
+		scheduler.schedule("b", ChatState.paused, start + 50);
+
+		assertTrue(changed.await(500, TimeUnit.MILLISECONDS));
+		assertEquals(1, changes.size());
+		assertEquals("b:paused", changes.get(0));
+	}
+
+	@Test
+	public void testChangeMayScheduleNextChange() throws Exception
+	{
+		final AtomicReference<ChatStateScheduler<String>> chained = new AtomicReference<>();
+		final CountDownLatch inactive = new CountDownLatch(1);
+		chained.set(new ChatStateScheduler<>((room, state) -> {
+			changes.add(room + ":" + state);
+			if (state == ChatState.paused)
+			{
+				// As a chat room does once it is paused.
+				chained.get().schedule(room, ChatState.inactive, System.currentTimeMillis() + 50);
+			}
+			else
+			{
+				inactive.countDown();
+			}
+		}));
+
+		chained.get().schedule("a", ChatState.paused, System.currentTimeMillis() + 50);
+
+		assertTrue(inactive.await(2, TimeUnit.SECONDS));
+		assertEquals(2, changes.size());
+		assertEquals("a:paused", changes.get(0));
+		assertEquals("a:inactive", changes.get(1));
+	}
+}
@@ -0,0 +1,91 @@
+package org.jivesoftware.spark.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class KeywordMatcherTest
+{
+	@Test
+	public void testWholeWordsOnly()
+	{
+		KeywordMatcher matcher = new KeywordMatcher(Collections.singletonList("bob"));
+
+		assertTrue(matcher.matches("bob"));
+		assertTrue(matcher.matches("hi bob, how are you?"));
+		assertTrue(matcher.matches("(bob)"));
+		assertFalse(matcher.matches("bobby"));
+		assertFalse(matcher.matches("kabob"));
+		assertFalse(matcher.matches("bob_smith"));
+	}
+
+	@Test
+	public void testIgnoresCase()
+	{
+		KeywordMatcher matcher = new KeywordMatcher(Collections.singletonList("Alice"));
+
+		assertTrue(matcher.matches("ALICE: look at this"));
+		assertTrue(matcher.matches("thanks alice"));
+	}
+
+	@Test
+	public void testOverlappingKeywords()
+	{
+		KeywordMatcher matcher = new KeywordMatcher(Arrays.asList("ann", "anna"));
+
+		// 'ann' is not a whole word in 'anna', but 'anna' is.
+		assertTrue(matcher.matches("hello anna"));
+		assertTrue(matcher.matches("hello ann"));
+		assertFalse(matcher.matches("hello annabelle"));
+
+		matcher = new KeywordMatcher(Arrays.asList("ab", "b"));
+		assertTrue(matcher.matches("ab"));
+		assertTrue(matcher.matches("a b"));
+		assertFalse(matcher.matches("cab"));
+	}
+
+	@Test
+	public void testKeywordFoundThroughFailureLink()
+	{
+		// After 'ab.c', the text continues with a keyword that starts in the middle of the other.
+		KeywordMatcher matcher = new KeywordMatcher(Arrays.asList("ab.cd", ".ce"));
+
+		assertTrue(matcher.matches("ab.ce"));
+		assertTrue(matcher.matches("ab.cd"));
+		assertFalse(matcher.matches("ab.cx"));
+	}
+
+	@Test
+	public void testKeywordsWithPunctuation()
+	{
+		KeywordMatcher matcher = new KeywordMatcher(Collections.singletonList("@bob"));
+
+		// A keyword that does not start with a letter may follow one.
+		assertTrue(matcher.matches("hey@bob"));
+		assertTrue(matcher.matches("@bob, hi"));
+		assertFalse(matcher.matches("@bobby"));
+	}
+
+	@Test
+	public void testKeywordsAreTrimmedAndUnique()
+	{
+		KeywordMatcher matcher = new KeywordMatcher(Arrays.asList(" bob ", "bob", null, "  ", "alice"));
+
+		assertEquals(Arrays.asList("bob", "alice"), matcher.getKeywords());
+		assertTrue(matcher.matches("bob"));
+		assertFalse(matcher.matches(" "));
+	}
+
+	@Test
+	public void testEmpty()
+	{
+		assertTrue(KeywordMatcher.EMPTY.isEmpty());
+		assertFalse(KeywordMatcher.EMPTY.matches("anything"));
+		assertFalse(new KeywordMatcher(Collections.singletonList("bob")).matches(null));
+		assertTrue(new KeywordMatcher(Arrays.asList(null, "")).isEmpty());
+	}
+}
@@ -0,0 +1,119 @@
+package org.jivesoftware.spark.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SearchIndexTest
+{
+	private SearchIndex<String> index;
+
+	@Before
+	public void setUp()
+	{
+		index = new SearchIndex<>();
+		index.put("alice", "Alice Cooper", Collections.singletonList("alice@example.org"));
+		index.put("bob", "Bob Alison", Collections.singletonList("bob@example.org"));
+		index.put("carol", "Carol", Arrays.asList("carol@example.org", null, ""));
+	}
+
+	@Test
+	public void testRanking()
+	{
+		// A term starting with the query, then a word starting with it.
+		assertEquals(Arrays.asList("alice", "bob"), index.search("Ali", 0));
+
+		// An exact match comes first.
+		index.put("ali", "Ali", Collections.singletonList("ali@example.org"));
+		assertEquals(Arrays.asList("ali", "alice", "bob"), index.search("ali", 0));
+	}
+
+	@Test
+	public void testSubstringSearch()
+	{
+		// Neither a term nor a word starts with 'oop', but 'Alice Cooper' contains it.
+		assertEquals(Collections.singletonList("alice"), index.search("oop", 0));
+
+		// Too short to be looked up by trigrams.
+		assertTrue(index.search("oo", 0).isEmpty());
+	}
+
+	@Test
+	public void testSearchIsCaseInsensitive()
+	{
+		assertEquals(Collections.singletonList("carol"), index.search("CAROL@EXAMPLE", 0));
+	}
+
+	@Test
+	public void testEmptyQueryMatchesAllInNameOrder()
+	{
+		assertEquals(Arrays.asList("alice", "bob", "carol"), index.search("", 0));
+		assertEquals(Arrays.asList("alice", "bob"), index.search("", 2));
+	}
+
+	@Test
+	public void testLimitKeepsBestMatches()
+	{
+		index.put("ali", "Ali", null);
+		assertEquals(Arrays.asList("ali", "alice"), index.search("ali", 2));
+	}
+
+	@Test
+	public void testPrefixSearchAfterRemoval()
+	{
+		index.put("alicia", "Alicia", null);
+		assertEquals(Arrays.asList("alice", "alicia", "bob"), index.search("ali", 0));
+
+		index.remove("alice");
+		assertEquals(3, index.size());
+		assertFalse(index.contains("alice"));
+		assertTrue(index.contains("alicia"));
+		assertEquals(Arrays.asList("alicia", "bob"), index.search("ali", 0));
+		assertTrue(index.search("cooper", 0).isEmpty());
+		assertTrue(index.search("oop", 0).isEmpty());
+
+		// Removing a prefix of another term keeps the longer term.
+		index.put("al", "Al", null);
+		index.remove("al");
+		assertEquals(Collections.singletonList("alicia"), index.search("alic", 0));
+	}
+
+	@Test
+	public void testPutReplacesTerms()
+	{
+		index.put("alice", "Alice Smith", null);
+
+		assertTrue(index.search("cooper", 0).isEmpty());
+		assertEquals(Collections.singletonList("alice"), index.search("smith", 0));
+		assertEquals(3, index.size());
+	}
+
+	@Test
+	public void testComplete()
+	{
+		index.put("alicia", "alicia", null);
+
+		List<String> names = index.complete("al", 0);
+		assertEquals(Arrays.asList("Alice Cooper", "alicia"), names);
+		assertEquals(Collections.singletonList("Alice Cooper"), index.complete("al", 1));
+
+		// Only display names are completed, not other terms or words.
+		assertTrue(index.complete("cooper", 0).isEmpty());
+	}
+
+	@Test
+	public void testClear()
+	{
+		index.clear();
+
+		assertEquals(0, index.size());
+		assertTrue(index.search("", 0).isEmpty());
+		assertTrue(index.search("alice", 0).isEmpty());
+	}
+}
@@ -0,0 +1,132 @@
+package org.jivesoftware.spark.util;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TimerWheelTest
+{
+	private static final long TICK = 10;
+
+	private TimerWheel<String> wheel;
+
+	@After
+	public void tearDown()
+	{
+		if (wheel != null)
+		{
+			wheel.shutdown();
+		}
+	}
+
+	@Test
+	public void testTaskRunsAfterDelay() throws Exception
+	{
+		wheel = new TimerWheel<>("test", TICK, 8, false, null);
+		final CountDownLatch ran = new CountDownLatch(1);
+		final long start = System.currentTimeMillis();
+
+		wheel.schedule("a", 50, ran::countDown);
+		assertTrue(wheel.isPending("a"));
+
+		assertTrue(ran.await(2, TimeUnit.SECONDS));
+		assertTrue(System.currentTimeMillis() - start >= 50 - TICK);
+		assertFalse(wheel.isPending("a"));
+	}
+
+	@Test
+	public void testDelayLongerThanOneRevolution() throws Exception
+	{
+		// Four slots of 10 ms: a delay of 150 ms takes the wheel round more than three times.
+		wheel = new TimerWheel<>("test", TICK, 4, false, null);
+		final CountDownLatch ran = new CountDownLatch(1);
+		final long start = System.currentTimeMillis();
+
+		wheel.schedule("a", 150, ran::countDown);
+
+		assertFalse(ran.await(100, TimeUnit.MILLISECONDS));
+		assertTrue(wheel.isPending("a"));
+		assertTrue(ran.await(2, TimeUnit.SECONDS));
+		assertTrue(System.currentTimeMillis() - start >= 150 - TICK);
+	}
+
+	@Test
+	public void testCancel() throws Exception
+	{
+		wheel = new TimerWheel<>("test", TICK, 8, false, null);
+		final AtomicInteger runs = new AtomicInteger();
+		final CountDownLatch other = new CountDownLatch(1);
+
+		wheel.schedule("a", 30, runs::incrementAndGet);
+		wheel.schedule("b", 60, other::countDown);
+
+		assertTrue(wheel.cancel("a"));
+		assertFalse(wheel.cancel("a"));
+		assertFalse(wheel.isPending("a"));
+
+		// Once a later task ran, the cancelled one would have run too.
+		assertTrue(other.await(2, TimeUnit.SECONDS));
+		assertEquals(0, runs.get());
+	}
+
+	@Test
+	public void testScheduleAgainReplacesTask() throws Exception
+	{
+		wheel = new TimerWheel<>("test", TICK, 8, false, null);
+		final List<String> runs = new CopyOnWriteArrayList<>();
+		final CountDownLatch done = new CountDownLatch(1);
+
+		wheel.schedule("a", 30, () -> runs.add("first"));
+		wheel.schedule("a", 80, () -> {
+			runs.add("second");
+			done.countDown();
+		});
+
+		assertTrue(done.await(2, TimeUnit.SECONDS));
+		Thread.sleep(50);
+		assertEquals(1, runs.size());
+		assertEquals("second", runs.get(0));
+	}
+
+	@Test
+	public void testTasksOfOneTickShareBatch() throws Exception
+	{
+		final List<String> events = new CopyOnWriteArrayList<>();
+		final CountDownLatch batch = new CountDownLatch(1);
+		wheel = new TimerWheel<>("test", TICK, 8, false, () -> {
+			events.add("batch");
+			batch.countDown();
+		});
+
+		wheel.schedule("a", 40, () -> events.add("a"));
+		wheel.schedule("b", 40, () -> events.add("b"));
+
+		assertTrue(batch.await(2, TimeUnit.SECONDS));
+		assertEquals(3, events.size());
+		assertTrue(events.contains("a"));
+		assertTrue(events.contains("b"));
+		assertEquals("batch", events.get(2));
+	}
+
+	@Test
+	public void testShutdownCancelsPendingTasks() throws Exception
+	{
+		wheel = new TimerWheel<>("test", TICK, 8, false, null);
+		final AtomicInteger runs = new AtomicInteger();
+
+		wheel.schedule("a", 30, runs::incrementAndGet);
+		wheel.shutdown();
+
+		assertFalse(wheel.isPending("a"));
+		Thread.sleep(100);
+		assertEquals(0, runs.get());
+	}
+}
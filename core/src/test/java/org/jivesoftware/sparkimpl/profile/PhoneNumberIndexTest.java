@@ -0,0 +1,85 @@
+package org.jivesoftware.sparkimpl.profile;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class PhoneNumberIndexTest
+{
+	@Test
+	public void testNormalize()
+	{
+		assertEquals("15035551212", PhoneNumberIndex.normalize("+1 (503) 555-1212"));
+		assertEquals("", PhoneNumberIndex.normalize("ext."));
+		assertNull(PhoneNumberIndex.normalize(null));
+	}
+
+	@Test
+	public void testExactMatchIgnoresFormatting()
+	{
+		PhoneNumberIndex index = new PhoneNumberIndex();
+		index.put("alice@example.org", Arrays.asList("503-555-1212", null));
+
+		assertEquals("alice@example.org", index.lookup("(503) 555 1212"));
+		assertNull(index.lookup("503-555-1213"));
+		assertNull(index.lookup(""));
+		assertNull(index.lookup(null));
+	}
+
+	@Test
+	public void testQueryThatIsTheTailOfANumber()
+	{
+		PhoneNumberIndex index = new PhoneNumberIndex();
+		index.put("alice@example.org", Collections.singletonList("503-555-1212"));
+
+		// An extension, or a number dialed without area code.
+		assertEquals("alice@example.org", index.lookup("1212"));
+		assertEquals("alice@example.org", index.lookup("555-1212"));
+	}
+
+	@Test
+	public void testQueryWithPrefixAtSevenDigitBoundary()
+	{
+		PhoneNumberIndex index = new PhoneNumberIndex();
+		index.put("seven@example.org", Collections.singletonList("555-1212"));
+		index.put("six@example.org", Collections.singletonList("55-1313"));
+
+		// A stored number of seven digits matches the tail of a longer query.
+		assertEquals("seven@example.org", index.lookup("+1 503 555-1212"));
+
+		// A stored number of six digits is too short to be matched that way.
+		assertNull(index.lookup("+1 503 555-1313"));
+		assertEquals("six@example.org", index.lookup("551313"));
+	}
+
+	@Test
+	public void testPutReplacesNumbers()
+	{
+		PhoneNumberIndex index = new PhoneNumberIndex();
+		index.put("alice@example.org", Collections.singletonList("503-555-1212"));
+		index.put("alice@example.org", Collections.singletonList("503-555-3434"));
+
+		assertNull(index.lookup("503-555-1212"));
+		assertEquals("alice@example.org", index.lookup("503-555-3434"));
+	}
+
+	@Test
+	public void testRemoveKeepsNumbersOfOthers()
+	{
+		PhoneNumberIndex index = new PhoneNumberIndex();
+		index.put("alice@example.org", Collections.singletonList("503-555-1212"));
+		index.put("bob@example.org", Collections.singletonList("206-555-1212"));
+
+		index.remove("alice@example.org");
+
+		assertNull(index.lookup("503-555-1212"));
+		assertEquals("bob@example.org", index.lookup("206-555-1212"));
+		assertEquals("bob@example.org", index.lookup("555-1212"));
+
+		index.remove("bob@example.org");
+		assertNull(index.lookup("555-1212"));
+	}
+}
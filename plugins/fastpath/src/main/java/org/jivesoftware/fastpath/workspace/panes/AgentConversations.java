@@ -53,6 +53,7 @@ import org.jivesoftware.smackx.muc.MultiUserChat;
 import org.jivesoftware.smackx.workgroup.agent.AgentRoster;
 import org.jivesoftware.smackx.workgroup.agent.AgentRosterListener;
 import org.jivesoftware.smackx.workgroup.packet.AgentStatus;
+import org.jivesoftware.spark.ServiceDiscoveryCache;
 import org.jivesoftware.spark.SparkManager;
 import org.jivesoftware.spark.component.tabbedPane.SparkTab;
 import org.jivesoftware.spark.component.tabbedPane.SparkTabbedPaneListener;
@@ -289,7 +290,7 @@ public final class AgentConversations extends JPanel implements ChangeListener {
                             // Get Conference
                             try {
                                 final MultiUserChatManager multiUserChatManager = MultiUserChatManager.getInstanceFor( SparkManager.getConnection() );
-                                Collection col = multiUserChatManager.getServiceNames();
+                                Collection col = ServiceDiscoveryCache.getInstance().findServices( SparkManager.getConnection().getServiceName(), "http://jabber.org/protocol/muc" );
                                 if (col.size() == 0) {
                                     return;
                                 }
@@ -351,7 +352,7 @@ public final class AgentConversations extends JPanel implements ChangeListener {
                                 FastpathPlugin.getAgentSession().makeRoomOwner(SparkManager.getConnection(), sessionID);
 
                                 final MultiUserChatManager multiUserChatManager = MultiUserChatManager.getInstanceFor( SparkManager.getConnection() );
-                                Collection<String> col = multiUserChatManager.getServiceNames();
+                                Collection<String> col = ServiceDiscoveryCache.getInstance().findServices( SparkManager.getConnection().getServiceName(), "http://jabber.org/protocol/muc" );
                                 if (col.size() == 0) {
                                     return;
                                 }
@@ -56,6 +56,7 @@ import org.jivesoftware.smackx.muc.MultiUserChat;
 import org.jivesoftware.smackx.workgroup.agent.AgentRoster;
 import org.jivesoftware.smackx.workgroup.agent.AgentRosterListener;
 import org.jivesoftware.smackx.workgroup.packet.AgentStatus;
+import org.jivesoftware.spark.ServiceDiscoveryCache;
 import org.jivesoftware.spark.SparkManager;
 import org.jivesoftware.spark.UserManager;
 import org.jivesoftware.spark.ui.conferences.ConferenceUtils;
@@ -238,7 +239,7 @@ public final class CurrentActivity extends JPanel {
                             // Get Conference
                             try {
                                 final MultiUserChatManager multiUserChatManager = MultiUserChatManager.getInstanceFor( SparkManager.getConnection() );
-                                Collection col = multiUserChatManager.getServiceNames();
+                                Collection col = ServiceDiscoveryCache.getInstance().findServices( SparkManager.getConnection().getServiceName(), "http://jabber.org/protocol/muc" );
                                 if (col.size() == 0) {
                                     return;
                                 }
@@ -298,7 +299,7 @@ public final class CurrentActivity extends JPanel {
                             try {
                                 FastpathPlugin.getAgentSession().makeRoomOwner(SparkManager.getConnection(), sessionID);
                                 MultiUserChatManager manager = MultiUserChatManager.getInstanceFor( SparkManager.getConnection() );
-                                Collection<String> col = manager.getServiceNames();
+                                Collection<String> col = ServiceDiscoveryCache.getInstance().findServices( SparkManager.getConnection().getServiceName(), "http://jabber.org/protocol/muc" );
                                 if (col.size() == 0) {
                                     return;
                                 }
@@ -79,12 +79,7 @@ public class RoarMessageListener implements GlobalMessageListener {
     }
 
     private boolean doesMessageMatchKeywords(Message message) {
-        for (String keyword : _properties.getKeywords()) {
-            if (message.getBody().contains(keyword)) {
-                return true;
-            }
-        }
-        return false;
+        return _properties.getKeywordMatcher().matches(message.getBody());
     }
     
     private boolean isSingleRoomDisabled()
@@ -31,6 +31,7 @@ import org.jivesoftware.spark.roar.displaytype.SystemNotification;
 import org.jivesoftware.spark.roar.displaytype.RoarDisplayType;
 import org.jivesoftware.spark.roar.displaytype.SparkToasterHandler;
 import org.jivesoftware.spark.roar.displaytype.TopRight;
+import org.jivesoftware.spark.util.KeywordMatcher;
 
 /**
  * RoarProperties file stuff
@@ -65,6 +66,7 @@ public class RoarProperties {
     private static RoarProperties instance = null;
     
     private List<String> keywords = null;
+    private KeywordMatcher keywordMatcher = null;
     
     private RoarDisplayType[] displayTypes = new RoarDisplayType[]{new TopRight(), new BottomRight(), new SparkToasterHandler(), new SystemNotification()};
     
@@ -180,6 +182,7 @@ public class RoarProperties {
         } else {
             keywords = Collections.emptyList();
         }
+        keywordMatcher = null;
     }
 
     /**
@@ -205,6 +208,16 @@ public class RoarProperties {
         return Collections.unmodifiableList(keywords);
     }
 
+    /**
+     * Returns a matcher for the keywords, which is compiled again only after the keywords have changed.
+     */
+    public KeywordMatcher getKeywordMatcher() {
+        if (keywordMatcher == null) {
+            keywordMatcher = new KeywordMatcher(getKeywords());
+        }
+        return keywordMatcher;
+    }
+
     public RoarDisplayType getDisplayTypeClass() {
 
         String stringInProperty = getDisplayType();